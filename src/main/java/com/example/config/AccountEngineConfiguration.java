@@ -0,0 +1,75 @@
+package com.example.config;
+
+import com.example.engine.AccountStore;
+import com.example.engine.InMemoryAccountEngine;
+import com.example.engine.JpaAccountStore;
+import com.example.repository.ClientAccountRepository;
+import com.example.repository.EngineCheckpointRepository;
+import com.example.service.AccrualMode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+/**
+ * Конфиг движка переводов в памяти (режим перевода ENGINE)
+ */
+@Configuration
+@ConditionalOnProperty(name = "transfer.mode", havingValue = "ENGINE")
+public class AccountEngineConfiguration {
+
+    /**
+     * метод, создающий хранилище балансов движка в БД
+     * @param clientAccountRepository - repository счетов клиентов
+     * @param checkpointRepository - repository контрольной точки движка
+     * @return AccountStore - хранилище балансов
+     */
+    @Bean
+    public AccountStore accountStore(ClientAccountRepository clientAccountRepository,
+                                     EngineCheckpointRepository checkpointRepository) {
+        return new JpaAccountStore(clientAccountRepository, checkpointRepository);
+    }
+
+    /**
+     * метод, создающий движок переводов в памяти. Движок запускается после создания контекста
+     * и при остановке приложения переносит все подтвержденные переводы в БД. Балансы движка загружаются
+     * из БД только при запуске и не получают проценты, которые начисляет в БД планировщик начисления,
+     * поэтому режим ENGINE не запускается вместе с начислением процентов. В режиме начисления LAZY проценты
+     * фиксируются только при переводах с загрузкой счетов (PESSIMISTIC, OPTIMISTIC), поэтому этот режим
+     * с движком тоже не запускается, а не подменяет режим перевода молча
+     * @param accountStore - хранилище балансов
+     * @param walDirectory - каталог сегментов WAL
+     * @param shards - количество шардов
+     * @param inboxCapacity - размер кольцевого буфера переводов шарда
+     * @param segmentSize - размер сегмента WAL в байтах
+     * @param walBatchSize - максимальное количество записей WAL, сбрасываемых на диск одним fsync
+     * @param checkpointInterval - интервал переноса переводов в БД в мс
+     * @param schedulerEnabled - включены ли задачи по расписанию
+     * @param accrualMode - режим начисления процентов
+     * @return InMemoryAccountEngine - движок переводов
+     */
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public InMemoryAccountEngine accountEngine(AccountStore accountStore,
+                                               @Value("${transfer.engine.wal-dir:wal}") Path walDirectory,
+                                               @Value("${transfer.engine.shards:4}") int shards,
+                                               @Value("${transfer.engine.inbox-capacity:1024}") int inboxCapacity,
+                                               @Value("${transfer.engine.segment-size:67108864}") long segmentSize,
+                                               @Value("${transfer.engine.wal-batch-size:256}") int walBatchSize,
+                                               @Value("${transfer.engine.checkpoint-interval:1000}") long checkpointInterval,
+                                               @Value("${scheduler.enabled:true}") boolean schedulerEnabled,
+                                               @Value("${scheduler.accrual.mode:SQL}") AccrualMode accrualMode) {
+        if (accrualMode == AccrualMode.LAZY) {
+            throw new IllegalStateException("transfer.mode=ENGINE does not support scheduler.accrual.mode=LAZY: "
+                    + "lazily accrued interest is materialized only by PESSIMISTIC or OPTIMISTIC transfers");
+        }
+        if (schedulerEnabled) {
+            throw new IllegalStateException("transfer.mode=ENGINE does not support interest accrual: "
+                    + "engine balances are not updated by scheduler.accrual.mode=" + accrualMode
+                    + ", set scheduler.enabled=false");
+        }
+        return new InMemoryAccountEngine(accountStore, walDirectory, shards, inboxCapacity,
+                segmentSize, walBatchSize, checkpointInterval);
+    }
+}
@@ -1,16 +1,73 @@
 package com.example.config;
 
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Clock;
+import java.util.concurrent.ThreadPoolExecutor;
 
 /**
  * Конфиг для Scheduler
  */
+@Slf4j
 @Configuration
 @EnableScheduling
 @EnableAsync
 @ConditionalOnProperty(name = "scheduler.enabled", matchIfMissing = true)
 public class SchedulerConfiguration {
+
+    /**
+     * метод, создающий однопоточный пул, на котором запускается начисление процентов.
+     * Если предыдущее начисление еще не завершилось, следующий запуск пропускается,
+     * а не копится в очереди
+     * @return ThreadPoolTaskExecutor - пул потоков
+     */
+    @Bean
+    public ThreadPoolTaskExecutor accrualSchedulerExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("accrual-scheduler-");
+        executor.setRejectedExecutionHandler((task, pool) ->
+                log.warn("accrual is skipped, the previous one is still running"));
+        return executor;
+    }
+
+    /**
+     * метод, создающий ограниченный пул потоков для параллельного начисления процентов
+     * по диапазонам id счетов (режим PARTITIONED)
+     * @param poolSize - количество потоков
+     * @param partitions - количество диапазонов id счетов
+     * @return ThreadPoolTaskExecutor - пул потоков
+     */
+    @Bean
+    public ThreadPoolTaskExecutor accrualTaskExecutor(@Value("${scheduler.accrual.pool-size:4}") int poolSize,
+                                                      @Value("${scheduler.accrual.partitions:4}") int partitions) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(partitions);
+        executor.setThreadNamePrefix("accrual-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+
+    /**
+     * метод, создающий часы, по которым вычисляется номер запуска начисления (режим CLUSTER).
+     * Тесты могут подменить бин фиксированными часами
+     * @return Clock - системные часы в UTC
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public Clock accrualClock() {
+        return Clock.systemUTC();
+    }
 }
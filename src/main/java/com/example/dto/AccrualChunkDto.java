@@ -0,0 +1,24 @@
+package com.example.dto;
+
+import lombok.Value;
+
+/**
+ * Dto-класс, использующийся для передачи результата начисления процентов на одну порцию счетов
+ */
+@Value
+public class AccrualChunkDto {
+    /**
+     * id последнего обработанного счета (ключ для следующей порции)
+     */
+    Integer lastId;
+
+    /**
+     * количество счетов, загруженных в порции
+     */
+    int processedAccounts;
+
+    /**
+     * количество счетов, баланс которых был увеличен
+     */
+    int updatedAccounts;
+}
@@ -1,9 +1,9 @@
 package com.example.dto;
 
+import com.example.money.Money;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Builder;
 import lombok.Value;
-import java.math.BigDecimal;
 
 /**
  * Dto-класс, использующийся для передачи данных счета клиента с уровня сервисов на уровень контроллеров
@@ -15,6 +15,6 @@ public class ClientAccountReadDto {
     @Schema(description = "id счета клиента")
     private Integer id;
 
-    @Schema(description = "баланс")
-    private BigDecimal balance;
+    @Schema(description = "баланс", type = "number", example = "105.00")
+    private Money balance;
 }
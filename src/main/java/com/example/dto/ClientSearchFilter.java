@@ -0,0 +1,28 @@
+package com.example.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDate;
+
+/**
+ * Dto-класс, использующийся для передачи фильтров поиска клиентов с уровня контроллеров на уровень
+ * репозитория. Незаданный (null) фильтр не применяется, заданные фильтры объединяются через И
+ */
+@Schema(description = "DTO для передачи фильтров поиска клиентов")
+@Value
+@Builder
+public class ClientSearchFilter {
+    @Schema(description = "клиенты, рожденные позже этой даты")
+    LocalDate birthDate;
+
+    @Schema(description = "номер телефона")
+    String phone;
+
+    @Schema(description = "начало фио (без учета регистра)")
+    String fio;
+
+    @Schema(description = "email")
+    String email;
+}
@@ -0,0 +1,31 @@
+package com.example.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.List;
+
+/**
+ * Slice с курсором следующей страницы (keyset пагинация): клиенту достаточно передать nextCursor,
+ * чтобы получить следующую страницу без смещения
+ * @param <T> - тип элементов
+ */
+@Schema(description = "Страница с курсором следующей страницы")
+public class KeysetSlice<T> extends SliceImpl<T> {
+    private final String nextCursor;
+
+    public KeysetSlice(List<T> content, Pageable pageable, boolean hasNext, String nextCursor) {
+        super(content, pageable, hasNext);
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * метод, возвращающий курсор следующей страницы
+     * @return String - курсор (null, если следующей страницы нет)
+     */
+    @Schema(description = "курсор следующей страницы")
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.dto;
 
+import com.example.money.Money;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
@@ -21,8 +22,8 @@ public class TransferMoneyDto {
     @NotNull(message = "id must not be null")
     Integer recipientId;
 
-    @Schema(description = "сумма")
+    @Schema(description = "сумма", type = "number", example = "20.00")
     @Positive(message = "amount must be positive")
     @NotNull(message = "amount must not be null")
-    Float amount;
+    Money amount;
 }
@@ -0,0 +1,58 @@
+package com.example.dto;
+
+import com.example.money.Money;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
+
+/**
+ * Dto-класс, использующийся для передачи результата одного перевода из пакета переводов
+ */
+@Schema(description = "DTO с результатом перевода из пакета")
+@Value
+@Builder
+@Jacksonized
+public class TransferResultDto {
+    @Schema(description = "id получателя")
+    Integer recipientId;
+
+    @Schema(description = "сумма", type = "number", example = "20.00")
+    Money amount;
+
+    @Schema(description = "статус перевода")
+    Status status;
+
+    @Schema(description = "причина отказа")
+    String message;
+
+    /**
+     * Статусы перевода из пакета
+     */
+    public enum Status {
+        /**
+         * перевод выполнен
+         */
+        COMPLETED,
+        /**
+         * перевод отклонен (недостаточно средств, счет не найден и т.п.), остальные переводы пакета выполняются
+         */
+        REJECTED,
+        /**
+         * группа переводов, в которую входил перевод, не была зафиксирована из-за ошибки
+         */
+        FAILED
+    }
+
+    public static TransferResultDto completed(TransferMoneyDto transfer) {
+        return new TransferResultDto(transfer.getRecipientId(), transfer.getAmount(), Status.COMPLETED, null);
+    }
+
+    public static TransferResultDto rejected(TransferMoneyDto transfer, String message) {
+        return new TransferResultDto(transfer.getRecipientId(), transfer.getAmount(), Status.REJECTED, message);
+    }
+
+    public static TransferResultDto failed(TransferMoneyDto transfer, String message) {
+        return new TransferResultDto(transfer.getRecipientId(), transfer.getAmount(), Status.FAILED, message);
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.engine;
+
+import com.example.http.exception.ClientAccountException;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static com.example.service.ClientAccountService.INSUFFICIENT_FUNDS;
+
+/**
+ * Шард движка переводов в памяти: балансы части счетов, которые изменяет только поток-писатель шарда.
+ * Переводы поступают в ограниченный кольцевой буфер (при его заполнении отправитель ждет),
+ * а зачисления от других шардов - в неограниченную очередь, чтобы шарды не блокировали друг друга
+ */
+@Slf4j
+class AccountShard {
+    private static final String ENGINE_IS_STOPPED = "account engine is stopped";
+    private static final long POLL_TIMEOUT_MICROS = 200;
+    private final Map<Integer, Long> balances = new HashMap<>();
+    private final BlockingQueue<TransferCommand> inbox;
+    private final Queue<Consumer<Map<Integer, Long>>> updates = new ConcurrentLinkedQueue<>();
+    private final WalAppender wal;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    /**
+     * @param index - номер шарда
+     * @param inboxCapacity - размер кольцевого буфера переводов
+     * @param wal - журнал предзаписи
+     */
+    AccountShard(int index, int inboxCapacity, WalAppender wal) {
+        this.inbox = new ArrayBlockingQueue<>(inboxCapacity);
+        this.wal = wal;
+        this.writer = new Thread(this::run, "account-shard-" + index);
+    }
+
+    /**
+     * метод, изменяющий баланс счета до запуска потока шарда (загрузка и восстановление из WAL)
+     * @param accountId - идентификатор счета
+     * @param delta - изменение баланса в копейках
+     */
+    void load(int accountId, long delta) {
+        balances.merge(accountId, delta, Long::sum);
+    }
+
+    /**
+     * метод, регистрирующий счет, открытый после запуска движка
+     * @param accountId - идентификатор счета
+     * @param balance - баланс в копейках
+     */
+    void register(int accountId, long balance) {
+        updates.add(shardBalances -> shardBalances.putIfAbsent(accountId, balance));
+    }
+
+    /**
+     * метод, зачисляющий на счет сумму перевода, уже записанного в WAL
+     * @param accountId - идентификатор счета
+     * @param amount - сумма в копейках
+     */
+    void credit(int accountId, long amount) {
+        updates.add(shardBalances -> shardBalances.merge(accountId, amount, Long::sum));
+    }
+
+    /**
+     * метод, возвращающий баланс счета на момент обработки запроса потоком шарда
+     * @param accountId - идентификатор счета
+     * @return CompletableFuture<Long> - баланс в копейках (null, если счет не найден)
+     */
+    CompletableFuture<Long> getBalance(int accountId) {
+        CompletableFuture<Long> balance = new CompletableFuture<>();
+        updates.add(shardBalances -> balance.complete(shardBalances.get(accountId)));
+        return balance;
+    }
+
+    /**
+     * метод, помещающий перевод в кольцевой буфер шарда счета отправителя. Если шард остановлен,
+     * пока перевод помещался в буфер, и поток шарда его не забрал, перевод отклоняется, а не остается
+     * в буфере без обработки
+     * @param command - перевод
+     * @throws InterruptedException - поток прерван в ожидании места в буфере
+     */
+    void submit(TransferCommand command) throws InterruptedException {
+        if (!running) {
+            throw new IllegalStateException(ENGINE_IS_STOPPED);
+        }
+        inbox.put(command);
+        if (!running && inbox.remove(command)) {
+            throw new IllegalStateException(ENGINE_IS_STOPPED);
+        }
+    }
+
+    void start() {
+        writer.start();
+    }
+
+    /**
+     * метод, останавливающий поток шарда после обработки уже принятых переводов. Переводы, оставшиеся
+     * в буфере (поток шарда прерван), отклоняются
+     */
+    void stop() {
+        running = false;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        TransferCommand command;
+        while ((command = inbox.poll()) != null) {
+            command.getResult().completeExceptionally(new IllegalStateException(ENGINE_IS_STOPPED));
+        }
+    }
+
+    /**
+     * метод потока-писателя шарда
+     */
+    private void run() {
+        while (running || !inbox.isEmpty()) {
+            applyUpdates();
+            try {
+                TransferCommand command = inbox.poll(POLL_TIMEOUT_MICROS, TimeUnit.MICROSECONDS);
+                if (command != null) {
+                    applyUpdates();
+                    execute(command);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        applyUpdates();
+    }
+
+    /**
+     * метод, применяющий зачисления и регистрации счетов, поступившие от других потоков
+     */
+    private void applyUpdates() {
+        Consumer<Map<Integer, Long>> update;
+        while ((update = updates.poll()) != null) {
+            update.accept(balances);
+        }
+    }
+
+    /**
+     * метод, выполняющий перевод: списывает сумму, если после списания баланс останется положительным,
+     * добавляет запись в WAL и передает зачисление шарду получателя. Перевод подтверждается после
+     * сброса записи на диск. Запись о зачислении попадает в WAL раньше любых списаний с этими
+     * средствами, поэтому последовательное восстановление из WAL дает то же состояние
+     * @param command - перевод
+     */
+    private void execute(TransferCommand command) {
+        Long balance = balances.get(command.getSenderAccountId());
+        if (balance == null || balance - command.getAmount() <= 0) {
+            command.getResult().completeExceptionally(new ClientAccountException(INSUFFICIENT_FUNDS));
+            return;
+        }
+
+        try {
+            wal.append(command.getSenderAccountId(), command.getRecipientAccountId(), command.getAmount())
+                    .whenComplete((record, e) -> {
+                        if (e == null) {
+                            command.getResult().complete(null);
+                        } else {
+                            command.getResult().completeExceptionally(e);
+                        }
+                    });
+        } catch (RuntimeException e) {
+            command.getResult().completeExceptionally(e);
+            return;
+        }
+        balances.put(command.getSenderAccountId(), balance - command.getAmount());
+        command.getRecipientShard().credit(command.getRecipientAccountId(), command.getAmount());
+    }
+
+    /**
+     * добавление записи о переводе в WAL
+     */
+    @FunctionalInterface
+    interface WalAppender {
+        CompletableFuture<WalRecord> append(int senderAccountId, int recipientAccountId, long amount);
+    }
+
+    /**
+     * перевод, ожидающий обработки шардом отправителя
+     */
+    @Value
+    static class TransferCommand {
+        int senderAccountId;
+        int recipientAccountId;
+        AccountShard recipientShard;
+        long amount;
+        CompletableFuture<Void> result;
+    }
+}
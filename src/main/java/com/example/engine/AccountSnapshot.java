@@ -0,0 +1,13 @@
+package com.example.engine;
+
+import lombok.Value;
+
+/**
+ * Состояние счета, загруженное из БД: идентификатор счета, идентификатор клиента и баланс в копейках
+ */
+@Value
+public class AccountSnapshot {
+    int accountId;
+    int clientId;
+    long balance;
+}
@@ -0,0 +1,37 @@
+package com.example.engine;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Хранилище, из которого движок переводов в памяти загружает балансы счетов и в которое
+ * асинхронно переносит выполненные переводы
+ */
+public interface AccountStore {
+    /**
+     * метод, возвращающий номер последней записи WAL, уже перенесенной в хранилище
+     * @return long - номер записи (0, если переносов еще не было)
+     */
+    long loadCheckpointSeq();
+
+    /**
+     * метод, загружающий все счета
+     * @return Iterable<AccountSnapshot> - счета
+     */
+    Iterable<AccountSnapshot> loadAccounts();
+
+    /**
+     * метод, загружающий счет клиента, открытый после запуска движка
+     * @param clientId - идентификатор клиента
+     * @return Optional<AccountSnapshot> - счет клиента
+     */
+    Optional<AccountSnapshot> loadAccount(Integer clientId);
+
+    /**
+     * метод, атомарно прибавляющий к балансам счетов накопленные изменения и сохраняющий
+     * номер последней перенесенной записи WAL
+     * @param deltas - изменения балансов в копейках по идентификаторам счетов
+     * @param checkpointSeq - номер последней перенесенной записи WAL
+     */
+    void checkpoint(Map<Integer, Long> deltas, long checkpointSeq);
+}
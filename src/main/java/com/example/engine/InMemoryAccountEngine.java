@@ -0,0 +1,225 @@
+package com.example.engine;
+
+import com.example.http.exception.ClientAccountException;
+import com.example.money.Money;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.service.ClientAccountService.ACCOUNT_IS_NOT_FOUND;
+import static com.example.service.ClientAccountService.SELF_TRANSFER;
+
+/**
+ * Движок переводов в памяти (режим перевода ENGINE). Балансы счетов хранятся в памяти и разделены
+ * на шарды по id счета, у каждого шарда один поток-писатель. Перевод подтверждается после сброса
+ * его записи в журнал предзаписи (WAL) на диск, а на балансы в БД переводы переносятся асинхронно
+ * (контрольная точка). При запуске балансы загружаются из БД и дополняются записями WAL,
+ * которые еще не были перенесены
+ */
+@Slf4j
+public class InMemoryAccountEngine {
+    private final AccountStore store;
+    private final Path walDirectory;
+    private final long segmentSize;
+    private final int walBatchSize;
+    private final long checkpointInterval;
+    private final AccountShard[] shards;
+    private final Map<Integer, Integer> accountIds = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<WalRecord> durableRecords = new ConcurrentLinkedQueue<>();
+    private final List<WalRecord> checkpointRecords = new ArrayList<>();
+    private ScheduledExecutorService checkpointExecutor;
+    private WriteAheadLog wal;
+
+    /**
+     * @param store - хранилище балансов
+     * @param walDirectory - каталог сегментов WAL
+     * @param shards - количество шардов
+     * @param inboxCapacity - размер кольцевого буфера переводов шарда
+     * @param segmentSize - размер сегмента WAL в байтах
+     * @param walBatchSize - максимальное количество записей WAL, сбрасываемых на диск одним fsync
+     * @param checkpointInterval - интервал переноса переводов в БД в мс
+     */
+    public InMemoryAccountEngine(AccountStore store, Path walDirectory, int shards, int inboxCapacity,
+                                 long segmentSize, int walBatchSize, long checkpointInterval) {
+        this.store = store;
+        this.walDirectory = walDirectory;
+        this.segmentSize = segmentSize;
+        this.walBatchSize = walBatchSize;
+        this.checkpointInterval = checkpointInterval;
+        this.shards = new AccountShard[shards];
+        for (int i = 0; i < shards; i++) {
+            this.shards[i] = new AccountShard(i, inboxCapacity, this::appendToWal);
+        }
+    }
+
+    /**
+     * метод, загружающий балансы из хранилища, восстанавливающий переводы из WAL и запускающий
+     * потоки шардов и перенос переводов в БД
+     * @throws IOException - ошибка чтения или создания сегмента WAL
+     */
+    public synchronized void start() throws IOException {
+        long checkpointSeq = store.loadCheckpointSeq();
+        for (AccountSnapshot account : store.loadAccounts()) {
+            accountIds.put(account.getClientId(), account.getAccountId());
+            getShard(account.getAccountId()).load(account.getAccountId(), account.getBalance());
+        }
+
+        long lastSeq = checkpointSeq;
+        List<WalRecord> records = WriteAheadLog.readRecords(walDirectory, checkpointSeq);
+        for (WalRecord record : records) {
+            getShard(record.getSenderAccountId()).load(record.getSenderAccountId(), -record.getAmount());
+            getShard(record.getRecipientAccountId()).load(record.getRecipientAccountId(), record.getAmount());
+            lastSeq = record.getSeq();
+        }
+        durableRecords.addAll(records);
+        log.info("account engine loaded {} accounts, recovered {} transfers from WAL after seq {}",
+                accountIds.size(), records.size(), checkpointSeq);
+
+        wal = new WriteAheadLog(walDirectory, lastSeq + 1, segmentSize, walBatchSize, durableRecords::addAll);
+        for (AccountShard shard : shards) {
+            shard.start();
+        }
+        checkpointExecutor = Executors.newSingleThreadScheduledExecutor(task -> new Thread(task, "engine-checkpoint"));
+        checkpointExecutor.scheduleWithFixedDelay(this::checkpointQuietly,
+                checkpointInterval, checkpointInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * метод, переводящий денежные средства и дожидающийся сброса записи о переводе на диск
+     * @param senderClientId - идентификатор клиента-отправителя
+     * @param recipientClientId - идентификатор клиента-получателя
+     * @param amount - сумма перевода
+     */
+    public void transfer(Integer senderClientId, Integer recipientClientId, Money amount) {
+        if (senderClientId.equals(recipientClientId)) {
+            throw new ClientAccountException(SELF_TRANSFER);
+        }
+        int senderAccountId = getAccountId(senderClientId);
+        int recipientAccountId = getAccountId(recipientClientId);
+
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        try {
+            getShard(senderAccountId).submit(new AccountShard.TransferCommand(senderAccountId, recipientAccountId,
+                    getShard(recipientAccountId), amount.getMinorUnits(), result));
+            result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("transfer is interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * метод, возвращающий баланс счета клиента с учетом всех подтвержденных переводов
+     * @param clientId - идентификатор клиента
+     * @return Optional<Money> - баланс
+     */
+    public Optional<Money> getBalance(Integer clientId) {
+        Integer accountId = accountIds.get(clientId);
+        if (accountId == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(getShard(accountId).getBalance(accountId).join()).map(Money::ofMinor);
+    }
+
+    /**
+     * метод, переносящий в хранилище все переводы, уже сброшенные в WAL, и удаляющий сегменты WAL,
+     * записи которых перенесены. Если перенос не удался, записи будут перенесены следующей контрольной точкой
+     * @return long - номер последней перенесенной записи (-1, если переносить нечего)
+     */
+    public synchronized long checkpoint() {
+        WalRecord record;
+        while ((record = durableRecords.poll()) != null) {
+            checkpointRecords.add(record);
+        }
+        if (checkpointRecords.isEmpty()) {
+            return -1;
+        }
+
+        Map<Integer, Long> deltas = new HashMap<>();
+        for (WalRecord walRecord : checkpointRecords) {
+            deltas.merge(walRecord.getSenderAccountId(), -walRecord.getAmount(), Long::sum);
+            deltas.merge(walRecord.getRecipientAccountId(), walRecord.getAmount(), Long::sum);
+        }
+        long checkpointSeq = checkpointRecords.get(checkpointRecords.size() - 1).getSeq();
+        store.checkpoint(deltas, checkpointSeq);
+        log.debug("account engine checkpoint - seq {}, transfers - {}, accounts - {}",
+                checkpointSeq, checkpointRecords.size(), deltas.size());
+        checkpointRecords.clear();
+        wal.deleteSegmentsUpTo(checkpointSeq);
+        return checkpointSeq;
+    }
+
+    /**
+     * метод, останавливающий движок после обработки принятых переводов и переносящий их в хранилище
+     * @throws IOException - ошибка закрытия WAL
+     */
+    public synchronized void close() throws IOException {
+        halt();
+        checkpoint();
+    }
+
+    /**
+     * метод, останавливающий потоки движка без переноса переводов в хранилище
+     * @throws IOException - ошибка закрытия WAL
+     */
+    synchronized void halt() throws IOException {
+        checkpointExecutor.shutdown();
+        for (AccountShard shard : shards) {
+            shard.stop();
+        }
+        wal.close();
+    }
+
+    /**
+     * метод, возвращающий идентификатор счета клиента. Счет, открытый после запуска движка,
+     * загружается из хранилища и регистрируется в шарде до первого перевода с его участием
+     * @param clientId - идентификатор клиента
+     * @return int - идентификатор счета
+     */
+    private int getAccountId(Integer clientId) {
+        Integer accountId = accountIds.computeIfAbsent(clientId, id -> store.loadAccount(id)
+                .map(account -> {
+                    getShard(account.getAccountId()).register(account.getAccountId(), account.getBalance());
+                    return account.getAccountId();
+                })
+                .orElse(null));
+        if (accountId == null) {
+            throw new ClientAccountException(ACCOUNT_IS_NOT_FOUND);
+        }
+        return accountId;
+    }
+
+    private AccountShard getShard(int accountId) {
+        return shards[Math.floorMod(accountId, shards.length)];
+    }
+
+    private CompletableFuture<WalRecord> appendToWal(int senderAccountId, int recipientAccountId, long amount) {
+        return wal.append(senderAccountId, recipientAccountId, amount);
+    }
+
+    private void checkpointQuietly() {
+        try {
+            checkpoint();
+        } catch (RuntimeException e) {
+            log.error("account engine checkpoint failed", e);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.engine;
+
+import com.example.entity.ClientAccount;
+import com.example.entity.EngineCheckpoint;
+import com.example.repository.ClientAccountRepository;
+import com.example.repository.EngineCheckpointRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Хранилище балансов движка переводов в памяти в таблицах client_account и engine_checkpoint.
+ * Перед загрузкой счетов суммы со слотов горячих счетов переносятся в баланс
+ */
+@RequiredArgsConstructor
+@Transactional
+public class JpaAccountStore implements AccountStore {
+    private static final Integer CHECKPOINT_ID = 1;
+    private final ClientAccountRepository clientAccountRepository;
+    private final EngineCheckpointRepository checkpointRepository;
+
+    @Override
+    @Transactional(readOnly = true)
+    public long loadCheckpointSeq() {
+        return checkpointRepository.findById(CHECKPOINT_ID).map(EngineCheckpoint::getWalSeq).orElse(0L);
+    }
+
+    @Override
+    public Iterable<AccountSnapshot> loadAccounts() {
+        clientAccountRepository.sweepAllSlots();
+        return clientAccountRepository.findAll().stream().map(this::toSnapshot).toList();
+    }
+
+    @Override
+    public Optional<AccountSnapshot> loadAccount(Integer clientId) {
+        clientAccountRepository.sweepSlots(List.of(clientId));
+        return clientAccountRepository.findClientAccountByClientId(clientId).map(this::toSnapshot);
+    }
+
+    @Override
+    public void checkpoint(Map<Integer, Long> deltas, long checkpointSeq) {
+        deltas.forEach((accountId, delta) -> {
+            if (delta != 0) {
+                clientAccountRepository.addToBalance(accountId, BigDecimal.valueOf(delta, 2));
+            }
+        });
+        checkpointRepository.save(new EngineCheckpoint(CHECKPOINT_ID, checkpointSeq));
+    }
+
+    private AccountSnapshot toSnapshot(ClientAccount account) {
+        return new AccountSnapshot(account.getId(), account.getClient().getId(), account.getBalance().getMinorUnits());
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.engine;
+
+import lombok.Value;
+
+/**
+ * Запись журнала предзаписи (WAL) - перевод amount копеек со счета senderAccountId
+ * на счет recipientAccountId с порядковым номером seq
+ */
+@Value
+public class WalRecord {
+    long seq;
+    int senderAccountId;
+    int recipientAccountId;
+    long amount;
+}
@@ -0,0 +1,293 @@
+package com.example.engine;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Журнал предзаписи (WAL) движка переводов в памяти. Записи добавляются в конец текущего сегмента
+ * одним потоком-писателем, который сбрасывает на диск (fsync) сразу всю накопившуюся порцию записей:
+ * перевод подтверждается только после того, как его запись оказалась на диске.
+ * Сегменты называются по номеру первой записи и удаляются после переноса их записей в БД
+ */
+@Slf4j
+public class WriteAheadLog implements Closeable {
+    /**
+     * размер записи: seq (8), счет отправителя (4), счет получателя (4), сумма (8), CRC32 (4)
+     */
+    static final int RECORD_SIZE = 28;
+    private static final String SEGMENT_SUFFIX = ".wal";
+    private final Path directory;
+    private final long segmentSize;
+    private final int batchSize;
+    private final Consumer<List<WalRecord>> durableListener;
+    private final BlockingQueue<PendingRecord> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private final CRC32 crc = new CRC32();
+    private FileChannel segment;
+    private long segmentBytes;
+    private long nextSeq;
+    private volatile boolean running = true;
+    private volatile IOException failure;
+
+    /**
+     * @param directory - каталог сегментов
+     * @param firstSeq - номер первой записи, которая будет добавлена
+     * @param segmentSize - размер сегмента в байтах, после которого начинается новый сегмент
+     * @param batchSize - максимальное количество записей, сбрасываемых на диск одним fsync
+     * @param durableListener - обработчик записей, уже сброшенных на диск (вызывается в порядке seq)
+     * @throws IOException - ошибка создания сегмента
+     */
+    public WriteAheadLog(Path directory, long firstSeq, long segmentSize, int batchSize,
+                         Consumer<List<WalRecord>> durableListener) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.segmentSize = segmentSize;
+        this.batchSize = batchSize;
+        this.durableListener = durableListener;
+        this.nextSeq = firstSeq;
+        openSegment(firstSeq);
+        this.writer = new Thread(this::writeLoop, "wal-writer");
+        this.writer.start();
+    }
+
+    /**
+     * метод, добавляющий запись о переводе в очередь на запись. Номер записи присваивается
+     * в порядке вызовов, поэтому записи попадают в журнал в том же порядке
+     * @param senderAccountId - идентификатор счета отправителя
+     * @param recipientAccountId - идентификатор счета получателя
+     * @param amount - сумма перевода в копейках
+     * @return CompletableFuture<WalRecord> - завершается после сброса записи на диск
+     */
+    public synchronized CompletableFuture<WalRecord> append(int senderAccountId, int recipientAccountId, long amount) {
+        if (failure != null) {
+            throw new IllegalStateException("WAL is not writable", failure);
+        }
+        if (!running) {
+            throw new IllegalStateException("WAL is closed");
+        }
+        PendingRecord pending = new PendingRecord(
+                new WalRecord(nextSeq++, senderAccountId, recipientAccountId, amount), new CompletableFuture<>());
+        queue.add(pending);
+        return pending.result;
+    }
+
+    /**
+     * метод, удаляющий сегменты, все записи которых имеют номер не больше checkpointSeq.
+     * Текущий сегмент не удаляется
+     * @param checkpointSeq - номер последней записи, перенесенной в БД
+     */
+    public void deleteSegmentsUpTo(long checkpointSeq) {
+        List<Path> segments = listSegments(directory);
+        for (int i = 0; i < segments.size() - 1; i++) {
+            if (getFirstSeq(segments.get(i + 1)) - 1 > checkpointSeq) {
+                return;
+            }
+            try {
+                Files.deleteIfExists(segments.get(i));
+            } catch (IOException e) {
+                log.warn("WAL segment {} is not deleted", segments.get(i), e);
+            }
+        }
+    }
+
+    /**
+     * метод, дожидающийся записи всех добавленных записей и закрывающий журнал
+     * @throws IOException - ошибка закрытия сегмента
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            running = false;
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        segment.close();
+    }
+
+    /**
+     * метод, читающий записи журнала с номером больше afterSeq. Чтение сегмента прекращается
+     * на первой неполной или поврежденной записи (запись, прерванная падением процесса, не была подтверждена)
+     * @param directory - каталог сегментов
+     * @param afterSeq - номер последней записи, перенесенной в БД
+     * @return List<WalRecord> - записи в порядке seq
+     * @throws IOException - ошибка чтения сегмента
+     */
+    public static List<WalRecord> readRecords(Path directory, long afterSeq) throws IOException {
+        List<WalRecord> records = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return records;
+        }
+        CRC32 crc = new CRC32();
+        for (Path segmentPath : listSegments(directory)) {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(segmentPath));
+            while (buffer.remaining() >= RECORD_SIZE) {
+                WalRecord record = new WalRecord(buffer.getLong(), buffer.getInt(), buffer.getInt(), buffer.getLong());
+                if (buffer.getInt() != checksum(crc, record)) {
+                    log.warn("WAL segment {} has a corrupted record at offset {}, the tail is ignored",
+                            segmentPath, buffer.position() - RECORD_SIZE);
+                    break;
+                }
+                if (record.getSeq() > afterSeq) {
+                    records.add(record);
+                }
+            }
+        }
+        return records;
+    }
+
+    /**
+     * метод потока-писателя: забирает из очереди все накопившиеся записи (не больше batchSize),
+     * записывает их в сегмент одним вызовом и сбрасывает на диск одним fsync
+     */
+    private void writeLoop() {
+        List<PendingRecord> batch = new ArrayList<>(batchSize);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(batchSize * RECORD_SIZE);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingRecord first = queue.poll(10, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                if (failure == null) {
+                    writeBatch(batch, buffer);
+                } else {
+                    batch.forEach(pending -> pending.result.completeExceptionally(failure));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                log.error("WAL write failed, transfers are not accepted until restart", e);
+                failure = e;
+                batch.forEach(pending -> pending.result.completeExceptionally(new UncheckedIOException(e)));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * метод, записывающий порцию записей и подтверждающий их после fsync
+     * @param batch - порция записей
+     * @param buffer - буфер записи
+     * @throws IOException - ошибка записи
+     */
+    private void writeBatch(List<PendingRecord> batch, ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        for (PendingRecord pending : batch) {
+            WalRecord record = pending.record;
+            buffer.putLong(record.getSeq())
+                    .putInt(record.getSenderAccountId())
+                    .putInt(record.getRecipientAccountId())
+                    .putLong(record.getAmount())
+                    .putInt(checksum(crc, record));
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            segment.write(buffer);
+        }
+        segment.force(false);
+        segmentBytes += (long) batch.size() * RECORD_SIZE;
+
+        List<WalRecord> records = new ArrayList<>(batch.size());
+        for (PendingRecord pending : batch) {
+            records.add(pending.record);
+            pending.result.complete(pending.record);
+        }
+        durableListener.accept(records);
+
+        if (segmentBytes >= segmentSize) {
+            segment.close();
+            openSegment(batch.get(batch.size() - 1).record.getSeq() + 1);
+        }
+    }
+
+    /**
+     * метод, создающий новый сегмент и сбрасывающий на диск запись о нем в каталоге
+     * @param firstSeq - номер первой записи сегмента
+     * @throws IOException - ошибка создания сегмента
+     */
+    private void openSegment(long firstSeq) throws IOException {
+        segment = FileChannel.open(directory.resolve(String.format("%020d%s", firstSeq, SEGMENT_SUFFIX)),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        segmentBytes = 0;
+        try (FileChannel directoryChannel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            directoryChannel.force(true);
+        } catch (IOException e) {
+            log.debug("WAL directory {} can't be synced", directory, e);
+        }
+    }
+
+    /**
+     * метод, возвращающий сегменты журнала в порядке номеров первых записей
+     * @param directory - каталог сегментов
+     * @return List<Path> - сегменты
+     */
+    private static List<Path> listSegments(Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * метод, возвращающий номер первой записи сегмента по имени файла
+     * @param segmentPath - сегмент
+     * @return long - номер первой записи
+     */
+    private static long getFirstSeq(Path segmentPath) {
+        String fileName = segmentPath.getFileName().toString();
+        return Long.parseLong(fileName.substring(0, fileName.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * метод, вычисляющий контрольную сумму записи
+     * @param crc - CRC32 текущего потока
+     * @param record - запись
+     * @return int - контрольная сумма
+     */
+    private static int checksum(CRC32 crc, WalRecord record) {
+        crc.reset();
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE - Integer.BYTES)
+                .putLong(record.getSeq())
+                .putInt(record.getSenderAccountId())
+                .putInt(record.getRecipientAccountId())
+                .putLong(record.getAmount());
+        crc.update(buffer.flip());
+        return (int) crc.getValue();
+    }
+
+    /**
+     * запись, ожидающая сброса на диск, и ее подтверждение
+     */
+    @Value
+    private static class PendingRecord {
+        WalRecord record;
+        CompletableFuture<WalRecord> result;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.entity;
+
+import com.example.money.Money;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Сущность Запись журнала операций по счету. Записи только добавляются и не изменяются,
+ * кроме отметки projected, которую выставляет проекция баланса после учета записи в client_account
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(schema = "client_service", name = "account_entry")
+public class AccountEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Integer accountId;
+
+    private Integer counterpartyAccountId;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private Money amount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private AccountEntryType entryType;
+
+    @Column(nullable = false)
+    private boolean projected;
+
+    @Builder.Default
+    @Column(nullable = false)
+    private Instant createdAt = Instant.now();
+}
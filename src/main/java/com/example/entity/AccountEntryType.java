@@ -0,0 +1,19 @@
+package com.example.entity;
+
+/**
+ * Типы записей журнала операций по счету
+ */
+public enum AccountEntryType {
+    /**
+     * списание со счета отправителя (отрицательная сумма)
+     */
+    TRANSFER_DEBIT,
+    /**
+     * зачисление на счет получателя
+     */
+    TRANSFER_CREDIT,
+    /**
+     * начисление процентов (записывается уже учтенным в балансе)
+     */
+    ACCRUAL
+}
@@ -0,0 +1,35 @@
+package com.example.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Сущность Единица работы начисления процентов - диапазон id счетов (lowerId, upperId],
+ * который в рамках одного запуска начисления обрабатывает ровно один узел кластера
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(schema = "client_service", name = "accrual_work_unit")
+public class AccrualWorkUnit {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long tickNo;
+
+    @Column(nullable = false)
+    private Integer lowerId;
+
+    @Column(nullable = false)
+    private Integer upperId;
+
+    private String completedBy;
+
+    private Instant completedAt;
+}
@@ -1,10 +1,10 @@
 package com.example.entity;
 
-import io.hypersistence.utils.hibernate.type.array.ListArrayType;
 import jakarta.persistence.*;
 import lombok.*;
-import org.hibernate.annotations.Type;
+import org.hibernate.annotations.BatchSize;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -12,7 +12,7 @@ import java.util.List;
  */
 @NoArgsConstructor
 @AllArgsConstructor
-@ToString(exclude = "clientAccount")
+@ToString(exclude = {"clientAccount", "contacts"})
 @Data
 @Builder
 @Entity
@@ -34,24 +34,43 @@ public class Client {
     @Column(nullable = false)
     private String password;
 
-    @Singular
-    @Type(ListArrayType.class)
-    @Column(
-            name = "phone_numbers",
-            columnDefinition = "varchar[]",
-            nullable = false
-    )
-    private List<String> phones;
-
-    @Singular
-    @Type(ListArrayType.class)
-    @Column(
-            name = "emails",
-            columnDefinition = "varchar[]",
-            nullable = false
-    )
-    private List<String> emails;
+    @Builder.Default
+    @BatchSize(size = 100)
+    @OrderBy("id")
+    @OneToMany(mappedBy = "client", cascade = CascadeType.ALL)
+    private List<ClientContact> contacts = new ArrayList<>();
 
     @OneToOne(mappedBy = "client", cascade = CascadeType.ALL)
     private ClientAccount clientAccount;
+
+    /**
+     * версия строки для оптимистической блокировки при изменении контактов
+     */
+    @Version
+    @Builder.Default
+    @Column(nullable = false)
+    private Long version = 0L;
+
+    /**
+     * метод, возвращающий номера телефона клиента
+     * @return List<String> - номера телефона
+     */
+    public List<String> getPhones() {
+        return getContacts(ContactType.PHONE);
+    }
+
+    /**
+     * метод, возвращающий emails клиента
+     * @return List<String> - emails
+     */
+    public List<String> getEmails() {
+        return getContacts(ContactType.EMAIL);
+    }
+
+    private List<String> getContacts(ContactType type) {
+        return contacts.stream()
+                .filter(contact -> contact.getType() == type)
+                .map(ClientContact::getValue)
+                .toList();
+    }
 }
@@ -1,12 +1,11 @@
 package com.example.entity;
 
+import com.example.money.Money;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.Check;
 
-import java.math.BigDecimal;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.time.Instant;
 
 /**
  * Сущность Счет Клиента
@@ -22,17 +21,50 @@ public class ClientAccount {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer id;
 
-    @Column(nullable = false)
+    @Column(nullable = false, precision = 19, scale = 2)
     @Check(constraints = "balance > 0")
-    private BigDecimal balance;
+    private Money balance;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    @Check(constraints = "deposit > 0")
+    private Money deposit;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private Money limitBalance;
+
+    /**
+     * сумма списаний журнала операций (режим перевода LEDGER), еще не учтенных в балансе
+     */
+    @Builder.Default
+    @Column(nullable = false, precision = 19, scale = 2)
+    private Money reserved = Money.ZERO;
+
+    @Column(nullable = false)
+    private boolean capped;
+
+    @Builder.Default
+    @Column(nullable = false)
+    private Instant accruedAt = Instant.now();
 
     @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "client_id", nullable = false)
     private Client client;
 
+    /**
+     * версия строки для оптимистической блокировки (увеличивается и запросами, изменяющими счет без загрузки)
+     */
+    @Version
     @Builder.Default
-    @Transient
-    private ReadWriteLock accountLock = new ReentrantReadWriteLock();
+    @Column(nullable = false)
+    private Long version = 0L;
+
+    /**
+     * метод, возвращающий баланс, доступный для списания (баланс за вычетом резерва)
+     * @return Money - доступный баланс
+     */
+    public Money getAvailableBalance() {
+        return balance.minus(reserved);
+    }
 
     public void setClient(Client client) {
         client.setClientAccount(this);
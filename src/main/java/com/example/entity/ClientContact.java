@@ -0,0 +1,32 @@
+package com.example.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Сущность Контакт клиента. Пара (тип, значение) уникальна среди всех клиентов
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString(exclude = "client")
+@EqualsAndHashCode(exclude = "client")
+@Entity
+@Table(schema = "client_service", name = "client_contact")
+public class ClientContact {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "client_id", nullable = false)
+    private Client client;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ContactType type;
+
+    @Column(nullable = false)
+    private String value;
+}
@@ -0,0 +1,15 @@
+package com.example.entity;
+
+/**
+ * Типы контактов клиента
+ */
+public enum ContactType {
+    /**
+     * номер телефона
+     */
+    PHONE,
+    /**
+     * email
+     */
+    EMAIL
+}
@@ -0,0 +1,22 @@
+package com.example.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Сущность Контрольная точка движка переводов в памяти - номер последней записи журнала
+ * предзаписи (WAL), изменения которой уже перенесены на балансы счетов в БД
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(schema = "client_service", name = "engine_checkpoint")
+public class EngineCheckpoint {
+    @Id
+    private Integer id;
+
+    @Column(nullable = false)
+    private Long walSeq;
+}
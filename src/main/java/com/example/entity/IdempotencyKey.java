@@ -0,0 +1,42 @@
+package com.example.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Сущность Ключ идемпотентности - переданный клиентом в заголовке Idempotency-Key ключ выполненного
+ * перевода (или группы переводов пакета) вместе с сохраненным результатом
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(schema = "client_service", name = "transfer_idempotency_key")
+public class IdempotencyKey {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Integer clientId;
+
+    @Column(nullable = false)
+    private String idempotencyKey;
+
+    /**
+     * отпечаток тела запроса (SHA-256, см. RequestHashUtil)
+     */
+    @Column(nullable = false)
+    private String requestHash;
+
+    /**
+     * сохраненный результат в виде JSON (null, если у запроса нет тела ответа)
+     */
+    private String response;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+}
@@ -1,6 +1,7 @@
 package com.example.filter;
 
 import com.example.provider.JwtProvider;
+import com.example.security.ClientPrincipal;
 import com.example.util.JwtUtil;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -26,7 +27,7 @@ public class JwtRequestFilter extends OncePerRequestFilter {
     private final JwtProvider jwtProvider;
 
     /**
-     * метод, перекладывающий данные из токена в SecurityContext
+     * метод, перекладывающий данные из токена (ClientPrincipal) в SecurityContext
      * @param request - http запрос
      * @param response - http ответ
      * @param filterChain - цепочку фильтров
@@ -35,11 +36,12 @@ public class JwtRequestFilter extends OncePerRequestFilter {
      */
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
-        String login = JwtUtil.getClaim(request, (jwt) -> jwtProvider.getLogin(jwt));
+        ClientPrincipal principal = JwtUtil.getClaim(request, (jwt) -> jwtProvider.getPrincipal(jwt));
 
-        if(login != null && SecurityContextHolder.getContext().getAuthentication() == null){
+        if(principal != null && principal.getLogin() != null
+                && SecurityContextHolder.getContext().getAuthentication() == null){
             UsernamePasswordAuthenticationToken token = new UsernamePasswordAuthenticationToken(
-                login,
+                principal,
                 null,
                 new ArrayList<>()
             );
@@ -1,23 +1,32 @@
 package com.example.http.controller;
 
 import com.example.dto.*;
+import com.example.security.ClientPrincipal;
+import com.example.service.AccountLockManager;
 import com.example.service.ClientAccountService;
 import com.example.service.ClientService;
+import com.example.service.OptimisticLockRetry;
+import com.example.service.TransferBatchService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import java.security.Principal;
 import java.time.LocalDate;
+import java.util.List;
 
 /**
  * Rest-контроллер, отвечающий за взаимодействие с системой банковских операций
@@ -29,8 +38,16 @@ import java.time.LocalDate;
 @RequiredArgsConstructor
 @Tag(name = "ClientController", description = "Контроллер для взаимодействия с сервисом банковских операций")
 public class ClientRestController {
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 100;
+    private static final int MAX_BATCH_SIZE = 10_000;
+    private static final String SORT_FIELDS = "id|fio|birthDate";
+
     private final ClientService clientService;
     private final ClientAccountService clientAccountService;
+    private final TransferBatchService transferBatchService;
+    private final OptimisticLockRetry optimisticLockRetry;
+    private final AccountLockManager accountLockManager;
 
     /**
      * метод, регистрирующий нового клиента в системе
@@ -60,7 +77,7 @@ public class ClientRestController {
     @SecurityRequirement(name = "JWT")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void addEmailToClient(@PathVariable("id") Integer id, @Email @RequestParam String email){
-        clientService.addEmailToClient(id, email);
+        optimisticLockRetry.run(OptimisticLockRetry.CONTACTS, () -> clientService.addEmailToClient(id, email));
     }
 
     /**
@@ -76,7 +93,7 @@ public class ClientRestController {
     @SecurityRequirement(name = "JWT")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void addPhoneToClient(@PathVariable("id") Integer id, @NotBlank @RequestParam String phone){
-        clientService.addPhoneToClient(id, phone);
+        optimisticLockRetry.run(OptimisticLockRetry.CONTACTS, () -> clientService.addPhoneToClient(id, phone));
     }
 
     /**
@@ -92,7 +109,7 @@ public class ClientRestController {
     @SecurityRequirement(name = "JWT")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void changeClientEmail(@PathVariable("id") Integer id, @RequestBody ClientContactsDto clientContactsDto){
-        clientService.changeClientEmail(id, clientContactsDto);
+        optimisticLockRetry.run(OptimisticLockRetry.CONTACTS, () -> clientService.changeClientEmail(id, clientContactsDto));
     }
 
     /**
@@ -108,7 +125,7 @@ public class ClientRestController {
     @SecurityRequirement(name = "JWT")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void changeClientPhone(@PathVariable("id") Integer id, @RequestBody ClientContactsDto clientContactsDto){
-        clientService.changeClientPhone(id, clientContactsDto);
+        optimisticLockRetry.run(OptimisticLockRetry.CONTACTS, () -> clientService.changeClientPhone(id, clientContactsDto));
     }
 
     /**
@@ -124,7 +141,7 @@ public class ClientRestController {
     @SecurityRequirement(name = "JWT")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void removeClientEmail(@PathVariable("id") Integer id, @Email @RequestParam String email){
-        clientService.removeClientEmail(id, email);
+        optimisticLockRetry.run(OptimisticLockRetry.CONTACTS, () -> clientService.removeClientEmail(id, email));
     }
 
     /**
@@ -140,7 +157,7 @@ public class ClientRestController {
     @SecurityRequirement(name = "JWT")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void removeClientPhone(@PathVariable("id") Integer id, @NotBlank @RequestParam String phone){
-        clientService.removeClientPhone(id, phone);
+        optimisticLockRetry.run(OptimisticLockRetry.CONTACTS, () -> clientService.removeClientPhone(id, phone));
     }
 
     /**
@@ -148,6 +165,7 @@ public class ClientRestController {
      * @param page - номер страницы/количество пропущенных страниц
      * @param size - количество элементов на странице
      * @param birthDate - дата рождения
+     * @param cursor - курсор следующей страницы из предыдущего ответа (nextCursor), заменяет номер страницы
      * @return Page<ClientReadDto> - клиенты
      */
     @Operation(
@@ -159,8 +177,9 @@ public class ClientRestController {
     @ResponseStatus(HttpStatus.OK)
     public Slice<ClientReadDto> getClientsByBirthDate(@NotNull @RequestParam(value = "offset", defaultValue = "0") int page,
                                                      @NotNull @RequestParam(value = "limit") int size,
-                                                     @RequestParam LocalDate birthDate){
-        return clientService.getClientsByBirthDate(page, size, birthDate);
+                                                     @RequestParam LocalDate birthDate,
+                                                     @RequestParam(required = false) String cursor){
+        return clientService.getClientsByBirthDate(page, size, birthDate, cursor);
     }
 
     /**
@@ -186,6 +205,7 @@ public class ClientRestController {
      * @param page - номер страницы
      * @param size - количество элементов на странице
      * @param fio - фио
+     * @param cursor - курсор следующей страницы из предыдущего ответа (nextCursor), заменяет номер страницы
      * @return Page<ClientReadDto> - клиенты
      */
     @Operation(
@@ -197,8 +217,9 @@ public class ClientRestController {
     @ResponseStatus(HttpStatus.OK)
     public Slice<ClientReadDto> getClientsByFio(@NotNull @RequestParam(value = "offset", defaultValue = "0") int page,
                                                 @NotNull @RequestParam(value = "limit") int size,
-                                                @NotBlank @RequestParam String fio){
-        return clientService.getClientsByFio(page, size, fio);
+                                                @NotBlank @RequestParam String fio,
+                                                @RequestParam(required = false) String cursor){
+        return clientService.getClientsByFio(page, size, fio, cursor);
     }
 
     /**
@@ -220,8 +241,47 @@ public class ClientRestController {
     }
 
     /**
-     * метод, осуществляющий трансфер денежных средств со счета аутентифицированного на счет другого клинта
+     * метод, возвращающий клиентов по любой комбинации фильтров согласно пагинации и сортировке.
+     * Заданные фильтры объединяются через И и применяются одним запросом
+     * @param page - номер страницы
+     * @param size - количество элементов на странице
+     * @param birthDate - клиенты, рожденные позже этой даты
+     * @param phone - номер телефона
+     * @param fio - начало фио
+     * @param email - email
+     * @param sort - поле сортировки (id, fio, birthDate)
+     * @param direction - направление сортировки
+     * @return Slice<ClientReadDto> - клиенты
+     */
+    @Operation(
+            summary = "Поиск клиентов по нескольким фильтрам",
+            description = "Позволяет найти клиентов по любой комбинации даты рождения, телефона, начала фио и email"
+    )
+    @GetMapping("/search")
+    @SecurityRequirement(name = "JWT")
+    @ResponseStatus(HttpStatus.OK)
+    public Slice<ClientReadDto> searchClients(@NotNull @RequestParam(value = "offset", defaultValue = "0") int page,
+                                              @NotNull @RequestParam(value = "limit") int size,
+                                              @RequestParam(required = false) LocalDate birthDate,
+                                              @RequestParam(required = false) String phone,
+                                              @RequestParam(required = false) String fio,
+                                              @Email @RequestParam(required = false) String email,
+                                              @Pattern(regexp = SORT_FIELDS) @RequestParam(defaultValue = "id") String sort,
+                                              @RequestParam(defaultValue = "ASC") Sort.Direction direction){
+        ClientSearchFilter filter = ClientSearchFilter.builder()
+                .birthDate(birthDate)
+                .phone(phone)
+                .fio(fio)
+                .email(email)
+                .build();
+        return clientService.searchClients(filter, page, size, sort, direction);
+    }
+
+    /**
+     * метод, осуществляющий трансфер денежных средств со счета аутентифицированного на счет другого клинта.
+     * Если запрос аутентифицирован jwt токеном, клиент-отправитель берется из токена без поиска по логину
      * @param principal - Principal объект из SecurityContext
+     * @param idempotencyKey - ключ идемпотентности, повторный запрос с тем же ключом не выполняет перевод повторно
      * @param transferMoneyDto - dto-объект, содержащий информацию необходимую для трансфера денежных средств
      */
     @Operation(
@@ -231,7 +291,54 @@ public class ClientRestController {
     @PatchMapping("/transferring")
     @SecurityRequirement(name = "JWT")
     @ResponseStatus(HttpStatus.NO_CONTENT)
-    public void transferMoney(Principal principal, @Valid @RequestBody TransferMoneyDto transferMoneyDto){
-        clientAccountService.transferMoney(principal.getName(), transferMoneyDto);
+    public void transferMoney(Principal principal,
+                              @Size(max = MAX_IDEMPOTENCY_KEY_LENGTH) @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false)
+                              String idempotencyKey,
+                              @Valid @RequestBody TransferMoneyDto transferMoneyDto){
+        Integer senderClientId = getSenderClientId(principal);
+        if (clientAccountService.isEngineMode()) {
+            clientAccountService.transferMoneyByEngine(senderClientId, transferMoneyDto, idempotencyKey);
+            return;
+        }
+        optimisticLockRetry.run(OptimisticLockRetry.TRANSFER, () -> accountLockManager.run(
+                senderClientId, transferMoneyDto.getRecipientId(),
+                () -> clientAccountService.transferMoney(senderClientId, transferMoneyDto, idempotencyKey)));
+    }
+
+    /**
+     * метод, осуществляющий пакет переводов денежных средств со счета аутентифицированного клиента.
+     * Переводы выполняются по порядку группами в отдельных транзакциях, отклонение одного перевода
+     * не отменяет остальные
+     * @param principal - Principal объект из SecurityContext
+     * @param idempotencyKey - ключ идемпотентности, при повторе уже выполненные группы переводов не выполняются повторно
+     * @param transfers - список переводов
+     * @return List<TransferResultDto> - результаты переводов в том же порядке
+     */
+    @Operation(
+            summary = "Пакетный перевод денежных средств",
+            description = "Позволяет выполнить список переводов со счета клиента за один запрос"
+    )
+    @PostMapping("/transferring/batch")
+    @SecurityRequirement(name = "JWT")
+    @ResponseStatus(HttpStatus.OK)
+    public List<TransferResultDto> transferMoneyBatch(Principal principal,
+                                                      @Size(max = MAX_IDEMPOTENCY_KEY_LENGTH)
+                                                      @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false)
+                                                      String idempotencyKey,
+                                                      @NotEmpty @Size(max = MAX_BATCH_SIZE) @RequestBody
+                                                      List<@Valid TransferMoneyDto> transfers){
+        return transferBatchService.transferMoney(getSenderClientId(principal), transfers, idempotencyKey);
+    }
+
+    /**
+     * метод, возвращающий id аутентифицированного клиента: из jwt токена, если запрос аутентифицирован
+     * токеном, иначе по логину
+     * @param principal - Principal объект из SecurityContext
+     * @return Integer - идентификатор клиента
+     */
+    private Integer getSenderClientId(Principal principal) {
+        return ClientPrincipal.from(principal)
+                .map(ClientPrincipal::getClientId)
+                .orElseGet(() -> clientService.getClientByLogin(principal.getName()).getId());
     }
-}
\ No newline at end of file
+}
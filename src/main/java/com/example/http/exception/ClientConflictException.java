@@ -0,0 +1,11 @@
+package com.example.http.exception;
+
+/**
+ * Класс, отвечающий за ошибки при взаимодействии с клиентом, вызванные конфликтом с уже сохраненными
+ * данными (например, контакт занят другим клиентом)
+ */
+public class ClientConflictException extends ClientException {
+    public ClientConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.http.exception;
+
+/**
+ * Класс, отвечающий за ошибку повторного использования ключа идемпотентности (заголовок Idempotency-Key)
+ * для запроса с другим телом
+ */
+public class IdempotencyKeyReusedException extends ClientException {
+    public IdempotencyKeyReusedException(String message) {
+        super(message);
+    }
+}
@@ -3,11 +3,19 @@ package com.example.http.handler;
 import com.example.dto.ExceptionResponseDto;
 import com.example.http.exception.AuthException;
 import com.example.http.exception.ClientAccountException;
+import com.example.http.exception.ClientConflictException;
 import com.example.http.exception.ClientException;
+import com.example.http.exception.IdempotencyKeyReusedException;
+import com.example.service.AccountLockManager;
 import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.ErrorResponse;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -16,11 +24,14 @@ import org.springframework.web.method.annotation.MethodArgumentTypeMismatchExcep
 import java.util.*;
 
 /**
- * Обработчик исключений
+ * Обработчик исключений контроллеров пакета com.example.http.controller
  */
 @Slf4j
-@RestControllerAdvice(basePackages = "com.example.http.rest")
+@RestControllerAdvice(basePackages = "com.example.http.controller")
 public class RestControllerExceptionHandler{
+    public static final String CONCURRENT_UPDATE = "Данные изменены параллельным запросом, повторите запрос";
+    public static final String DATA_CONFLICT = "Данные конфликтуют с уже сохраненными (например, контакт занят другим клиентом)";
+    public static final String INTERNAL_ERROR = "Внутренняя ошибка сервера";
 
     /**
      * метод, обрабатывающий исключения, выбрасывающиеся валидационными аннотациямм
@@ -39,9 +50,17 @@ public class RestControllerExceptionHandler{
      * метод, обрабатывающий исключения, выбрасывающиеся при:
      * 1) валидации параметров методов контроллеров (ConstraintViolationException)
      * 2) (MethodArgumentTypeMismatchException)
-     * 3) процессе взаимодействия с клиентом (ClientException)
-     * 4) процессе аутентификации (AuthException)
-     * 5) остальных, не клиентских, ошибках
+     * 3) процессе взаимодействия с клиентом (ClientException), в том числе конфликте с уже сохраненными
+     * данными (ClientConflictException) и повторном использовании ключа идемпотентности для другого
+     * запроса (IdempotencyKeyReusedException)
+     * 4) процессе аутентификации (AuthException) и ошибках запроса, для которых Spring MVC определяет
+     * статус ответа (ErrorResponse, HttpMessageNotReadableException)
+     * 5) конфликте версий, не разрешенном повторами (OptimisticLockingFailureException), ожидании блокировки
+     * счета дольше таймаута (PessimisticLockingFailureException)
+     * и нарушении уникальности, например одновременном добавлении одного контакта (DataIntegrityViolationException)
+     * 6) остальных, не клиентских, ошибках
+     * Текст исключений 5) и 6) (например, имена таблиц и ограничений БД) только логируется,
+     * клиенту возвращается фиксированное сообщение
      * @param ex - exception
      * @return ResponseEntity - ответ
      */
@@ -58,6 +77,14 @@ public class RestControllerExceptionHandler{
             response = ResponseEntity.badRequest().body(
                     new ExceptionResponseDto("Верный шаблон для поля birthDate: dd.mm.yyyy")
             );
+        } else if (ex instanceof IdempotencyKeyReusedException) {
+            response = ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(
+                    new ExceptionResponseDto(ex.getMessage())
+            );
+        } else if (ex instanceof ClientConflictException) {
+            response = ResponseEntity.status(HttpStatus.CONFLICT).body(
+                    new ExceptionResponseDto(ex.getMessage())
+            );
         } else if (ex instanceof ClientException || ex instanceof ClientAccountException) {
             response = ResponseEntity.status(HttpStatus.NOT_FOUND).body(
                     new ExceptionResponseDto(ex.getMessage())
@@ -66,9 +93,33 @@ public class RestControllerExceptionHandler{
             response = ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(
                     new ExceptionResponseDto(ex.getMessage())
             );
+        } else if (ex instanceof ErrorResponse errorResponse) {
+            response = ResponseEntity.status(errorResponse.getStatusCode()).body(
+                    new ExceptionResponseDto(errorResponse.getBody().getDetail())
+            );
+        } else if (ex instanceof HttpMessageNotReadableException) {
+            response = ResponseEntity.badRequest().body(
+                    new ExceptionResponseDto("Тело запроса не соответствует формату")
+            );
+        } else if (ex instanceof OptimisticLockingFailureException) {
+            log.warn("Concurrent update is not resolved by retries: {}", ex.getMessage());
+            response = ResponseEntity.status(HttpStatus.CONFLICT).body(
+                    new ExceptionResponseDto(CONCURRENT_UPDATE)
+            );
+        } else if (ex instanceof PessimisticLockingFailureException) {
+            log.warn("Account lock is not acquired: {}", ex.getMessage());
+            response = ResponseEntity.status(HttpStatus.CONFLICT).body(
+                    new ExceptionResponseDto(AccountLockManager.ACCOUNT_IS_BUSY)
+            );
+        } else if (ex instanceof DataIntegrityViolationException) {
+            log.warn("Data integrity violation: {}", ex.getMessage());
+            response = ResponseEntity.status(HttpStatus.CONFLICT).body(
+                    new ExceptionResponseDto(DATA_CONFLICT)
+            );
         } else {
+            log.error("Request failed", ex);
             response = ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
-                    new ExceptionResponseDto(ex.getMessage())
+                    new ExceptionResponseDto(INTERNAL_ERROR)
             );
         }
 
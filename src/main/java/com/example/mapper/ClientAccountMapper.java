@@ -2,15 +2,20 @@ package com.example.mapper;
 
 import com.example.entity.ClientAccount;
 import com.example.dto.ClientAccountReadDto;
+import com.example.util.ClientAccountMapperUtil;
 import org.mapstruct.InjectionStrategy;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.MappingConstants;
 
 /**
  * маппер для ClientAccount
  */
 @Mapper(componentModel = MappingConstants.ComponentModel.SPRING,
+        uses = ClientAccountMapperUtil.class,
         injectionStrategy = InjectionStrategy.CONSTRUCTOR)
 public interface ClientAccountMapper {
+    @Mapping(target = "balance", source = "clientAccount",
+            qualifiedByName = {"ClientAccountMapperUtil", "getBalance"})
     ClientAccountReadDto objectToDto(ClientAccount clientAccount);
 }
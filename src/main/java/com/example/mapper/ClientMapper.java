@@ -17,6 +17,7 @@ import org.mapstruct.MappingConstants;
         injectionStrategy = InjectionStrategy.CONSTRUCTOR)
 public interface ClientMapper {
     @Mapping(target = "password", qualifiedByName = {"ClientMapperUtil", "encodePassword"})
+    @Mapping(target = "contacts", source = "clientDto", qualifiedByName = {"ClientMapperUtil", "getContacts"})
     Client dtoToObject(ClientCreateEditDto clientDto);
 
     @Mapping(target = "clientAccountReadDto",
@@ -0,0 +1,123 @@
+package com.example.money;
+
+import com.example.util.MoneyUtil;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * Неизменяемая денежная сумма, хранящаяся в копейках (long). Арифметика над суммами не создает
+ * промежуточных BigDecimal, а переполнение приводит к ArithmeticException вместо потери точности.
+ * Округление совпадает с MoneyUtil (HALF_UP до копеек)
+ */
+@JsonSerialize(using = MoneySerializer.class)
+@JsonDeserialize(using = MoneyDeserializer.class)
+public final class Money implements Comparable<Money>, Serializable {
+    public static final Money ZERO = new Money(0);
+
+    private static final long PERCENT = 100;
+
+    private final long minorUnits;
+
+    private Money(long minorUnits) {
+        this.minorUnits = minorUnits;
+    }
+
+    /**
+     * метод, создающий сумму из количества копеек
+     * @param minorUnits - количество копеек
+     * @return Money - сумма
+     */
+    public static Money ofMinor(long minorUnits) {
+        return minorUnits == 0 ? ZERO : new Money(minorUnits);
+    }
+
+    /**
+     * метод, создающий сумму из BigDecimal, округляя ее до копеек
+     * @param amount - сумма
+     * @return Money - сумма
+     */
+    public static Money of(BigDecimal amount) {
+        return ofMinor(MoneyUtil.toMoney(amount).unscaledValue().longValueExact());
+    }
+
+    /**
+     * метод, создающий сумму из строкового представления числа, округляя ее до копеек
+     * @param amount - строковое представление суммы
+     * @return Money - сумма
+     */
+    public static Money of(String amount) {
+        return of(new BigDecimal(amount));
+    }
+
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    /**
+     * метод, возвращающий сумму в виде BigDecimal с MoneyUtil.MONEY_SCALE знаками после запятой
+     * @return BigDecimal - сумма
+     */
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, MoneyUtil.MONEY_SCALE);
+    }
+
+    public Money plus(Money other) {
+        return ofMinor(Math.addExact(minorUnits, other.minorUnits));
+    }
+
+    public Money minus(Money other) {
+        return ofMinor(Math.subtractExact(minorUnits, other.minorUnits));
+    }
+
+    /**
+     * метод, вычисляющий percent процентов от суммы с округлением до копеек (HALF_UP)
+     * @param percent - количество процентов (например, 105 для увеличения на 5%)
+     * @return Money - сумма
+     */
+    public Money percent(long percent) {
+        long dividend = Math.multiplyExact(minorUnits, percent);
+        long quotient = dividend / PERCENT;
+        long remainder = dividend % PERCENT;
+        if (Math.abs(remainder) * 2 >= PERCENT) {
+            quotient += Long.signum(dividend);
+        }
+        return ofMinor(quotient);
+    }
+
+    public boolean isPositive() {
+        return minorUnits > 0;
+    }
+
+    public boolean isLessThan(Money other) {
+        return minorUnits < other.minorUnits;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof Money && minorUnits == ((Money) o).minorUnits;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minorUnits);
+    }
+
+    /**
+     * метод, возвращающий сумму в виде десятичного числа с двумя знаками после запятой (например, 105.00)
+     * @return String - строковое представление суммы
+     */
+    @Override
+    public String toString() {
+        long abs = Math.abs(minorUnits);
+        long fraction = abs % PERCENT;
+        return (minorUnits < 0 ? "-" : "") + abs / PERCENT + (fraction < 10 ? ".0" : ".") + fraction;
+    }
+}
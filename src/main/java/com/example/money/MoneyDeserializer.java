@@ -0,0 +1,34 @@
+package com.example.money;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+
+/**
+ * Jackson десериализатор, читающий Money из JSON числа или строки. Число читается как десятичное,
+ * без промежуточного double, и округляется до копеек
+ */
+public class MoneyDeserializer extends StdDeserializer<Money> {
+    public MoneyDeserializer() {
+        super(Money.class);
+    }
+
+    @Override
+    public Money deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NUMBER_INT
+                || parser.currentToken() == JsonToken.VALUE_NUMBER_FLOAT) {
+            return Money.of(parser.getDecimalValue());
+        }
+        if (parser.currentToken() == JsonToken.VALUE_STRING) {
+            try {
+                return Money.of(parser.getText().trim());
+            } catch (NumberFormatException e) {
+                return (Money) context.handleWeirdStringValue(Money.class, parser.getText(), "not a valid amount");
+            }
+        }
+        return (Money) context.handleUnexpectedToken(Money.class, parser);
+    }
+}
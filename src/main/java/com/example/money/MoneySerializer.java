@@ -0,0 +1,21 @@
+package com.example.money;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Jackson сериализатор, записывающий Money как JSON число с двумя знаками после запятой
+ */
+public class MoneySerializer extends StdSerializer<Money> {
+    public MoneySerializer() {
+        super(Money.class);
+    }
+
+    @Override
+    public void serialize(Money money, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeNumber(money.toString());
+    }
+}
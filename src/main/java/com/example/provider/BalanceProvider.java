@@ -0,0 +1,103 @@
+package com.example.provider;
+
+import com.example.entity.ClientAccount;
+import com.example.money.Money;
+import com.example.service.AccrualMode;
+import com.example.util.InterestUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Класс, отвечающий за вычисление баланса счета клиента.
+ * В режиме начисления LAZY в БД хранится баланс на момент accruedAt, а проценты, начисленные
+ * после этого момента, вычисляются при чтении и фиксируются только при изменении баланса счета
+ */
+@Component
+public class BalanceProvider {
+    private final boolean lazy;
+    private final long interval;
+
+    public BalanceProvider(@Value("${scheduler.accrual.mode:SQL}") AccrualMode accrualMode,
+                           @Value("${scheduler.interval}") long interval) {
+        this.lazy = accrualMode == AccrualMode.LAZY;
+        this.interval = interval;
+    }
+
+    /**
+     * метод, возвращающий текущий баланс счета с учетом начисленных процентов (без зачислений
+     * на слоты горячего счета, см. HotAccountService.getSlotMoney)
+     * @param account - счет клиента
+     * @return Money - баланс счета
+     */
+    public Money getBalance(ClientAccount account) {
+        if (!lazy) {
+            return account.getBalance();
+        }
+        return InterestUtil.accrue(account.getBalance(), account.getLimitBalance(), getPeriods(account));
+    }
+
+    /**
+     * метод, фиксирующий в счете проценты, начисленные с момента accruedAt (только в режиме LAZY)
+     * @param account - счет клиента
+     */
+    public void materialize(ClientAccount account) {
+        if (lazy) {
+            accrue(account);
+        }
+    }
+
+    /**
+     * метод, начисляющий счету проценты за все интервалы начисления, прошедшие с момента accruedAt,
+     * за один проход. Момент начисления сдвигается на целое количество интервалов, чтобы не потерять
+     * неполный интервал. Если баланс достиг максимального, счет помечается как достигший
+     * максимального баланса. Слишком маленький баланс, который не меняется после округления,
+     * не изменяется, но счет продолжает участвовать в начислении
+     * @param account - счет клиента
+     * @return boolean - был ли увеличен баланс
+     */
+    public boolean accrue(ClientAccount account) {
+        long periods = getPeriods(account);
+        if (periods == 0) {
+            return false;
+        }
+
+        Money newBalance = InterestUtil.accrue(account.getBalance(), account.getLimitBalance(), periods);
+        account.setAccruedAt(account.getAccruedAt().plusMillis(periods * interval));
+        if (newBalance.equals(account.getBalance())) {
+            account.setCapped(InterestUtil.isCapped(newBalance, account.getLimitBalance()));
+            return false;
+        }
+        account.setBalance(newBalance);
+        return true;
+    }
+
+    /**
+     * метод, проверяющий, вычисляются ли проценты при чтении (режим начисления LAZY)
+     * @return boolean - включен ли режим LAZY
+     */
+    public boolean isLazy() {
+        return lazy;
+    }
+
+    /**
+     * метод, возвращающий момент, начисление после которого еще не положено
+     * (с него не прошел полный интервал начисления)
+     * @return Instant - момент времени
+     */
+    public Instant getDueAt() {
+        return Instant.now().minusMillis(interval);
+    }
+
+    /**
+     * метод, вычисляющий количество полных интервалов начисления, прошедших с момента accruedAt
+     * @param account - счет клиента
+     * @return long - количество интервалов
+     */
+    private long getPeriods(ClientAccount account) {
+        long elapsed = Duration.between(account.getAccruedAt(), Instant.now()).toMillis();
+        return Math.max(elapsed / interval, 0);
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.provider;
 
 import com.example.entity.Client;
+import com.example.security.ClientPrincipal;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
@@ -17,6 +18,9 @@ import java.util.function.Function;
  */
 @Component
 public class JwtProvider {
+    public static final String CLIENT_ID_CLAIM = "clientId";
+    public static final String ACCOUNT_ID_CLAIM = "accountId";
+
     /**
      * secret_key для подписания и сверки токена
      */
@@ -43,7 +47,8 @@ public class JwtProvider {
         Date expiredDate = new Date(issuedDate.getTime() + lifetime.toMillis());
 
         return Jwts.builder()
-                .claim("clientId", client.getId())
+                .claim(CLIENT_ID_CLAIM, client.getId())
+                .claim(ACCOUNT_ID_CLAIM, client.getClientAccount() == null ? null : client.getClientAccount().getId())
                 .subject(client.getLogin())
                 .issuedAt(issuedDate)
                 .expiration(expiredDate)
@@ -60,6 +65,19 @@ public class JwtProvider {
         return getClaim(jwt, Claims::getSubject);
     }
 
+    /**
+     * метод, извлекающий из токена аутентифицированного клиента (логин, id клиента и id счета)
+     * @param jwt - jwt токен
+     * @return ClientPrincipal - аутентифицированный клиент
+     */
+    public ClientPrincipal getPrincipal(String jwt){
+        return getClaim(jwt, claims -> new ClientPrincipal(
+                claims.getSubject(),
+                claims.get(CLIENT_ID_CLAIM, Integer.class),
+                claims.get(ACCOUNT_ID_CLAIM, Integer.class)
+        ));
+    }
+
     /**
      * generic-метод, извлекающий заданную в claimsResolver информацию из токена
      * @param jwt - jwt токен
@@ -0,0 +1,116 @@
+package com.example.repository;
+
+import com.example.entity.AccountEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Repository для работы с журналом операций по счетам
+ */
+public interface AccountEntryRepository extends JpaRepository<AccountEntry, Long> {
+    /**
+     * метод, возвращающий историю операций по счету
+     * @param accountId - идентификатор счета
+     * @return List<AccountEntry> - записи журнала в порядке добавления
+     */
+    List<AccountEntry> findAllByAccountIdOrderById(Integer accountId);
+
+    /**
+     * метод, одним запросом резервирующий amount на счете клиента senderClientId и добавляющий в журнал
+     * записи о списании и зачислении. Баланс счета получателя не изменяется: зачисление учитывает
+     * проекция. Резервирование выполняется, только если доступный баланс отправителя (баланс минус
+     * резерв) после него останется положительным и счет получателя существует
+     * @param senderClientId - идентификатор клиента-отправителя
+     * @param recipientId - идентификатор клиента-получателя
+     * @param amount - сумма перевода
+     * @return int - 2, если перевод записан в журнал, иначе 0
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            WITH recipient AS (
+                SELECT id
+                FROM client_service.client_account
+                WHERE client_id = :recipientId
+                AND client_id <> :senderClientId
+            ), sender AS (
+                UPDATE client_service.client_account ca
+                SET version = ca.version + 1,
+                    reserved = ca.reserved + :amount
+                WHERE ca.client_id = :senderClientId
+                AND ca.balance - ca.reserved > :amount
+                AND EXISTS (SELECT 1 FROM recipient)
+                RETURNING ca.id
+            )
+            INSERT INTO client_service.account_entry(account_id, counterparty_account_id, amount, entry_type)
+            SELECT sender.id, recipient.id, -:amount, 'TRANSFER_DEBIT' FROM sender, recipient
+            UNION ALL
+            SELECT recipient.id, sender.id, :amount, 'TRANSFER_CREDIT' FROM sender, recipient
+            """)
+    int appendTransfer(Integer senderClientId, Integer recipientId, BigDecimal amount);
+
+    /**
+     * метод, учитывающий в балансах счетов порцию еще не учтенных записей журнала: баланс изменяется
+     * на сумму записей, резерв отправителя уменьшается на сумму списаний. Строки счетов блокируются
+     * в порядке возрастания id. Если списание вернуло счету, достигшему максимального баланса,
+     * возможность роста, начисление процентов для него возобновляется с текущего момента
+     * @param batchSize - максимальное количество записей в порции
+     * @return int - количество обновленных счетов (0, если неучтенных записей нет)
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            WITH batch AS (
+                SELECT id, account_id, amount, entry_type
+                FROM client_service.account_entry
+                WHERE NOT projected
+                ORDER BY id
+                LIMIT :batchSize
+            ), marked AS (
+                UPDATE client_service.account_entry e
+                SET projected = true
+                FROM batch
+                WHERE e.id = batch.id
+            ), deltas AS (
+                SELECT account_id,
+                       SUM(amount) AS delta,
+                       SUM(CASE WHEN entry_type = 'TRANSFER_DEBIT' THEN -amount ELSE 0 END) AS released
+                FROM batch
+                GROUP BY account_id
+            ), locked AS (
+                SELECT ca.id
+                FROM client_service.client_account ca
+                JOIN deltas ON deltas.account_id = ca.id
+                ORDER BY ca.id
+                FOR NO KEY UPDATE OF ca
+            )
+            UPDATE client_service.client_account ca
+            SET version = ca.version + 1,
+                balance = ca.balance + deltas.delta,
+                reserved = ca.reserved - deltas.released,
+                capped = ca.capped AND deltas.delta >= 0,
+                accrued_at = CASE WHEN ca.capped AND deltas.delta < 0 THEN now() ELSE ca.accrued_at END
+            FROM deltas, locked
+            WHERE ca.id = deltas.account_id
+            AND ca.id = locked.id
+            """)
+    int projectEntries(int batchSize);
+
+    /**
+     * метод, пытающийся взять транзакционную advisory-блокировку, не дожидаясь ее освобождения
+     * @param key - ключ блокировки
+     * @return boolean - взята ли блокировка
+     */
+    @Query(nativeQuery = true, value = "SELECT pg_try_advisory_xact_lock(:key)")
+    boolean tryLock(long key);
+
+    /**
+     * метод, берущий транзакционную advisory-блокировку (ожидая ее освобождения)
+     * @param key - ключ блокировки
+     * @return int - 1
+     */
+    @Query(nativeQuery = true, value = "SELECT 1 FROM pg_advisory_xact_lock(:key)")
+    int lock(long key);
+}
@@ -0,0 +1,66 @@
+package com.example.repository;
+
+import com.example.entity.AccrualWorkUnit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Optional;
+
+/**
+ * Repository для работы с единицами работы начисления процентов
+ */
+public interface AccrualWorkUnitRepository extends JpaRepository<AccrualWorkUnit, Long> {
+    /**
+     * метод, регистрирующий запуск начисления с номером tickNo и разбивающий диапазон id счетов
+     * на единицы работы по unitSize id. Если запуск уже зарегистрирован другим узлом, ничего не делает
+     * @param tickNo - номер запуска начисления
+     * @param unitSize - количество id счетов в одной единице работы
+     * @return int - количество созданных единиц работы
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            WITH tick AS (
+                INSERT INTO client_service.accrual_tick(tick_no)
+                VALUES (:tickNo)
+                ON CONFLICT DO NOTHING
+                RETURNING tick_no
+            )
+            INSERT INTO client_service.accrual_work_unit(tick_no, lower_id, upper_id)
+            SELECT tick.tick_no, lower_id, lower_id + :unitSize
+            FROM tick, generate_series(
+                (SELECT COALESCE(MIN(id), 1) - 1 FROM client_service.client_account),
+                (SELECT COALESCE(MAX(id), 0) - 1 FROM client_service.client_account),
+                :unitSize
+            ) AS lower_id
+            """)
+    int createWorkUnits(long tickNo, int unitSize);
+
+    /**
+     * метод, захватывающий первую незавершенную единицу работы, не заблокированную другими узлами
+     * (SELECT ... FOR UPDATE SKIP LOCKED). Блокировка держится до конца транзакции
+     * @return Optional<AccrualWorkUnit> - захваченная единица работы
+     */
+    @Query(nativeQuery = true, value = """
+            SELECT * FROM client_service.accrual_work_unit
+            WHERE completed_at IS NULL
+            ORDER BY tick_no, id
+            LIMIT 1
+            FOR UPDATE SKIP LOCKED
+            """)
+    Optional<AccrualWorkUnit> claimWorkUnit();
+
+    /**
+     * метод, удаляющий полностью обработанные запуски начисления с номером меньше tickNo
+     * (вместе с их единицами работы)
+     * @param tickNo - номер запуска начисления
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            DELETE FROM client_service.accrual_tick t
+            WHERE t.tick_no < :tickNo
+            AND NOT EXISTS(SELECT 1 FROM client_service.accrual_work_unit u
+                           WHERE u.tick_no = t.tick_no AND u.completed_at IS NULL)
+            """)
+    void deleteCompletedTicksBefore(long tickNo);
+}
@@ -1,7 +1,17 @@
 package com.example.repository;
 
 import com.example.entity.ClientAccount;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -14,4 +24,388 @@ public interface ClientAccountRepository extends JpaRepository<ClientAccount, In
      * @return - Optional<ClientAccount> - счет клиента
      */
     Optional<ClientAccount> findClientAccountByClientId(Integer id);
+
+    /**
+     * метод, который ищет счета клиентов и блокирует их (SELECT ... FOR UPDATE) до конца транзакции.
+     * Строки блокируются в порядке возрастания id счета, поэтому встречные переводы
+     * не могут привести к взаимной блокировке
+     * @param clientIds - идентификаторы клиентов
+     * @return List<ClientAccount> - счета клиентов, отсортированные по id
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT ca FROM ClientAccount ca WHERE ca.client.id IN :clientIds ORDER BY ca.id")
+    List<ClientAccount> findAllByClientIdInForUpdate(Collection<Integer> clientIds);
+
+    /**
+     * метод, который ищет счета клиентов без блокировки (режим перевода OPTIMISTIC): конкурирующее
+     * изменение обнаруживается при сохранении по версии строки
+     * @param clientIds - идентификаторы клиентов
+     * @return List<ClientAccount> - счета клиентов, отсортированные по id
+     */
+    @Query("SELECT ca FROM ClientAccount ca WHERE ca.client.id IN :clientIds ORDER BY ca.id")
+    List<ClientAccount> findAllByClientIdIn(Collection<Integer> clientIds);
+
+    /**
+     * метод, одним запросом переводящий amount со счета клиента senderClientId на счет клиента
+     * recipientId. Оба счета блокируются в порядке возрастания id, списание выполняется, только если
+     * после него доступный баланс отправителя (баланс минус резерв LEDGER) останется положительным,
+     * а зачисление - только если списание состоялось. Если баланс отправителя достиг максимального,
+     * начисление процентов для него возобновляется с текущего момента
+     * @param senderClientId - идентификатор клиента-отправителя
+     * @param recipientId - идентификатор клиента-получателя
+     * @param amount - сумма перевода
+     * @return int - 1, если перевод выполнен, иначе 0
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            WITH sender AS (
+                SELECT id
+                FROM client_service.client_account
+                WHERE client_id = :senderClientId
+                AND client_id <> :recipientId
+            ), locked AS (
+                SELECT id
+                FROM client_service.client_account
+                WHERE id IN (SELECT id FROM sender) OR client_id = :recipientId
+                ORDER BY id
+                FOR UPDATE
+            ), debit AS (
+                UPDATE client_service.client_account ca
+                SET version = ca.version + 1,
+                    balance = ca.balance - :amount,
+                    capped = false,
+                    accrued_at = CASE WHEN ca.capped THEN now() ELSE ca.accrued_at END
+                FROM locked
+                WHERE ca.id = locked.id
+                AND ca.id IN (SELECT id FROM sender)
+                AND ca.balance - ca.reserved > :amount
+                AND EXISTS (SELECT 1 FROM locked l JOIN client_service.client_account r ON r.id = l.id
+                            WHERE r.client_id = :recipientId)
+                RETURNING ca.id
+            )
+            UPDATE client_service.client_account ca
+            SET version = ca.version + 1,
+                balance = ca.balance + :amount
+            FROM locked
+            WHERE ca.id = locked.id
+            AND ca.client_id = :recipientId
+            AND EXISTS (SELECT 1 FROM debit)
+            """)
+    int transferMoney(Integer senderClientId, Integer recipientId, BigDecimal amount);
+
+    /**
+     * метод, одним запросом переводящий amount со счета клиента senderClientId на слот slotNo горячего
+     * счета клиента recipientId. Строка счета получателя не блокируется, поэтому зачисления на разные
+     * слоты одного счета не ждут друг друга. Списание выполняется, только если после него доступный
+     * баланс отправителя останется положительным и у получателя есть слот slotNo
+     * @param senderClientId - идентификатор клиента-отправителя
+     * @param recipientId - идентификатор клиента-получателя
+     * @param amount - сумма перевода
+     * @param slotNo - номер слота получателя
+     * @return int - 1, если перевод выполнен, иначе 0
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            WITH slot AS (
+                SELECT s.account_id
+                FROM client_service.account_slot s
+                JOIN client_service.client_account r ON r.id = s.account_id
+                WHERE r.client_id = :recipientId
+                AND r.client_id <> :senderClientId
+                AND s.slot_no = :slotNo
+            ), debit AS (
+                UPDATE client_service.client_account ca
+                SET version = ca.version + 1,
+                    balance = ca.balance - :amount,
+                    capped = false,
+                    accrued_at = CASE WHEN ca.capped THEN now() ELSE ca.accrued_at END
+                WHERE ca.client_id = :senderClientId
+                AND ca.balance - ca.reserved > :amount
+                AND EXISTS (SELECT 1 FROM slot)
+                RETURNING ca.id
+            )
+            UPDATE client_service.account_slot s
+            SET balance = s.balance + :amount
+            FROM slot
+            WHERE s.account_id = slot.account_id
+            AND s.slot_no = :slotNo
+            AND EXISTS (SELECT 1 FROM debit)
+            """)
+    int transferMoneyToSlot(Integer senderClientId, Integer recipientId, BigDecimal amount, int slotNo);
+
+    /**
+     * метод, разбивающий счет клиента на slots слотов для зачислений. Уже существующие слоты сохраняются
+     * @param clientId - идентификатор клиента
+     * @param slots - количество слотов
+     * @return int - количество созданных слотов
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            INSERT INTO client_service.account_slot(account_id, slot_no)
+            SELECT ca.id, slot_no
+            FROM client_service.client_account ca, generate_series(0, :slots - 1) AS slot_no
+            WHERE ca.client_id = :clientId
+            ON CONFLICT DO NOTHING
+            """)
+    int splitAccount(Integer clientId, int slots);
+
+    /**
+     * метод, возвращающий сумму зачислений на слоты счета, еще не перенесенную в баланс
+     * @param accountId - идентификатор счета
+     * @return BigDecimal - сумма на слотах
+     */
+    @Query(nativeQuery = true, value = """
+            SELECT COALESCE(SUM(balance), 0)
+            FROM client_service.account_slot
+            WHERE account_id = :accountId
+            """)
+    BigDecimal getSlotBalance(Integer accountId);
+
+    /**
+     * метод, переносящий суммы со слотов счетов клиентов clientIds в балансы счетов. Все счета
+     * блокируются в порядке возрастания id (как при переводе), затем блокируются непустые слоты
+     * @param clientIds - идентификаторы клиентов
+     * @return int - количество счетов, баланс которых увеличился
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            WITH accounts AS (
+                SELECT id
+                FROM client_service.client_account
+                WHERE client_id IN (:clientIds)
+                ORDER BY id
+                FOR UPDATE
+            ), slots AS (
+                SELECT s.account_id, s.slot_no, s.balance
+                FROM client_service.account_slot s
+                WHERE s.account_id IN (SELECT id FROM accounts)
+                AND s.balance <> 0
+                ORDER BY s.account_id, s.slot_no
+                FOR UPDATE
+            ), swept AS (
+                UPDATE client_service.account_slot s
+                SET balance = 0
+                FROM slots
+                WHERE s.account_id = slots.account_id
+                AND s.slot_no = slots.slot_no
+                RETURNING s.account_id, slots.balance AS amount
+            )
+            UPDATE client_service.client_account ca
+            SET version = ca.version + 1,
+                balance = ca.balance + totals.amount
+            FROM (SELECT account_id, SUM(amount) AS amount FROM swept GROUP BY account_id) totals
+            WHERE ca.id = totals.account_id
+            """)
+    int sweepSlots(Collection<Integer> clientIds);
+
+    /**
+     * метод, переносящий суммы со всех непустых слотов в балансы счетов
+     * @return int - количество счетов, баланс которых увеличился
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            WITH accounts AS (
+                SELECT id
+                FROM client_service.client_account
+                WHERE id IN (SELECT account_id FROM client_service.account_slot WHERE balance <> 0)
+                ORDER BY id
+                FOR UPDATE
+            ), slots AS (
+                SELECT s.account_id, s.slot_no, s.balance
+                FROM client_service.account_slot s
+                WHERE s.account_id IN (SELECT id FROM accounts)
+                AND s.balance <> 0
+                ORDER BY s.account_id, s.slot_no
+                FOR UPDATE
+            ), swept AS (
+                UPDATE client_service.account_slot s
+                SET balance = 0
+                FROM slots
+                WHERE s.account_id = slots.account_id
+                AND s.slot_no = slots.slot_no
+                RETURNING s.account_id, slots.balance AS amount
+            )
+            UPDATE client_service.client_account ca
+            SET version = ca.version + 1,
+                balance = ca.balance + totals.amount
+            FROM (SELECT account_id, SUM(amount) AS amount FROM swept GROUP BY account_id) totals
+            WHERE ca.id = totals.account_id
+            """)
+    int sweepAllSlots();
+
+    /**
+     * метод, возвращающий счета, баланс которых еще не достиг максимального и с момента последнего
+     * начисления которых прошел хотя бы один интервал начисления
+     * @param dueAt - момент, не позже которого должно было быть последнее начисление
+     * @return List<ClientAccount> - счета клиентов
+     */
+    List<ClientAccount> findAllByCappedFalseAndAccruedAtLessThanEqual(Instant dueAt);
+
+    /**
+     * метод, возвращающий порцию счетов с id из диапазона (lowerId, upperId], баланс которых еще
+     * не достиг максимального и с момента последнего начисления которых прошел хотя бы один интервал
+     * начисления, отсортированных по id (keyset-пагинация)
+     * @param lowerId - id последнего счета из предыдущей порции
+     * @param upperId - максимальный id счета в диапазоне
+     * @param dueAt - момент, не позже которого должно было быть последнее начисление
+     * @param limit - размер порции
+     * @return List<ClientAccount> - счета клиентов
+     */
+    @Query("""
+            SELECT ca FROM ClientAccount ca
+            WHERE ca.id > :lowerId AND ca.id <= :upperId
+            AND ca.capped = false
+            AND ca.accruedAt <= :dueAt
+            ORDER BY ca.id
+            """)
+    List<ClientAccount> findDueAccounts(Integer lowerId, Integer upperId, Instant dueAt, Limit limit);
+
+    /**
+     * метод, возвращающий минимальный id счета
+     * @return Integer - минимальный id счета или null, если счетов нет
+     */
+    @Query("SELECT MIN(ca.id) FROM ClientAccount ca")
+    Integer findMinId();
+
+    /**
+     * метод, возвращающий максимальный id счета
+     * @return Integer - максимальный id счета или null, если счетов нет
+     */
+    @Query("SELECT MAX(ca.id) FROM ClientAccount ca")
+    Integer findMaxId();
+
+    /**
+     * метод, одним UPDATE запросом начисляющий каждому счету проценты за все интервалы начисления,
+     * прошедшие с момента последнего начисления (accrued_at), не превышая максимальный баланс счета.
+     * Момент последнего начисления сдвигается на целое количество интервалов
+     * @param coefficient - коэффициент увеличения баланса за один интервал
+     * @param intervalMs - интервал начисления в миллисекундах
+     * @return int - количество обновленных счетов
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            UPDATE client_service.client_account
+            SET version = version + 1,
+                balance = client_service.accrue_balance(balance, limit_balance, :coefficient,
+                    client_service.accrual_periods(accrued_at, :intervalMs)),
+                accrued_at = accrued_at
+                    + client_service.accrual_periods(accrued_at, :intervalMs) * :intervalMs * INTERVAL '1 millisecond'
+            WHERE NOT capped
+            AND accrued_at <= now() - :intervalMs * INTERVAL '1 millisecond'
+            AND round(balance * :coefficient, 2) < limit_balance
+            """)
+    int accrueInterest(BigDecimal coefficient, long intervalMs);
+
+    /**
+     * метод, начисляющий проценты так же, как accrueInterest, и добавляющий в журнал операций
+     * запись о начислении для каждого счета, баланс которого изменился (режим перевода LEDGER).
+     * Запись сразу отмечается учтенной, так как баланс обновляется тем же запросом. Должен выполняться
+     * под блокировкой проекции журнала, чтобы баланс не изменился между чтением и обновлением
+     * @param coefficient - коэффициент увеличения баланса за один интервал
+     * @param intervalMs - интервал начисления в миллисекундах
+     * @return int - количество обновленных счетов
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            WITH due AS (
+                SELECT id,
+                       balance,
+                       client_service.accrual_periods(accrued_at, :intervalMs) AS periods
+                FROM client_service.client_account
+                WHERE NOT capped
+                AND accrued_at <= now() - :intervalMs * INTERVAL '1 millisecond'
+                AND round(balance * :coefficient, 2) < limit_balance
+            ), accrued AS (
+                UPDATE client_service.client_account ca
+                SET version = ca.version + 1,
+                    balance = client_service.accrue_balance(due.balance, ca.limit_balance, :coefficient, due.periods),
+                    accrued_at = ca.accrued_at + due.periods * :intervalMs * INTERVAL '1 millisecond'
+                FROM due
+                WHERE ca.id = due.id
+                RETURNING ca.id, ca.balance - due.balance AS amount
+            )
+            INSERT INTO client_service.account_entry(account_id, amount, entry_type, projected)
+            SELECT id, amount, 'ACCRUAL', true
+            FROM accrued
+            WHERE amount <> 0
+            """)
+    int accrueInterestWithEntries(BigDecimal coefficient, long intervalMs);
+
+    /**
+     * метод, помечающий счета, баланс которых больше не может быть увеличен в coefficient раз
+     * без превышения максимального баланса. Такие счета исключаются из начисления процентов
+     * @param coefficient - коэффициент увеличения баланса
+     * @return int - количество помеченных счетов
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            UPDATE client_service.client_account
+            SET version = version + 1,
+                capped = true
+            WHERE NOT capped
+            AND round(balance * :coefficient, 2) >= limit_balance
+            """)
+    int capAccounts(BigDecimal coefficient);
+
+    /**
+     * метод, прибавляющий к балансу счета накопленное изменение. Счет, баланс которого уменьшился,
+     * снова участвует в начислении процентов, начиная с текущего момента
+     * @param id - идентификатор счета
+     * @param delta - изменение баланса
+     * @return int - количество обновленных счетов
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            UPDATE client_service.client_account
+            SET version = version + 1,
+                balance = balance + :delta,
+                capped = capped AND :delta >= 0,
+                accrued_at = CASE WHEN capped AND :delta < 0 THEN now() ELSE accrued_at END
+            WHERE id = :id
+            """)
+    int addToBalance(Integer id, BigDecimal delta);
+
+    /**
+     * метод, начисляющий счетам с id из диапазона (lowerId, upperId] проценты за все интервалы
+     * начисления, прошедшие с момента последнего начисления (accrued_at), не превышая максимальный
+     * баланс счета
+     * @param coefficient - коэффициент увеличения баланса за один интервал
+     * @param intervalMs - интервал начисления в миллисекундах
+     * @param lowerId - нижняя граница диапазона (не включительно)
+     * @param upperId - верхняя граница диапазона (включительно)
+     * @return int - количество обновленных счетов
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            UPDATE client_service.client_account
+            SET version = version + 1,
+                balance = client_service.accrue_balance(balance, limit_balance, :coefficient,
+                    client_service.accrual_periods(accrued_at, :intervalMs)),
+                accrued_at = accrued_at
+                    + client_service.accrual_periods(accrued_at, :intervalMs) * :intervalMs * INTERVAL '1 millisecond'
+            WHERE id > :lowerId AND id <= :upperId
+            AND NOT capped
+            AND accrued_at <= now() - :intervalMs * INTERVAL '1 millisecond'
+            AND round(balance * :coefficient, 2) < limit_balance
+            """)
+    int accrueInterestInRange(BigDecimal coefficient, long intervalMs, Integer lowerId, Integer upperId);
+
+    /**
+     * метод, помечающий счета с id из диапазона (lowerId, upperId], баланс которых больше не может
+     * быть увеличен в coefficient раз без превышения максимального баланса
+     * @param coefficient - коэффициент увеличения баланса
+     * @param lowerId - нижняя граница диапазона (не включительно)
+     * @param upperId - верхняя граница диапазона (включительно)
+     * @return int - количество помеченных счетов
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            UPDATE client_service.client_account
+            SET version = version + 1,
+                capped = true
+            WHERE id > :lowerId AND id <= :upperId
+            AND NOT capped
+            AND round(balance * :coefficient, 2) >= limit_balance
+            """)
+    int capAccountsInRange(BigDecimal coefficient, Integer lowerId, Integer upperId);
 }
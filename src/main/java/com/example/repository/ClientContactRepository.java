@@ -0,0 +1,92 @@
+package com.example.repository;
+
+import com.example.entity.ClientContact;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+/**
+ * Repository для работы с контактами клиента. Тип контакта передается строкой (ContactType.name()).
+ * Поиск контакта обслуживает уникальный индекс (type, value), контакты клиента - индекс (client_id, type)
+ */
+public interface ClientContactRepository extends JpaRepository<ClientContact, Long> {
+    /**
+     * метод, проверяющий, занят ли контакт каким-либо клиентом
+     * @param type - тип контакта
+     * @param value - контакт
+     * @return boolean - занят ли контакт
+     */
+    @Query(nativeQuery = true, value = """
+            SELECT EXISTS(SELECT 1 FROM client_service.client_contact
+                          WHERE type = :type AND value = :value)
+            """)
+    boolean existsByTypeAndValue(String type, String value);
+
+    /**
+     * метод, проверяющий, есть ли контакт у клиента
+     * @param clientId - идентификатор клиента
+     * @param type - тип контакта
+     * @param value - контакт
+     * @return boolean - есть ли контакт у клиента
+     */
+    @Query(nativeQuery = true, value = """
+            SELECT EXISTS(SELECT 1 FROM client_service.client_contact
+                          WHERE type = :type AND value = :value AND client_id = :clientId)
+            """)
+    boolean existsByClientIdAndTypeAndValue(Integer clientId, String type, String value);
+
+    /**
+     * метод, подсчитывающий количество контактов клиента заданного типа
+     * @param clientId - идентификатор клиента
+     * @param type - тип контакта
+     * @return int - количество контактов
+     */
+    @Query(nativeQuery = true, value = """
+            SELECT count(*) FROM client_service.client_contact
+            WHERE client_id = :clientId AND type = :type
+            """)
+    int countByClientIdAndType(Integer clientId, String type);
+
+    /**
+     * метод, добавляющий контакт клиенту
+     * @param clientId - идентификатор клиента
+     * @param type - тип контакта
+     * @param value - контакт
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            INSERT INTO client_service.client_contact(client_id, type, value)
+            VALUES (:clientId, :type, :value)
+            """)
+    void insertContact(Integer clientId, String type, String value);
+
+    /**
+     * метод, заменяющий контакт клиента на новый
+     * @param clientId - идентификатор клиента
+     * @param type - тип контакта
+     * @param replacedValue - контакт, который изменяем
+     * @param newValue - новый контакт
+     * @return int - количество измененных контактов
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            UPDATE client_service.client_contact
+            SET value = :newValue
+            WHERE type = :type AND value = :replacedValue AND client_id = :clientId
+            """)
+    int updateContact(Integer clientId, String type, String replacedValue, String newValue);
+
+    /**
+     * метод, удаляющий контакт клиента
+     * @param clientId - идентификатор клиента
+     * @param type - тип контакта
+     * @param value - контакт
+     * @return int - количество удаленных контактов
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            DELETE FROM client_service.client_contact
+            WHERE type = :type AND value = :value AND client_id = :clientId
+            """)
+    int deleteContact(Integer clientId, String type, String value);
+}
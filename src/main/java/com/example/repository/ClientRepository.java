@@ -3,7 +3,9 @@ package com.example.repository;
 import com.example.entity.Client;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
@@ -13,7 +15,7 @@ import java.util.Optional;
 /**
  * Repository для работы со клиентом
  */
-public interface ClientRepository extends JpaRepository<Client, Integer> {
+public interface ClientRepository extends JpaRepository<Client, Integer>, ClientSearchRepository {
     /**
      * метод, возвращающий клиента по его id
      * @param id - идентификатор клиента
@@ -22,151 +24,49 @@ public interface ClientRepository extends JpaRepository<Client, Integer> {
     Optional<Client> findClientById(Integer id);
 
     /**
-     * метод, проверяющий, есть ли клиент по таким параметрам как логин, номер телефона и email
-     * @param login - логин
-     * @param phone - номер телефона
-     * @param email - email
-     * @return boolean - найдет ли такой клиент или нет
-     */
-    @Query(nativeQuery = true, value = """
-                    SELECT EXISTS(SELECT * FROM client_service.client,
-                    unnest(phone_numbers) AS pn, unnest(emails) AS em
-                    WHERE login = :login OR pn = :phone OR em = :email);
-                    """)
-    boolean findClientByLoginOrEmailOrPhone(String login, String phone, String email);
-
-    /**
-     * метод, возвращающий клиента по его id и email
-     * @param id - id клиента
-     * @param email - email
+     * метод, возвращающий клиента по его id и блокирующий строку клиента (SELECT ... FOR UPDATE)
+     * до конца транзакции
+     * @param id - идентификатор клиента
      * @return Optional<Client> - объект Client
      */
-    @Query(nativeQuery = true,
-            value = """
-                    SELECT * FROM client_service.client, unnest(emails) AS em
-                    WHERE id = :id
-                    AND em = :email
-                    """)
-    Optional<Client> findClientByIdAndEmail(Integer id, String email);
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Client c WHERE c.id = :id")
+    Optional<Client> findByIdForUpdate(Integer id);
 
     /**
-     * метод, возвращающий клиента по id и номеру телефона
-     * @param id - id клиента
+     * метод, проверяющий, есть ли клиент с таким логином ИЛИ номером телефона ИЛИ email.
+     * Каждое условие - отдельная проверка существования по уникальному индексу (login или
+     * client_contact(type, value)), а OR вычисляет их по очереди до первого найденного клиента,
+     * поэтому время проверки не зависит от размера таблицы
+     * @param login - логин
      * @param phone - номер телефона
-     * @return Optional<Client> - объект Client
-     */
-    @Query(nativeQuery = true, value = """
-                    SELECT * FROM client_service.client, unnest(phone_numbers) AS pn
-                    WHERE id = :id
-                    AND pn = :phone
-                    """)
-    Optional<Client> findClientByIdAndPhone(Integer id, String phone);
-
-    /**
-     * метод, добавляющий новый email клиенту по его id
-     * @param id - идентификатор клиента
      * @param email - email
+     * @return boolean - найдет ли такой клиент или нет
      */
-    @Modifying
-    @Query(nativeQuery = true, value = """
-            UPDATE client_service.client
-            SET emails = array_append(emails, :email)
-            WHERE id = :id
-            """)
-    void updateClientEmails(Integer id, String email);
-
-    /**
-     * метод, изменяющий существующий email на новый у клиента по его id
-     * @param id - идентификатор клиента
-     * @param replacedEmail - email, который изменяем
-     * @param newEmail - новый email
-     */
-    @Modifying
-    @Query(nativeQuery = true, value = """
-            UPDATE client_service.client
-            SET emails = array_replace(emails, :replacedEmail, :newEmail)
-            WHERE id = :id
-            """)
-    void updateClientEmails(Integer id, String replacedEmail, String newEmail);
-
-    /**
-     * метод, добавляющий новый номер телефона клиенту по его id
-     * @param id - идентификатор клиента
-     * @param phone - номер телефона
-     */
-    @Modifying
-    @Query(nativeQuery = true, value = """
-            UPDATE client_service.client
-            SET phone_numbers = array_append(phone_numbers, :phone)
-            WHERE id = :id
-            """)
-    void updateClientPhoneNumbers(Integer id, String phone);
-
-    /**
-     * метод, изменяющий существующий номер телефона на новый у клиента по его id
-     * @param id - идентификатор клиента
-     * @param replacedPhone - номер телефона, который изменяем
-     * @param newPhone - новый номер телефона
-     */
-    @Modifying
     @Query(nativeQuery = true, value = """
-            UPDATE client_service.client
-            SET phone_numbers = array_replace(phone_numbers, :replacedPhone, :newPhone)
-            WHERE id = :id
-            """)
-    void updateClientPhoneNumbers(Integer id, String replacedPhone, String newPhone);
-
-    /**
-     * метод, подсчитывающий количество email'ов у клиента по его id
-     * @param id - идентификатор клиента
-     * @return int - количество email'ов у клиента
-     */
-    @Query(nativeQuery = true,
-            value = """
-            SELECT cardinality(emails)
-            FROM client_service.client
-            WHERE id = :id
-            """)
-    int countClientEmails(Integer id);
-
-    /**
-     * метод, подсчитывающий количество номеров телефона у клиента по его id
-     * @param id - идентификатор клиента
-     * @return int - количество номеров телефона у клиента
-     */
-    @Query(nativeQuery = true,
-                value = """
-            SELECT cardinality(phone_numbers)
-            FROM client_service.client
-            WHERE id = :id
-            """)
-    int countClientPhoneNumbers(Integer id);
+                    SELECT EXISTS(SELECT 1 FROM client_service.client WHERE login = :login)
+                    OR EXISTS(SELECT 1 FROM client_service.client_contact
+                              WHERE type = 'PHONE' AND value = :phone)
+                    OR EXISTS(SELECT 1 FROM client_service.client_contact
+                              WHERE type = 'EMAIL' AND value = :email)
+                    """)
+    boolean existsByLoginOrPhoneOrEmail(String login, String phone, String email);
 
     /**
-     * метод, удаляющий email у клиента по его id
+     * метод, увеличивающий версию клиента после изменения его контактов, если версия не изменилась
+     * с момента чтения клиента
      * @param id - идентификатор клиента
-     * @param email - email
+     * @param version - версия клиента, на которой проверялись контакты
+     * @return int - количество обновленных строк (0, если клиент изменился после чтения)
      */
     @Modifying
     @Query(nativeQuery = true, value = """
             UPDATE client_service.client
-            SET emails = array_remove(emails, :email)
-            WHERE id = :id
-            """)
-    void deleteClientEmail(Integer id, String email);
-
-    /**
-     * метод, удаляющий номер телефона у клиента по его id
-     * @param id - идентификатор клиента
-     * @param phone - номер телефона
-     */
-    @Modifying
-    @Query(nativeQuery = true, value = """
-            UPDATE client_service.client 
-            SET phone_numbers = array_remove(phone_numbers, :phone)
+            SET version = version + 1
             WHERE id = :id
+            AND version = :version
             """)
-    void deleteClientPhone(Integer id, String phone);
+    int incrementVersion(Integer id, long version);
 
     /**
      * метод, возвращающий клиента по его login
@@ -176,41 +76,79 @@ public interface ClientRepository extends JpaRepository<Client, Integer> {
     Optional<Client> findClientByLogin(String login);
 
     /**
-     * метод, возвращающий клиентов по дате рождения позже указанной и сортирующий по нему
+     * метод, возвращающий клиентов по дате рождения позже указанной и сортирующий по ней и по id
      * @param pageable - объект Pageable
      * @param birthDate - дата рождения
      * @return Page<Client> - клиенты
      */
-    Slice<Client> findByBirthDateAfterOrderByBirthDate(Pageable pageable, LocalDate birthDate);
+    Slice<Client> findByBirthDateAfterOrderByBirthDateAscIdAsc(Pageable pageable, LocalDate birthDate);
 
     /**
-     * метод, возвращающий клиента по номеру телефона
+     * метод, возвращающий следующую страницу клиентов по дате рождения позже указанной (keyset пагинация):
+     * клиенты после последнего клиента предыдущей страницы в порядке (birth_date, id). Сравнение строк
+     * начинает просмотр индекса (birth_date, id) сразу с нужной позиции, поэтому стоимость не зависит от номера страницы
+     * @param pageable - объект Pageable (размер страницы, смещение 0)
+     * @param birthDate - дата рождения
+     * @param lastBirthDate - дата рождения последнего клиента предыдущей страницы
+     * @param lastId - id последнего клиента предыдущей страницы
+     * @return Slice<Client> - клиенты
+     */
+    @Query(nativeQuery = true, value = """
+                    SELECT * FROM client_service.client
+                    WHERE birth_date > :birthDate
+                    AND (birth_date, id) > (:lastBirthDate, :lastId)
+                    ORDER BY birth_date, id
+                    """)
+    Slice<Client> findByBirthDateAfterSeek(Pageable pageable, LocalDate birthDate, LocalDate lastBirthDate, Integer lastId);
+
+    /**
+     * метод, возвращающий клиента по номеру телефона (поиск по уникальному индексу client_contact)
      * @param phone - номер телефона
      * @return Optional<Client> - объект Client
      */
     @Query(nativeQuery = true, value = """
-                    SELECT * FROM client_service.client, unnest(phone_numbers) AS pn
-                    WHERE pn = :phone
+                    SELECT c.* FROM client_service.client c
+                    JOIN client_service.client_contact cc ON cc.client_id = c.id
+                    WHERE cc.type = 'PHONE' AND cc.value = :phone
                     """)
     Slice<Client> findClientsByPhone(Pageable pageable, String phone);
 
     /**
-     * метод, возвращающий клиентов по схожим фио (не учитывая регистр) и сортирующий по нему
+     * метод, возвращающий клиентов по схожим фио (не учитывая регистр) и сортирующий по нему и по id
      * @param pageable - объект Pageable
      * @param fio - фио клиента
      * @return Page<Client> - клиенты
      */
-    Slice<Client> findByFioContainingIgnoreCaseOrderByFio(Pageable pageable, String fio);
+    Slice<Client> findByFioContainingIgnoreCaseOrderByFioAscIdAsc(Pageable pageable, String fio);
+
+    /**
+     * метод, возвращающий следующую страницу клиентов по схожим фио (keyset пагинация): клиенты после
+     * последнего клиента предыдущей страницы в порядке (fio, id), просмотр индекса (fio, id) начинается
+     * сразу с нужной позиции
+     * @param pageable - объект Pageable (размер страницы, смещение 0)
+     * @param fio - фио клиента
+     * @param lastFio - фио последнего клиента предыдущей страницы
+     * @param lastId - id последнего клиента предыдущей страницы
+     * @return Slice<Client> - клиенты
+     */
+    @Query(nativeQuery = true, value = """
+                    SELECT * FROM client_service.client
+                    WHERE strpos(lower(fio), lower(:fio)) > 0
+                    AND (fio, id) > (:lastFio, :lastId)
+                    ORDER BY fio, id
+                    """)
+    Slice<Client> findByFioContainingSeek(Pageable pageable, String fio, String lastFio, Integer lastId);
 
     /**
-     * метод, возвращающий клиента по его email
+     * метод, возвращающий клиента по его email (поиск по уникальному индексу client_contact)
      * @param email - email
      * @return Optional<Client> - объект Client
      */
     @Query(nativeQuery = true,
             value = """
-                    SELECT * FROM client_service.client, unnest(emails) AS em
-                    WHERE em = :email
+                    SELECT c.* FROM client_service.client c
+                    JOIN client_service.client_contact cc ON cc.client_id = c.id
+                    WHERE cc.type = 'EMAIL' AND cc.value = :email
                     """)
     Slice<Client> findClientsByEmail(Pageable pageable, String email);
 }
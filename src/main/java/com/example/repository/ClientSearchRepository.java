@@ -0,0 +1,19 @@
+package com.example.repository;
+
+import com.example.dto.ClientSearchFilter;
+import com.example.entity.Client;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+/**
+ * Фрагмент ClientRepository для поиска клиентов по комбинации фильтров
+ */
+public interface ClientSearchRepository {
+    /**
+     * метод, возвращающий клиентов, удовлетворяющих всем заданным фильтрам, согласно пагинации
+     * @param filter - фильтры поиска
+     * @param pageable - объект Pageable (номер страницы, размер и сортировка)
+     * @return Slice<Client> - клиенты
+     */
+    Slice<Client> search(ClientSearchFilter filter, Pageable pageable);
+}
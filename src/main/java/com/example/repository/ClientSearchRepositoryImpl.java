@@ -0,0 +1,118 @@
+package com.example.repository;
+
+import com.example.dto.ClientSearchFilter;
+import com.example.entity.Client;
+import com.example.entity.ClientContact;
+import com.example.entity.ContactType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Реализация поиска клиентов одним запросом (Criteria API): каждый заданный фильтр добавляет условие,
+ * которое обслуживает свой индекс - диапазон по birth_date, префикс по lower(fio) (varchar_pattern_ops),
+ * телефон и email - EXISTS по уникальному индексу client_contact(type, value).
+ * Запрашивается на одну строку больше размера страницы, чтобы определить наличие следующей страницы
+ * без запроса количества
+ */
+@RequiredArgsConstructor
+public class ClientSearchRepositoryImpl implements ClientSearchRepository {
+    private static final char LIKE_ESCAPE = '\\';
+    private final EntityManager entityManager;
+
+    @Override
+    public Slice<Client> search(ClientSearchFilter filter, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Client> query = cb.createQuery(Client.class);
+        Root<Client> client = query.from(Client.class);
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.getBirthDate() != null) {
+            predicates.add(cb.greaterThan(client.get("birthDate"), filter.getBirthDate()));
+        }
+        if (filter.getFio() != null) {
+            predicates.add(cb.like(cb.lower(client.get("fio")),
+                    escapeLike(filter.getFio().toLowerCase(Locale.ROOT)) + "%", LIKE_ESCAPE));
+        }
+        if (filter.getPhone() != null) {
+            predicates.add(cb.exists(getContactQuery(query, client, ContactType.PHONE, filter.getPhone())));
+        }
+        if (filter.getEmail() != null) {
+            predicates.add(cb.exists(getContactQuery(query, client, ContactType.EMAIL, filter.getEmail())));
+        }
+        query.select(client)
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(getOrders(cb, client, pageable.getSort()));
+
+        List<Client> clients = entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+        boolean hasNext = clients.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? clients.subList(0, pageable.getPageSize()) : clients, pageable, hasNext);
+    }
+
+    /**
+     * метод, возвращающий подзапрос наличия контакта у клиента
+     * @param query - основной запрос
+     * @param client - клиент основного запроса
+     * @param type - тип контакта
+     * @param value - контакт
+     * @return Subquery<Long> - подзапрос
+     */
+    private Subquery<Long> getContactQuery(CriteriaQuery<Client> query, Root<Client> client,
+                                           ContactType type, String value) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        Subquery<Long> contactQuery = query.subquery(Long.class);
+        Root<ClientContact> contact = contactQuery.from(ClientContact.class);
+        return contactQuery.select(contact.get("id"))
+                .where(cb.equal(contact.get("type"), type),
+                        cb.equal(contact.get("value"), value),
+                        cb.equal(contact.get("client"), client));
+    }
+
+    /**
+     * метод, возвращающий сортировку запроса. Последним добавляется id, чтобы порядок клиентов
+     * с одинаковыми значениями был одним и тем же на всех страницах
+     * @param cb - CriteriaBuilder
+     * @param client - клиент запроса
+     * @param sort - сортировка
+     * @return List<Order> - сортировка запроса
+     */
+    private List<Order> getOrders(CriteriaBuilder cb, Root<Client> client, Sort sort) {
+        List<Order> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            orders.add(order.isAscending()
+                    ? cb.asc(client.get(order.getProperty()))
+                    : cb.desc(client.get(order.getProperty())));
+        }
+        if (sort.getOrderFor("id") == null) {
+            orders.add(cb.asc(client.get("id")));
+        }
+        return orders;
+    }
+
+    /**
+     * метод, экранирующий спецсимволы LIKE, чтобы префикс искался буквально
+     * @param value - значение
+     * @return String - экранированное значение
+     */
+    private String escapeLike(String value) {
+        return value.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.repository;
+
+import com.example.entity.EngineCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+/**
+ * Repository для работы с контрольной точкой движка переводов в памяти
+ */
+public interface EngineCheckpointRepository extends JpaRepository<EngineCheckpoint, Integer> {
+}
@@ -0,0 +1,83 @@
+package com.example.repository;
+
+import com.example.entity.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Optional;
+
+/**
+ * Repository для работы с ключами идемпотентности переводов
+ */
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, Long> {
+    /**
+     * метод, который ищет ключ идемпотентности клиента
+     * @param clientId - идентификатор клиента
+     * @param idempotencyKey - ключ идемпотентности
+     * @return Optional<IdempotencyKey> - ключ идемпотентности
+     */
+    Optional<IdempotencyKey> findByClientIdAndIdempotencyKey(Integer clientId, String idempotencyKey);
+
+    /**
+     * метод, регистрирующий ключ идемпотентности в текущей транзакции. Ключ с истекшим сроком
+     * хранения регистрируется заново. Если ключ регистрирует параллельная транзакция, запрос ждет
+     * ее завершения: после фиксации ключ считается занятым, после отката - регистрируется
+     * @param clientId - идентификатор клиента
+     * @param idempotencyKey - ключ идемпотентности
+     * @param requestHash - отпечаток тела запроса
+     * @param ttlMs - срок хранения ключа в миллисекундах
+     * @return int - 1, если ключ зарегистрирован, 0, если ключ уже занят
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            INSERT INTO client_service.transfer_idempotency_key AS k (client_id, idempotency_key, request_hash)
+            VALUES (:clientId, :idempotencyKey, :requestHash)
+            ON CONFLICT (client_id, idempotency_key) DO UPDATE
+            SET request_hash = excluded.request_hash,
+                response = NULL,
+                created_at = now()
+            WHERE k.created_at < now() - :ttlMs * INTERVAL '1 millisecond'
+            """)
+    int claim(Integer clientId, String idempotencyKey, String requestHash, long ttlMs);
+
+    /**
+     * метод, сохраняющий результат запроса с ключом идемпотентности
+     * @param clientId - идентификатор клиента
+     * @param idempotencyKey - ключ идемпотентности
+     * @param response - результат в виде JSON
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            UPDATE client_service.transfer_idempotency_key
+            SET response = :response
+            WHERE client_id = :clientId AND idempotency_key = :idempotencyKey
+            """)
+    void saveResponse(Integer clientId, String idempotencyKey, String response);
+
+    /**
+     * метод, удаляющий ключ идемпотентности, запрос с которым еще не выполнен
+     * @param clientId - идентификатор клиента
+     * @param idempotencyKey - ключ идемпотентности
+     * @param inProgress - результат ключа, запрос с которым выполняется
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            DELETE FROM client_service.transfer_idempotency_key
+            WHERE client_id = :clientId AND idempotency_key = :idempotencyKey
+            AND response = :inProgress
+            """)
+    void deleteInProgress(Integer clientId, String idempotencyKey, String inProgress);
+
+    /**
+     * метод, удаляющий ключи идемпотентности с истекшим сроком хранения
+     * @param ttlMs - срок хранения ключа в миллисекундах
+     * @return int - количество удаленных ключей
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            DELETE FROM client_service.transfer_idempotency_key
+            WHERE created_at < now() - :ttlMs * INTERVAL '1 millisecond'
+            """)
+    int deleteExpired(long ttlMs);
+}
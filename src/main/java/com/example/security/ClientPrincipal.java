@@ -0,0 +1,42 @@
+package com.example.security;
+
+import lombok.Value;
+import org.springframework.security.core.Authentication;
+
+import java.io.Serializable;
+import java.security.Principal;
+import java.util.Optional;
+
+/**
+ * Аутентифицированный клиент, восстановленный из проверенного jwt токена. Содержит id клиента
+ * и id его счета, поэтому обработчикам запросов не нужно искать клиента по логину
+ */
+@Value
+public class ClientPrincipal implements Principal, Serializable {
+    String login;
+    Integer clientId;
+    Integer accountId;
+
+    /**
+     * метод, возвращающий логин клиента
+     * @return String - логин
+     */
+    @Override
+    public String getName() {
+        return login;
+    }
+
+    /**
+     * метод, извлекающий ClientPrincipal из Principal объекта SecurityContext
+     * @param principal - Principal объект из SecurityContext
+     * @return Optional<ClientPrincipal> - клиент, если запрос аутентифицирован jwt токеном с id клиента
+     */
+    public static Optional<ClientPrincipal> from(Principal principal) {
+        if (principal instanceof Authentication
+                && ((Authentication) principal).getPrincipal() instanceof ClientPrincipal) {
+            ClientPrincipal clientPrincipal = (ClientPrincipal) ((Authentication) principal).getPrincipal();
+            return Optional.of(clientPrincipal).filter(client -> client.getClientId() != null);
+        }
+        return Optional.empty();
+    }
+}
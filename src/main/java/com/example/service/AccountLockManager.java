@@ -0,0 +1,140 @@
+package com.example.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Таблица блокировок счетов в памяти процесса: счет клиента отображается на одну из
+ * transfer.local-locks.stripes блокировок (страйпов). Переводы с участием одного счета выстраиваются
+ * в очередь в JVM до открытия транзакции, поэтому в БД конкурирует не больше одной транзакции на счет,
+ * а блокировки строк и повторы из-за конфликтов и взаимных блокировок возникают реже. Блокировки в БД
+ * сохраняются - при нескольких экземплярах приложения корректность обеспечивают они.
+ * Ключ - id клиента: у клиента ровно один счет, а id клиента известен до загрузки счета.
+ * По умолчанию страйп ожидается без ограничения времени, при transfer.local-locks.timeout > 0 - не дольше
+ * timeout мс, после чего операция отклоняется (CannotAcquireLockException).
+ * Время ожидания занятого страйпа публикуется в метрике account.lock.wait с тегом role (sender - страйп
+ * отправителя, recipient - страйп получателя), количество ожиданий - счетчик этой метрики
+ */
+@Service
+public class AccountLockManager {
+    public static final String ACCOUNT_IS_BUSY = "Счет занят другими переводами, повторите запрос";
+    private static final String WAIT_METER = "account.lock.wait";
+    private static final String SENDER = "sender";
+    private static final String RECIPIENT = "recipient";
+    private final Map<String, Timer> waitTimers;
+    private final boolean enabled;
+    private final long timeout;
+    private final ReentrantLock[] stripes;
+
+    public AccountLockManager(MeterRegistry meterRegistry,
+                              @Value("${transfer.local-locks.enabled:true}") boolean enabled,
+                              @Value("${transfer.local-locks.stripes:1024}") int stripes,
+                              @Value("${transfer.local-locks.timeout:0}") long timeout) {
+        this.waitTimers = Map.of(
+                SENDER, meterRegistry.timer(WAIT_METER, "role", SENDER),
+                RECIPIENT, meterRegistry.timer(WAIT_METER, "role", RECIPIENT));
+        this.enabled = enabled;
+        this.timeout = timeout;
+        this.stripes = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * метод, выполняющий операцию под блокировками счетов отправителя и получателей. Страйпы захватываются
+     * в порядке возрастания номера, поэтому встречные операции не блокируют друг друга навсегда, а страйп,
+     * общий для нескольких счетов, захватывается один раз.
+     * Операция должна сама открывать и фиксировать транзакцию, чтобы блокировки удерживались до фиксации
+     * @param senderClientId - идентификатор клиента-отправителя
+     * @param recipientClientIds - идентификаторы клиентов-получателей
+     * @param action - операция
+     * @return T - результат операции
+     */
+    public <T> T execute(Integer senderClientId, Collection<Integer> recipientClientIds, Supplier<T> action) {
+        if (!enabled) {
+            return action.get();
+        }
+
+        TreeMap<Integer, String> stripeRoles = new TreeMap<>();
+        recipientClientIds.forEach(clientId -> stripeRoles.put(getStripeIndex(clientId), RECIPIENT));
+        stripeRoles.put(getStripeIndex(senderClientId), SENDER);
+        int locked = 0;
+        try {
+            for (Map.Entry<Integer, String> stripeRole : stripeRoles.entrySet()) {
+                lock(stripes[stripeRole.getKey()], waitTimers.get(stripeRole.getValue()));
+                locked++;
+            }
+            return action.get();
+        } finally {
+            for (Integer stripeIndex : stripeRoles.keySet()) {
+                if (locked-- == 0) {
+                    break;
+                }
+                stripes[stripeIndex].unlock();
+            }
+        }
+    }
+
+    /**
+     * метод, выполняющий операцию без результата под блокировками счетов отправителя и получателя
+     * @param senderClientId - идентификатор клиента-отправителя
+     * @param recipientClientId - идентификатор клиента-получателя
+     * @param action - операция
+     */
+    public void run(Integer senderClientId, Integer recipientClientId, Runnable action) {
+        execute(senderClientId, List.of(recipientClientId), () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * метод, возвращающий номер страйпа счета клиента
+     * @param clientId - идентификатор клиента
+     * @return int - номер страйпа
+     */
+    int getStripeIndex(Integer clientId) {
+        return Math.floorMod(clientId, stripes.length);
+    }
+
+    /**
+     * метод, захватывающий страйп (не дольше timeout мс, если таймаут задан). Если страйп занят,
+     * время ожидания записывается в метрику
+     * @param stripe - страйп
+     * @param waitTimer - метрика ожидания
+     */
+    private void lock(ReentrantLock stripe, Timer waitTimer) {
+        if (stripe.tryLock()) {
+            return;
+        }
+        long startedAt = System.nanoTime();
+        boolean locked;
+        try {
+            if (timeout > 0) {
+                locked = stripe.tryLock(timeout, TimeUnit.MILLISECONDS);
+            } else {
+                stripe.lockInterruptibly();
+                locked = true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            locked = false;
+        }
+        waitTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        if (!locked) {
+            throw new CannotAcquireLockException(ACCOUNT_IS_BUSY);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.service;
+
+/**
+ * Режимы начисления процентов на счета клиентов
+ */
+public enum AccrualMode {
+    /**
+     * загрузка всех счетов в persistence context и обновление каждой сущности по отдельности
+     */
+    ENTITY,
+    /**
+     * начисление одним set-based UPDATE запросом на стороне БД
+     */
+    SQL,
+    /**
+     * обход счетов порциями по id (keyset-пагинация), каждая порция в отдельной транзакции
+     */
+    CHUNKED,
+    /**
+     * параллельная обработка диапазонов id счетов на выделенном ограниченном пуле потоков,
+     * каждый диапазон обходится порциями как в режиме CHUNKED
+     */
+    PARTITIONED,
+    /**
+     * кластерное начисление: запуск разбивается на единицы работы (диапазоны id счетов),
+     * которые узлы захватывают через SELECT ... FOR UPDATE SKIP LOCKED, поэтому каждый счет
+     * получает начисление ровно один раз за запуск независимо от количества узлов
+     */
+    CLUSTER,
+    /**
+     * периодическое начисление отключено: в счете хранится баланс на момент accrued_at,
+     * текущий баланс вычисляется при чтении и фиксируется только при переводе средств
+     */
+    LAZY
+}
@@ -1,20 +1,35 @@
 package com.example.service;
 
-import com.example.entity.Client;
+import com.example.engine.InMemoryAccountEngine;
+import com.example.entity.AccountEntry;
+import com.example.entity.AccountEntryType;
 import com.example.entity.ClientAccount;
+import com.example.entity.IdempotencyKey;
+import com.example.repository.AccountEntryRepository;
 import com.example.repository.ClientAccountRepository;
 import com.example.dto.*;
 import com.example.http.exception.ClientAccountException;
+import com.example.money.Money;
+import com.example.provider.BalanceProvider;
+import com.example.util.RequestHashUtil;
+import com.fasterxml.jackson.core.type.TypeReference;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.scheduling.annotation.Async;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.util.*;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 /**
  * Сервис по работе со счетом клиента
@@ -24,100 +39,475 @@ import java.util.*;
 @Transactional(readOnly = true)
 public class ClientAccountService {
     public static final String ACCOUNT_IS_NOT_FOUND = "Счет у клиента не найден";
-    private static final String LOG_PATTERN = "clientId - {}, current balance - {}";
-    private static final BigDecimal balanceRaiseLimit = new BigDecimal(207);
-    private static final BigDecimal coefficient = new BigDecimal(1.05);
-    private static final BigDecimal hundred = new BigDecimal(100);
+    public static final String AMOUNT_IS_TOO_SMALL = "Сумма перевода меньше 0.01";
+    public static final String SELF_TRANSFER = "Перевод на собственный счет невозможен";
+    public static final String INSUFFICIENT_FUNDS = "На счету недостаточно средств";
+    private static final String ENGINE_IN_TRANSACTION
+            = "transfer.mode=ENGINE transfers are executed outside of a transaction, see transferMoneyByEngine";
+    private static final TypeReference<List<TransferResultDto>> TRANSFER_RESULTS = new TypeReference<>() {
+    };
     private final ClientAccountRepository repository;
     private final ClientService clientService;
-    private Map<Integer, BigDecimal> clientAccIdToLimitBalanceMap;
+    private final BalanceProvider balanceProvider;
+    private final IdempotencyService idempotencyService;
+    private final HotAccountService hotAccountService;
+    private final AccountEntryRepository accountEntryRepository;
+    private final ObjectProvider<InMemoryAccountEngine> accountEngine;
+    private final TransferMode transferMode;
 
     public ClientAccountService(ClientAccountRepository repository,
-                                ClientService clientService) {
+                                ClientService clientService,
+                                BalanceProvider balanceProvider,
+                                IdempotencyService idempotencyService,
+                                HotAccountService hotAccountService,
+                                AccountEntryRepository accountEntryRepository,
+                                ObjectProvider<InMemoryAccountEngine> accountEngine,
+                                @Value("${transfer.mode:SQL}") TransferMode transferMode) {
         this.repository = repository;
+        this.accountEntryRepository = accountEntryRepository;
+        this.accountEngine = accountEngine;
         this.clientService = clientService;
-        clientAccIdToLimitBalanceMap = new HashMap<>();
-        initClientAccounts();
+        this.balanceProvider = balanceProvider;
+        this.idempotencyService = idempotencyService;
+        this.hotAccountService = hotAccountService;
+        this.transferMode = transferMode;
     }
 
     /**
-     * метод, инициализирующий мапу, где ключом является id счета клиента,
-     * а значением - максимальный баланс счета, больше которого увеличение
-     * баланса невозможно (т.е. 207% от начального депозита)
+     * метод, осуществляющий перевод денежных средств с одного счета на другой.
+     * Клиент-отправитель ищется по логину
+     *
+     * @param senderLogin      - логин клиента-отправителя денежных средств
+     * @param transferMoneyDto - dto-объект, содержащий информацию необходимую для перевода денежных средств
      */
-    private void initClientAccounts() {
-        List<ClientAccount> clientAccounts = repository.findAll();
-        clientAccounts.stream().forEach(account -> {
-                    clientAccIdToLimitBalanceMap.put(account.getId(), account.getBalance()
-                            .multiply(balanceRaiseLimit)
-                            .divide(hundred));
-                    log.info(LOG_PATTERN, account.getClient().getId(),
-                            account.getBalance().setScale(2, RoundingMode.HALF_UP));
-                }
-        );
+    @Transactional
+    public void transferMoney(String senderLogin, TransferMoneyDto transferMoneyDto) {
+        transferMoney(clientService.getClientByLogin(senderLogin).getId(), transferMoneyDto);
     }
 
     /**
-     * метод, увеличиваюший баланс каждого клиента на 5% раз в минуту
+     * метод, осуществляющий перевод денежных средств с одного счета на другой.
+     * Сумма перевода округляется до копеек (HALF_UP) при десериализации. Способ перевода
+     * определяется свойством transfer.mode (см. TransferMode), в режиме ENGINE перевод выполняет
+     * transferMoneyByEngine вне транзакции
+     *
+     * @param senderClientId   - идентификатор клиента-отправителя денежных средств
+     * @param transferMoneyDto - dto-объект, содержащий информацию необходимую для перевода денежных средств
      */
     @Transactional
-    @Scheduled(fixedRateString = "${scheduler.interval}", initialDelayString = "${scheduler.interval}")
-    @Async
-    public void accrueInterestToClients() {
-        List<ClientAccount> clientAccounts = repository.findAll();
-        if (!clientAccounts.isEmpty()) {
-            clientAccounts.forEach(account -> {
-                if (clientAccIdToLimitBalanceMap.containsKey(account.getId())) {
-                    BigDecimal newBalance = account.getBalance().multiply(coefficient);
-                    if (clientAccIdToLimitBalanceMap.get(account.getId()).compareTo(newBalance) == 1) {
-                        account.setBalance(newBalance);
-                        log.info(LOG_PATTERN, account.getClient().getId(),
-                                account.getBalance().setScale(2, RoundingMode.HALF_UP));
-                    }
-                } else {
-                    BigDecimal maxBalance = account.getBalance().multiply(balanceRaiseLimit).divide(hundred);
-                    account.setBalance(account.getBalance().multiply(coefficient));
-                    clientAccIdToLimitBalanceMap.put(account.getId(), maxBalance);
-                    log.info(LOG_PATTERN, account.getClient().getId(),
-                            account.getBalance().setScale(2, RoundingMode.HALF_UP));
-                }
-            });
-        }
-    }
-
-    /**
-     * метод, осуществляющий перевод денежных средств с одного счета на другой
+    public void transferMoney(Integer senderClientId, TransferMoneyDto transferMoneyDto) {
+        Money amount = transferMoneyDto.getAmount();
+        if (!amount.isPositive()) {
+            throw new ClientAccountException(AMOUNT_IS_TOO_SMALL);
+        }
+
+        TransferMode mode = getTransferMode();
+        if (mode == TransferMode.SQL) {
+            transferMoneyBySql(senderClientId, transferMoneyDto.getRecipientId(), amount);
+        } else if (mode == TransferMode.LEDGER) {
+            transferMoneyByLedger(senderClientId, transferMoneyDto.getRecipientId(), amount);
+        } else if (mode == TransferMode.ENGINE) {
+            throw new IllegalStateException(ENGINE_IN_TRANSACTION);
+        } else {
+            transferMoneyWithLocks(senderClientId, transferMoneyDto.getRecipientId(), amount);
+        }
+    }
+
+    /**
+     * метод, осуществляющий перевод денежных средств с ключом идемпотентности: если перевод с этим ключом
+     * уже был выполнен, повторный запрос завершается успешно без повторного перевода. Ключ сохраняется
+     * только вместе с выполненным переводом, поэтому отклоненный перевод можно повторить
      *
-     * @param senderLogin      - логин клиента-отправителя денежных средств
+     * @param senderClientId   - идентификатор клиента-отправителя денежных средств
      * @param transferMoneyDto - dto-объект, содержащий информацию необходимую для перевода денежных средств
+     * @param idempotencyKey   - ключ идемпотентности (null, если запрос не идемпотентный)
      */
     @Transactional
-    public void transferMoney(String senderLogin, TransferMoneyDto transferMoneyDto) {
-        Client senderClient = clientService.getClientByLogin(senderLogin);
+    public void transferMoney(Integer senderClientId, TransferMoneyDto transferMoneyDto, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            transferMoney(senderClientId, transferMoneyDto);
+            return;
+        }
 
-        ClientAccount senderClientAccount = repository
-                .findClientAccountByClientId(senderClient.getId())
-                .orElseThrow(() -> new ClientAccountException(ACCOUNT_IS_NOT_FOUND));
+        String requestHash = RequestHashUtil.getRequestHash(transferMoneyDto);
+        if (idempotencyService.claim(senderClientId, idempotencyKey, requestHash).isEmpty()) {
+            transferMoney(senderClientId, transferMoneyDto);
+            idempotencyService.complete(senderClientId, idempotencyKey, requestHash, null);
+        }
+    }
 
-        ClientAccount recipientClientAccount = repository
-                .findClientAccountByClientId(transferMoneyDto.getRecipientId())
-                .orElseThrow(() -> new ClientAccountException(ACCOUNT_IS_NOT_FOUND));
+    /**
+     * метод, возвращающий, выполняются ли переводы движком в памяти (режим перевода ENGINE).
+     * Такие переводы выполняются методами transferMoneyByEngine и transferMoneyGroupByEngine
+     * @return boolean - выполняются ли переводы движком
+     */
+    public boolean isEngineMode() {
+        return getTransferMode() == TransferMode.ENGINE;
+    }
 
-        BigDecimal amountAsBigDecimal = new BigDecimal(transferMoneyDto.getAmount());
-        BigDecimal senderBalance = senderClientAccount.getBalance();
-        BigDecimal recipientBalance = recipientClientAccount.getBalance();
+    /**
+     * метод, осуществляющий перевод денежных средств движком в памяти. Перевод ждет сброса записи WAL
+     * на диск, поэтому выполняется вне транзакции БД, чтобы не удерживать соединение. Ключ идемпотентности
+     * регистрируется в отдельной транзакции до перевода и освобождается, если перевод отклонен. При другой
+     * ошибке неизвестно, записан ли перевод, поэтому ключ остается занятым до истечения срока хранения
+     *
+     * @param senderClientId   - идентификатор клиента-отправителя денежных средств
+     * @param transferMoneyDto - dto-объект, содержащий информацию необходимую для перевода денежных средств
+     * @param idempotencyKey   - ключ идемпотентности (null, если запрос не идемпотентный)
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void transferMoneyByEngine(Integer senderClientId, TransferMoneyDto transferMoneyDto,
+                                      String idempotencyKey) {
+        if (idempotencyKey == null) {
+            transferByEngine(senderClientId, transferMoneyDto);
+            return;
+        }
 
-        if (senderBalance.compareTo(amountAsBigDecimal) >= 0) {
-            senderClientAccount.getAccountLock().writeLock().lock();
-            recipientClientAccount.getAccountLock().writeLock().lock();
+        String requestHash = RequestHashUtil.getRequestHash(transferMoneyDto);
+        if (idempotencyService.claimInProgress(senderClientId, idempotencyKey, requestHash).isPresent()) {
+            return;
+        }
+        try {
+            transferByEngine(senderClientId, transferMoneyDto);
+        } catch (ClientAccountException e) {
+            idempotencyService.release(senderClientId, idempotencyKey);
+            throw e;
+        }
+        idempotencyService.complete(senderClientId, idempotencyKey, requestHash,
+                TransferResultDto.completed(transferMoneyDto));
+    }
 
-            senderClientAccount.setBalance(senderBalance.subtract(amountAsBigDecimal));
-            senderClientAccount.getAccountLock().writeLock().unlock();
+    /**
+     * метод, выполняющий группу переводов движком в памяти вне транзакции БД (см. transferMoneyByEngine).
+     * Если группа с ключом идемпотентности уже была выполнена, возвращаются сохраненные результаты
+     * @param senderClientId - идентификатор клиента-отправителя
+     * @param transfers - переводы в порядке выполнения
+     * @param idempotencyKey - ключ идемпотентности группы (null, если запрос не идемпотентный)
+     * @return List<TransferResultDto> - результаты переводов в том же порядке
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<TransferResultDto> transferMoneyGroupByEngine(Integer senderClientId, List<TransferMoneyDto> transfers,
+                                                              String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return applyTransferGroupByEngine(senderClientId, transfers);
+        }
 
-            recipientClientAccount.setBalance(recipientBalance.add(amountAsBigDecimal));
-            recipientClientAccount.getAccountLock().writeLock().unlock();
-        } else {
-            throw new ClientAccountException("На счету недостаточно средств");
+        String requestHash = RequestHashUtil.getRequestHash(transfers);
+        Optional<IdempotencyKey> completed
+                = idempotencyService.claimInProgress(senderClientId, idempotencyKey, requestHash);
+        if (completed.isPresent()) {
+            return idempotencyService.readResponse(completed.get(), TRANSFER_RESULTS);
+        }
+        List<TransferResultDto> results = applyTransferGroupByEngine(senderClientId, transfers);
+        idempotencyService.complete(senderClientId, idempotencyKey, requestHash, results);
+        return results;
+    }
+
+    /**
+     * метод, переводящий денежные средства движком в памяти
+     * @param senderClientId - идентификатор клиента-отправителя
+     * @param transferMoneyDto - dto-объект, содержащий информацию необходимую для перевода денежных средств
+     */
+    private void transferByEngine(Integer senderClientId, TransferMoneyDto transferMoneyDto) {
+        if (!transferMoneyDto.getAmount().isPositive()) {
+            throw new ClientAccountException(AMOUNT_IS_TOO_SMALL);
+        }
+        accountEngine.getObject().transfer(senderClientId, transferMoneyDto.getRecipientId(),
+                transferMoneyDto.getAmount());
+    }
+
+    /**
+     * метод, переводящий денежные средства одним UPDATE запросом без загрузки сущностей.
+     * На горячий счет средства зачисляются на случайный слот. Если средств на балансе горячего счета
+     * отправителя не хватило, суммы со слотов переносятся в баланс и перевод повторяется.
+     * Причина отказа выясняется дополнительными запросами, только если перевод не состоялся
+     * @param senderClientId - идентификатор клиента-отправителя
+     * @param recipientClientId - идентификатор клиента-получателя
+     * @param amount - сумма перевода
+     */
+    private void transferMoneyBySql(Integer senderClientId, Integer recipientClientId, Money amount) {
+        if (!transferBySql(senderClientId, recipientClientId, amount)
+                && !(sweepSender(senderClientId, recipientClientId)
+                && transferBySql(senderClientId, recipientClientId, amount))) {
+            throw getTransferFailure(senderClientId, recipientClientId);
         }
     }
+
+    /**
+     * метод, выполняющий перевод одним UPDATE запросом на баланс или на слот горячего счета получателя
+     * @param senderClientId - идентификатор клиента-отправителя
+     * @param recipientClientId - идентификатор клиента-получателя
+     * @param amount - сумма перевода
+     * @return boolean - выполнен ли перевод
+     */
+    private boolean transferBySql(Integer senderClientId, Integer recipientClientId, Money amount) {
+        if (hotAccountService.isHot(recipientClientId)) {
+            return hotAccountService.transferToSlot(senderClientId, recipientClientId, amount);
+        }
+        return repository.transferMoney(senderClientId, recipientClientId, amount.toBigDecimal()) == 1;
+    }
+
+    /**
+     * метод, переносящий суммы со слотов горячего счета отправителя в его баланс
+     * @param senderClientId - идентификатор клиента-отправителя
+     * @return boolean - увеличился ли баланс отправителя
+     */
+    private boolean sweepSender(Integer senderClientId) {
+        return hotAccountService.sweep(List.of(senderClientId)) > 0;
+    }
+
+    /**
+     * метод, переносящий суммы со слотов горячего счета отправителя в его баланс перед повторным переводом
+     * одним UPDATE запросом. Строки счетов отправителя и получателя блокируются в порядке возрастания id
+     * до слотов, как и при зачислении на слот (строка отправителя, затем слот получателя). Иначе встречный
+     * перевод на горячий счет отправителя, заблокировавший строку получателя, ждал бы слота, а перевод
+     * с горячего счета, заблокировавший слоты, - строки получателя
+     * @param senderClientId - идентификатор клиента-отправителя
+     * @param recipientClientId - идентификатор клиента-получателя
+     * @return boolean - увеличился ли баланс отправителя или горячего счета получателя
+     */
+    private boolean sweepSender(Integer senderClientId, Integer recipientClientId) {
+        return hotAccountService.isHot(senderClientId)
+                && hotAccountService.sweep(List.of(senderClientId, recipientClientId)) > 0;
+    }
+
+    /**
+     * метод, переводящий денежные средства записью в журнал движений: сумма резервируется на счете
+     * отправителя, и в журнал добавляются списание и зачисление. Строка счета получателя не блокируется,
+     * баланс получателя увеличится после проекции журнала
+     * @param senderClientId - идентификатор клиента-отправителя
+     * @param recipientClientId - идентификатор клиента-получателя
+     * @param amount - сумма перевода
+     */
+    private void transferMoneyByLedger(Integer senderClientId, Integer recipientClientId, Money amount) {
+        BigDecimal decimalAmount = amount.toBigDecimal();
+        if (accountEntryRepository.appendTransfer(senderClientId, recipientClientId, decimalAmount) == 0
+                && !(sweepSender(senderClientId)
+                && accountEntryRepository.appendTransfer(senderClientId, recipientClientId, decimalAmount) > 0)) {
+            throw getTransferFailure(senderClientId, recipientClientId);
+        }
+    }
+
+    /**
+     * метод, выясняющий причину, по которой перевод одним запросом не состоялся
+     * @param senderClientId - идентификатор клиента-отправителя
+     * @param recipientClientId - идентификатор клиента-получателя
+     * @return ClientAccountException - исключение с причиной отказа
+     */
+    private ClientAccountException getTransferFailure(Integer senderClientId, Integer recipientClientId) {
+        if (senderClientId.equals(recipientClientId)) {
+            return new ClientAccountException(SELF_TRANSFER);
+        }
+        if (repository.findClientAccountByClientId(senderClientId).isEmpty()
+                || repository.findClientAccountByClientId(recipientClientId).isEmpty()) {
+            return new ClientAccountException(ACCOUNT_IS_NOT_FOUND);
+        }
+        return new ClientAccountException(INSUFFICIENT_FUNDS);
+    }
+
+    /**
+     * метод, переводящий денежные средства с блокировкой обоих счетов в БД (SELECT ... FOR UPDATE)
+     * в порядке возрастания id, а в режиме OPTIMISTIC - без блокировки с проверкой версий при сохранении.
+     * Суммы со слотов горячих счетов переносятся в баланс до загрузки счетов.
+     * Доступный баланс (без зарезервированной суммы) проверяется уже после загрузки
+     * @param senderClientId - идентификатор клиента-отправителя
+     * @param recipientClientId - идентификатор клиента-получателя
+     * @param amount - сумма перевода
+     */
+    private void transferMoneyWithLocks(Integer senderClientId, Integer recipientClientId, Money amount) {
+        if (senderClientId.equals(recipientClientId)) {
+            throw new ClientAccountException(SELF_TRANSFER);
+        }
+
+        List<Integer> clientIds = List.of(senderClientId, recipientClientId);
+        hotAccountService.sweep(clientIds);
+        List<ClientAccount> lockedAccounts = findAccounts(clientIds);
+        ClientAccount senderClientAccount = getAccountByClientId(lockedAccounts, senderClientId);
+        ClientAccount recipientClientAccount = getAccountByClientId(lockedAccounts, recipientClientId);
+
+        balanceProvider.materialize(senderClientAccount);
+        balanceProvider.materialize(recipientClientAccount);
+
+        if (senderClientAccount.getAvailableBalance().compareTo(amount) <= 0) {
+            throw new ClientAccountException(INSUFFICIENT_FUNDS);
+        }
+
+        senderClientAccount.setBalance(senderClientAccount.getBalance().minus(amount));
+        if (senderClientAccount.isCapped()) {
+            senderClientAccount.setCapped(false);
+            senderClientAccount.setAccruedAt(Instant.now());
+        }
+        recipientClientAccount.setBalance(recipientClientAccount.getBalance().plus(amount));
+    }
+
+    /**
+     * метод, выполняющий группу переводов со счета одного клиента в одной транзакции. Счет отправителя
+     * и счета всех получателей блокируются одним запросом в порядке возрастания id, после чего переводы
+     * применяются по очереди. Отклоненный перевод не отменяет остальные переводы группы.
+     * Если группа с ключом идемпотентности уже была выполнена, возвращаются сохраненные результаты
+     * @param senderClientId - идентификатор клиента-отправителя
+     * @param transfers - переводы в порядке выполнения
+     * @param idempotencyKey - ключ идемпотентности группы (null, если запрос не идемпотентный)
+     * @return List<TransferResultDto> - результаты переводов в том же порядке
+     */
+    @Transactional
+    public List<TransferResultDto> transferMoneyGroup(Integer senderClientId, List<TransferMoneyDto> transfers,
+                                                      String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return applyTransferGroup(senderClientId, transfers);
+        }
+
+        String requestHash = RequestHashUtil.getRequestHash(transfers);
+        Optional<IdempotencyKey> completed = idempotencyService.claim(senderClientId, idempotencyKey, requestHash);
+        if (completed.isPresent()) {
+            return idempotencyService.readResponse(completed.get(), TRANSFER_RESULTS);
+        }
+        List<TransferResultDto> results = applyTransferGroup(senderClientId, transfers);
+        idempotencyService.complete(senderClientId, idempotencyKey, requestHash, results);
+        return results;
+    }
+
+    /**
+     * метод, применяющий группу переводов со счета одного клиента. В режиме перевода LEDGER сумма
+     * резервируется на счете отправителя, а переводы записываются в журнал движений. Баланс отправителя
+     * в этом режиме уменьшает проекция журнала, поэтому и начисление процентов на счет, достигший
+     * максимального баланса, возобновляет она, а не этот метод
+     * @param senderClientId - идентификатор клиента-отправителя
+     * @param transfers - переводы в порядке выполнения
+     * @return List<TransferResultDto> - результаты переводов в том же порядке
+     */
+    private List<TransferResultDto> applyTransferGroup(Integer senderClientId, List<TransferMoneyDto> transfers) {
+        if (getTransferMode() == TransferMode.ENGINE) {
+            throw new IllegalStateException(ENGINE_IN_TRANSACTION);
+        }
+
+        Set<Integer> clientIds = new HashSet<>();
+        clientIds.add(senderClientId);
+        transfers.forEach(transfer -> clientIds.add(transfer.getRecipientId()));
+        hotAccountService.sweep(clientIds);
+
+        Map<Integer, ClientAccount> lockedAccounts = new HashMap<>();
+        for (ClientAccount account : findAccounts(clientIds)) {
+            balanceProvider.materialize(account);
+            lockedAccounts.put(account.getClient().getId(), account);
+        }
+        ClientAccount senderClientAccount = lockedAccounts.get(senderClientId);
+
+        boolean ledger = getTransferMode() == TransferMode.LEDGER;
+        List<AccountEntry> entries = new ArrayList<>();
+        List<TransferResultDto> results = new ArrayList<>(transfers.size());
+        for (TransferMoneyDto transfer : transfers) {
+            ClientAccount recipientClientAccount = lockedAccounts.get(transfer.getRecipientId());
+            Money amount = transfer.getAmount();
+            if (senderClientAccount == null || recipientClientAccount == null) {
+                results.add(TransferResultDto.rejected(transfer, ACCOUNT_IS_NOT_FOUND));
+            } else if (senderClientAccount == recipientClientAccount) {
+                results.add(TransferResultDto.rejected(transfer, SELF_TRANSFER));
+            } else if (!amount.isPositive()) {
+                results.add(TransferResultDto.rejected(transfer, AMOUNT_IS_TOO_SMALL));
+            } else if (senderClientAccount.getAvailableBalance().compareTo(amount) <= 0) {
+                results.add(TransferResultDto.rejected(transfer, INSUFFICIENT_FUNDS));
+            } else if (ledger) {
+                senderClientAccount.setReserved(senderClientAccount.getReserved().plus(amount));
+                entries.add(getTransferEntry(senderClientAccount, recipientClientAccount,
+                        Money.ZERO.minus(amount), AccountEntryType.TRANSFER_DEBIT));
+                entries.add(getTransferEntry(recipientClientAccount, senderClientAccount,
+                        amount, AccountEntryType.TRANSFER_CREDIT));
+                results.add(TransferResultDto.completed(transfer));
+            } else {
+                senderClientAccount.setBalance(senderClientAccount.getBalance().minus(amount));
+                recipientClientAccount.setBalance(recipientClientAccount.getBalance().plus(amount));
+                results.add(TransferResultDto.completed(transfer));
+            }
+        }
+        if (!entries.isEmpty()) {
+            accountEntryRepository.saveAll(entries);
+        }
+
+        if (!ledger && senderClientAccount != null && senderClientAccount.isCapped()
+                && results.stream().anyMatch(result -> result.getStatus() == TransferResultDto.Status.COMPLETED)) {
+            senderClientAccount.setCapped(false);
+            senderClientAccount.setAccruedAt(Instant.now());
+        }
+        return results;
+    }
+
+    /**
+     * метод, выполняющий группу переводов движком переводов в памяти: переводы выполняются по очереди,
+     * отклоненный перевод не отменяет остальные
+     * @param senderClientId - идентификатор клиента-отправителя
+     * @param transfers - переводы в порядке выполнения
+     * @return List<TransferResultDto> - результаты переводов в том же порядке
+     */
+    private List<TransferResultDto> applyTransferGroupByEngine(Integer senderClientId,
+                                                               List<TransferMoneyDto> transfers) {
+        InMemoryAccountEngine engine = accountEngine.getObject();
+        List<TransferResultDto> results = new ArrayList<>(transfers.size());
+        for (TransferMoneyDto transfer : transfers) {
+            if (!transfer.getAmount().isPositive()) {
+                results.add(TransferResultDto.rejected(transfer, AMOUNT_IS_TOO_SMALL));
+                continue;
+            }
+            try {
+                engine.transfer(senderClientId, transfer.getRecipientId(), transfer.getAmount());
+                results.add(TransferResultDto.completed(transfer));
+            } catch (ClientAccountException e) {
+                results.add(TransferResultDto.rejected(transfer, e.getMessage()));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * метод, загружающий счета клиентов для перевода: с блокировкой строк или, в режиме OPTIMISTIC, без нее
+     * @param clientIds - идентификаторы клиентов
+     * @return List<ClientAccount> - счета клиентов, отсортированные по id
+     */
+    private List<ClientAccount> findAccounts(Collection<Integer> clientIds) {
+        return getTransferMode() == TransferMode.OPTIMISTIC
+                ? repository.findAllByClientIdIn(clientIds)
+                : repository.findAllByClientIdInForUpdate(clientIds);
+    }
+
+    /**
+     * метод, возвращающий способ перевода с учетом режима начисления: при режиме LAZY перед списанием
+     * нужно зафиксировать начисленные проценты, поэтому используется PESSIMISTIC (OPTIMISTIC тоже загружает
+     * сущности и фиксирует проценты с проверкой версии, поэтому сохраняется)
+     * @return TransferMode - способ перевода
+     */
+    private TransferMode getTransferMode() {
+        return balanceProvider.isLazy() && transferMode != TransferMode.OPTIMISTIC
+                ? TransferMode.PESSIMISTIC : transferMode;
+    }
+
+    /**
+     * метод, создающий запись журнала движений по переводу
+     * @param account - счет, по которому проходит движение
+     * @param counterparty - счет второй стороны перевода
+     * @param amount - сумма движения (отрицательная для списания)
+     * @param entryType - тип движения
+     * @return AccountEntry - запись журнала движений
+     */
+    private AccountEntry getTransferEntry(ClientAccount account, ClientAccount counterparty, Money amount,
+                                          AccountEntryType entryType) {
+        return AccountEntry.builder()
+                .accountId(account.getId())
+                .counterpartyAccountId(counterparty.getId())
+                .amount(amount)
+                .entryType(entryType)
+                .build();
+    }
+
+    /**
+     * метод, выбирающий из заблокированных счетов счет клиента
+     * @param accounts - заблокированные счета
+     * @param clientId - идентификатор клиента
+     * @return ClientAccount - счет клиента
+     */
+    private ClientAccount getAccountByClientId(List<ClientAccount> accounts, Integer clientId) {
+        return accounts.stream()
+                .filter(account -> clientId.equals(account.getClient().getId()))
+                .findFirst()
+                .orElseThrow(() -> new ClientAccountException(ACCOUNT_IS_NOT_FOUND));
+    }
 }
\ No newline at end of file
@@ -2,35 +2,62 @@ package com.example.service;
 
 import com.example.entity.Client;
 import com.example.entity.ClientAccount;
+import com.example.entity.ContactType;
+import com.example.repository.ClientContactRepository;
 import com.example.repository.ClientRepository;
 import com.example.dto.*;
+import com.example.http.exception.ClientConflictException;
 import com.example.http.exception.ClientException;
 import com.example.mapper.ClientMapper;
-import lombok.RequiredArgsConstructor;
+import com.example.money.Money;
+import com.example.util.InterestUtil;
+import com.example.util.KeysetCursorUtil;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.Optional;
+import java.util.function.Function;
 
 /**
- * Сервис по работе с клиентом
+ * Сервис по работе с клиентом. Контакты клиента хранятся строками client_contact, уникальность контакта
+ * среди всех клиентов обеспечивает уникальный индекс. Контакты проверяются и изменяются в зависимости от
+ * locking.contacts (см. LockingMode): под блокировкой строки клиента или без нее - тогда после изменения
+ * версия клиента увеличивается, только если не изменилась с момента чтения
  */
 @Service
-@RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class ClientService {
+    public static final String CONTACT_IS_TAKEN = "Контакт уже используется";
+    public static final String LAST_EMAIL = "Нельзя удалить последний email";
+    public static final String LAST_PHONE = "Нельзя удалить последний номер телефона";
     private static final String CLIENT_NOT_FOUND = "Клиент не найден ";
     private static final String NF_BY_ID = CLIENT_NOT_FOUND + "по данному id";
     private static final String NF_BY_ID_AND_CONTACT = CLIENT_NOT_FOUND + "по данному id и контакту";
 
     private final ClientRepository repository;
+    private final ClientContactRepository contactRepository;
     private final ClientMapper mapper;
+    private final LockingMode contactsLockingMode;
+
+    public ClientService(ClientRepository repository,
+                         ClientContactRepository contactRepository,
+                         ClientMapper mapper,
+                         @Value("${locking.contacts:PESSIMISTIC}") LockingMode contactsLockingMode) {
+        this.repository = repository;
+        this.contactRepository = contactRepository;
+        this.mapper = mapper;
+        this.contactsLockingMode = contactsLockingMode;
+    }
 
     /**
      * метод, отвечающий за создание клиента и связанного счета в системе
@@ -40,14 +67,18 @@ public class ClientService {
      */
     @Transactional
     public ClientReadDto createClient(ClientCreateEditDto clientDto) {
+        Money deposit = Money.of(clientDto.getBalance());
         ClientAccount clientAccount = ClientAccount.builder()
-                .balance(clientDto.getBalance())
+                .balance(deposit)
+                .deposit(deposit)
+                .limitBalance(InterestUtil.getLimitBalance(deposit))
                 .build();
 
         return Optional.of(clientDto)
                 .map(mapper::dtoToObject)
                 .map((client) -> {
                     clientAccount.setClient(client);
+                    client.getContacts().forEach(contact -> contact.setClient(client));
                     return client;
                 })
                 .map(repository::save)
@@ -62,7 +93,7 @@ public class ClientService {
      * @return boolean - true/false - существует ли такой клиент или нет
      */
     public boolean doesClientExist(ClientCreateEditDto client) {
-        return repository.findClientByLoginOrEmailOrPhone(client.getLogin(), client.getPhone(), client.getEmail());
+        return repository.existsByLoginOrPhoneOrEmail(client.getLogin(), client.getPhone(), client.getEmail());
     }
 
     /**
@@ -73,8 +104,7 @@ public class ClientService {
      */
     @Transactional
     public void addEmailToClient(Integer id, String email) {
-        doesClientExist(id);
-        repository.updateClientEmails(id, email);
+        addContact(id, ContactType.EMAIL, email);
     }
 
     /**
@@ -85,8 +115,7 @@ public class ClientService {
      */
     @Transactional
     public void addPhoneToClient(Integer id, String phone) {
-        doesClientExist(id);
-        repository.updateClientPhoneNumbers(id, phone);
+        addContact(id, ContactType.PHONE, phone);
     }
 
     /**
@@ -97,13 +126,7 @@ public class ClientService {
      */
     @Transactional
     public void changeClientEmail(Integer id, ClientContactsDto clientContactsDto) {
-        checkClientByIdAndEmail(id, clientContactsDto.getReplacedContact());
-
-        repository.updateClientEmails(
-                id,
-                clientContactsDto.getReplacedContact(),
-                clientContactsDto.getNewContact()
-        );
+        changeContact(id, ContactType.EMAIL, clientContactsDto);
     }
 
 
@@ -115,13 +138,7 @@ public class ClientService {
      */
     @Transactional
     public void changeClientPhone(Integer id, ClientContactsDto clientContactsDto) {
-        checkClientByIdAndPhone(id, clientContactsDto.getReplacedContact());
-
-        repository.updateClientPhoneNumbers(
-                id,
-                clientContactsDto.getReplacedContact(),
-                clientContactsDto.getNewContact()
-        );
+        changeContact(id, ContactType.PHONE, clientContactsDto);
     }
 
     /**
@@ -132,12 +149,7 @@ public class ClientService {
      */
     @Transactional
     public void removeClientEmail(Integer id, String email) {
-        checkClientByIdAndEmail(id, email);
-
-        if (repository.countClientEmails(id) == 1) {
-            throw new ClientException("Нельзя удалить последний email");
-        }
-        repository.deleteClientEmail(id, email);
+        removeContact(id, ContactType.EMAIL, email, LAST_EMAIL);
     }
 
     /**
@@ -148,28 +160,28 @@ public class ClientService {
      */
     @Transactional
     public void removeClientPhone(Integer id, String phone) {
-        checkClientByIdAndPhone(id, phone);
-
-        if (repository.countClientPhoneNumbers(id) == 1) {
-            throw new ClientException("Нельзя удалить последний номер телефона");
-        }
-        repository.deleteClientPhone(id, phone);
+        removeContact(id, ContactType.PHONE, phone, LAST_PHONE);
     }
 
     /**
-     * метод, возвращающий клиентов, рожденных позже указанной даты рождения, согласно пагинации
+     * метод, возвращающий клиентов, рожденных позже указанной даты рождения, в порядке (дата рождения, id).
+     * Если передан курсор, страница начинается сразу после клиента из курсора (keyset пагинация),
+     * и ее стоимость не зависит от глубины; иначе используется номер страницы
      *
-     * @param page      - номер страницы/количество пропущенных страниц
+     * @param page      - номер страницы/количество пропущенных страниц (без курсора)
      * @param size      - количество элементов на странице
      * @param birthDate - даты рождения
-     * @return Page<ClientReadDto> - клиенты
+     * @param cursor    - курсор следующей страницы (null для постраничного доступа)
+     * @return Slice<ClientReadDto> - клиенты с курсором следующей страницы
      */
-    public Slice<ClientReadDto> getClientsByBirthDate(int page, int size, LocalDate birthDate) {
-        Pageable pageable = PageRequest.of(page, size);
-        Slice<Client> foundClients = repository.findByBirthDateAfterOrderByBirthDate(pageable, birthDate);
+    public Slice<ClientReadDto> getClientsByBirthDate(int page, int size, LocalDate birthDate, String cursor) {
+        Slice<Client> foundClients = cursor == null
+                ? repository.findByBirthDateAfterOrderByBirthDateAscIdAsc(PageRequest.of(page, size), birthDate)
+                : repository.findByBirthDateAfterSeek(PageRequest.of(0, size), birthDate,
+                        parseBirthDate(KeysetCursorUtil.getKey(cursor)), KeysetCursorUtil.getId(cursor));
         doClientsExist(foundClients);
 
-        return foundClients.map(mapper::objectToDto);
+        return toKeysetSlice(foundClients, client -> client.getBirthDate().toString());
     }
 
     /**
@@ -187,19 +199,23 @@ public class ClientService {
     }
 
     /**
-     * метод, возвращающий клиентов по фио согласно пагинации
+     * метод, возвращающий клиентов по фио в порядке (фио, id). Если передан курсор, страница начинается
+     * сразу после клиента из курсора (keyset пагинация), иначе используется номер страницы
      *
-     * @param page - номер страницы/количество пропущенных страниц
-     * @param size - количество элементов на странице
-     * @param fio  - фио
-     * @return Page<ClientReadDto> - клиенты
+     * @param page   - номер страницы/количество пропущенных страниц (без курсора)
+     * @param size   - количество элементов на странице
+     * @param fio    - фио
+     * @param cursor - курсор следующей страницы (null для постраничного доступа)
+     * @return Slice<ClientReadDto> - клиенты с курсором следующей страницы
      */
-    public Slice<ClientReadDto> getClientsByFio(int page, int size, String fio) {
-        Pageable pageable = PageRequest.of(page, size);
-        Slice<Client> foundClients = repository.findByFioContainingIgnoreCaseOrderByFio(pageable, fio);
+    public Slice<ClientReadDto> getClientsByFio(int page, int size, String fio, String cursor) {
+        Slice<Client> foundClients = cursor == null
+                ? repository.findByFioContainingIgnoreCaseOrderByFioAscIdAsc(PageRequest.of(page, size), fio)
+                : repository.findByFioContainingSeek(PageRequest.of(0, size), fio,
+                        KeysetCursorUtil.getKey(cursor), KeysetCursorUtil.getId(cursor));
         doClientsExist(foundClients);
 
-        return foundClients.map(mapper::objectToDto);
+        return toKeysetSlice(foundClients, Client::getFio);
     }
 
     /**
@@ -216,6 +232,26 @@ public class ClientService {
         return foundClients.map(mapper::objectToDto);
     }
 
+    /**
+     * метод, возвращающий клиентов, удовлетворяющих всем заданным фильтрам, согласно пагинации и сортировке.
+     * Фильтры применяются одним запросом к БД
+     *
+     * @param filter    - фильтры поиска
+     * @param page      - номер страницы/количество пропущенных страниц
+     * @param size      - количество элементов на странице
+     * @param sort      - поле сортировки
+     * @param direction - направление сортировки
+     * @return Slice<ClientReadDto> - клиенты
+     */
+    public Slice<ClientReadDto> searchClients(ClientSearchFilter filter, int page, int size,
+                                              String sort, Sort.Direction direction) {
+        Pageable pageable = PageRequest.of(page, size, Sort.by(direction, sort));
+        Slice<Client> foundClients = repository.search(filter, pageable);
+        doClientsExist(foundClients);
+
+        return foundClients.map(mapper::objectToDto);
+    }
+
     /**
      * метод, получающий клиента по логину
      *
@@ -227,6 +263,35 @@ public class ClientService {
                 .orElseThrow(() -> new ClientException(CLIENT_NOT_FOUND));
     }
 
+    /**
+     * метод, преобразующий клиентов в dto и добавляющий курсор следующей страницы - ключ сортировки
+     * и id последнего клиента
+     *
+     * @param clients - клиенты
+     * @param key     - ключ сортировки
+     * @return KeysetSlice<ClientReadDto> - клиенты с курсором следующей страницы
+     */
+    private KeysetSlice<ClientReadDto> toKeysetSlice(Slice<Client> clients, Function<Client, String> key) {
+        Client last = clients.getContent().get(clients.getNumberOfElements() - 1);
+        String nextCursor = clients.hasNext() ? KeysetCursorUtil.encode(key.apply(last), last.getId()) : null;
+        return new KeysetSlice<>(clients.map(mapper::objectToDto).getContent(),
+                clients.getPageable(), clients.hasNext(), nextCursor);
+    }
+
+    /**
+     * метод, возвращающий дату рождения из курсора
+     *
+     * @param key - значение ключа сортировки из курсора
+     * @return LocalDate - дата рождения
+     */
+    private LocalDate parseBirthDate(String key) {
+        try {
+            return LocalDate.parse(key);
+        } catch (DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, KeysetCursorUtil.INVALID_CURSOR);
+        }
+    }
+
     /**
      * метод, проверяющий, удалось ли найти клиентов или нет
      *
@@ -239,37 +304,110 @@ public class ClientService {
     }
 
     /**
-     * метод, проверяющий, найден лм клиент по данному id или нет
+     * метод, добавляющий контакт клиенту
      *
-     * @param id - идентификатор клиента
+     * @param id    - идентификатор клиента
+     * @param type  - тип контакта
+     * @param value - контакт
+     */
+    private void addContact(Integer id, ContactType type, String value) {
+        Client client = getClientForUpdate(id);
+        checkContactIsFree(type, value);
+
+        contactRepository.insertContact(id, type.name(), value);
+        checkUpdated(client);
+    }
+
+    /**
+     * метод, заменяющий существующий контакт клиента на новый
+     *
+     * @param id                - идентификатор клиента
+     * @param type              - тип контакта
+     * @param clientContactsDto - dto-объект, содержащий информацию о контакте клиента
+     */
+    private void changeContact(Integer id, ContactType type, ClientContactsDto clientContactsDto) {
+        Client client = getClientForUpdate(id);
+        checkContact(id, type, clientContactsDto.getReplacedContact());
+        checkContactIsFree(type, clientContactsDto.getNewContact());
+
+        contactRepository.updateContact(
+                id,
+                type.name(),
+                clientContactsDto.getReplacedContact(),
+                clientContactsDto.getNewContact()
+        );
+        checkUpdated(client);
+    }
+
+    /**
+     * метод, удаляющий контакт клиента, если он не последний контакт этого типа
+     *
+     * @param id          - идентификатор клиента
+     * @param type        - тип контакта
+     * @param value       - контакт
+     * @param lastMessage - сообщение об ошибке при удалении последнего контакта
      */
-    private void doesClientExist(Integer id) {
-        if (!repository.findClientById(id).isPresent()) {
-            throw new ClientException(NF_BY_ID);
+    private void removeContact(Integer id, ContactType type, String value, String lastMessage) {
+        Client client = getClientForUpdate(id);
+        checkContact(id, type, value);
+
+        if (contactRepository.countByClientIdAndType(id, type.name()) == 1) {
+            throw new ClientException(lastMessage);
         }
+        contactRepository.deleteContact(id, type.name(), value);
+        checkUpdated(client);
     }
 
     /**
-     * метод, проверяющий, есть ли клиент по id и email
+     * метод, загружающий клиента перед изменением контактов: в режиме PESSIMISTIC строка клиента
+     * блокируется до конца транзакции, в режиме OPTIMISTIC конкурирующее изменение обнаруживается
+     * по версии клиента в UPDATE запросе
      *
-     * @param id    - id
-     * @param email - email
+     * @param id - идентификатор клиента
+     * @return client - объект клиента
+     */
+    private Client getClientForUpdate(Integer id) {
+        Optional<Client> client = contactsLockingMode == LockingMode.PESSIMISTIC
+                ? repository.findByIdForUpdate(id)
+                : repository.findClientById(id);
+        return client.orElseThrow(() -> new ClientException(NF_BY_ID));
+    }
+
+    /**
+     * метод, проверяющий, есть ли контакт у клиента
+     *
+     * @param id    - идентификатор клиента
+     * @param type  - тип контакта
+     * @param value - контакт
      */
-    private void checkClientByIdAndEmail(Integer id, String email) {
-        if (!repository.findClientByIdAndEmail(id, email).isPresent()) {
+    private void checkContact(Integer id, ContactType type, String value) {
+        if (!contactRepository.existsByClientIdAndTypeAndValue(id, type.name(), value)) {
             throw new ClientException(NF_BY_ID_AND_CONTACT);
         }
     }
 
     /**
-     * метод, проверяющий, есть ли клиент по id и номеру телефона
+     * метод, проверяющий, что контакт не занят ни одним клиентом. Одновременное добавление
+     * одного контакта двумя клиентами отклоняет уникальный индекс client_contact
      *
-     * @param id    - id
-     * @param phone - номер телефона
+     * @param type  - тип контакта
+     * @param value - контакт
      */
-    private void checkClientByIdAndPhone(Integer id, String phone) {
-        if (!repository.findClientByIdAndPhone(id, phone).isPresent()) {
-            throw new ClientException(NF_BY_ID_AND_CONTACT);
+    private void checkContactIsFree(ContactType type, String value) {
+        if (contactRepository.existsByTypeAndValue(type.name(), value)) {
+            throw new ClientConflictException(CONTACT_IS_TAKEN);
+        }
+    }
+
+    /**
+     * метод, проверяющий, что версия клиента не изменилась с момента чтения, и увеличивающий ее:
+     * иначе контакты были проверены на устаревших данных и изменение нужно повторить
+     *
+     * @param client - объект клиента
+     */
+    private void checkUpdated(Client client) {
+        if (repository.incrementVersion(client.getId(), client.getVersion()) == 0) {
+            throw new ObjectOptimisticLockingFailureException(Client.class, client.getId());
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,114 @@
+package com.example.service;
+
+import com.example.entity.ClientAccount;
+import com.example.money.Money;
+import com.example.repository.ClientAccountRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Сервис по работе с горячими счетами - счетами, на которые приходится большая доля переводов.
+ * Счет клиента из transfer.hot-accounts.client-ids разбивается на slots слотов (account_slot):
+ * зачисления распределяются по случайному слоту, не блокируя строку счета, а перед списанием
+ * и начислением процентов суммы со слотов переносятся в баланс. Видимый баланс - сумма баланса и слотов.
+ * Слоты создаются после запуска приложения, а для счета, открытого позже, - при первом зачислении
+ */
+@Service
+@Slf4j
+@Transactional
+public class HotAccountService {
+    private final ClientAccountRepository repository;
+    private final Set<Integer> hotClientIds;
+    private final int slots;
+
+    public HotAccountService(ClientAccountRepository repository,
+                             @Value("${transfer.hot-accounts.client-ids:}") Set<Integer> hotClientIds,
+                             @Value("${transfer.hot-accounts.slots:8}") int slots) {
+        this.repository = repository;
+        this.hotClientIds = Set.copyOf(hotClientIds);
+        this.slots = slots;
+    }
+
+    /**
+     * метод, создающий слоты горячих счетов после запуска приложения
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void splitHotAccounts() {
+        for (Integer clientId : hotClientIds) {
+            int createdSlots = repository.splitAccount(clientId, slots);
+            log.info("hot account of client {} - {} slots, created - {}", clientId, slots, createdSlots);
+        }
+    }
+
+    /**
+     * метод, проверяющий, является ли счет клиента горячим
+     * @param clientId - идентификатор клиента
+     * @return boolean - является ли счет горячим
+     */
+    public boolean isHot(Integer clientId) {
+        return hotClientIds.contains(clientId);
+    }
+
+    /**
+     * метод, переводящий денежные средства на случайный слот горячего счета получателя. Если перевод
+     * не выполнен, потому что у счета получателя еще нет слотов (счет открыт после запуска приложения),
+     * слоты создаются и перевод повторяется
+     * @param senderClientId - идентификатор клиента-отправителя
+     * @param recipientClientId - идентификатор клиента-получателя (горячий счет)
+     * @param amount - сумма перевода
+     * @return boolean - выполнен ли перевод
+     */
+    public boolean transferToSlot(Integer senderClientId, Integer recipientClientId, Money amount) {
+        int slotNo = ThreadLocalRandom.current().nextInt(slots);
+        BigDecimal decimalAmount = amount.toBigDecimal();
+        if (repository.transferMoneyToSlot(senderClientId, recipientClientId, decimalAmount, slotNo) == 1) {
+            return true;
+        }
+        return repository.splitAccount(recipientClientId, slots) > 0
+                && repository.transferMoneyToSlot(senderClientId, recipientClientId, decimalAmount, slotNo) == 1;
+    }
+
+    /**
+     * метод, возвращающий сумму зачислений на слоты горячего счета, еще не перенесенную в баланс.
+     * Для остальных счетов запрос к слотам не выполняется
+     * @param account - счет клиента
+     * @return Money - сумма на слотах
+     */
+    @Transactional(readOnly = true)
+    public Money getSlotMoney(ClientAccount account) {
+        if (!isHot(account.getClient().getId())) {
+            return Money.ZERO;
+        }
+        return Money.of(repository.getSlotBalance(account.getId()));
+    }
+
+    /**
+     * метод, переносящий суммы со слотов в балансы счетов клиентов clientIds, если среди них есть
+     * горячий счет. Счета остаются заблокированными до конца транзакции
+     * @param clientIds - идентификаторы клиентов
+     * @return int - количество счетов, баланс которых увеличился
+     */
+    public int sweep(Collection<Integer> clientIds) {
+        if (clientIds.stream().noneMatch(this::isHot)) {
+            return 0;
+        }
+        return repository.sweepSlots(clientIds);
+    }
+
+    /**
+     * метод, переносящий суммы со всех слотов в балансы счетов (перед начислением процентов)
+     * @return int - количество счетов, баланс которых увеличился
+     */
+    public int sweepAll() {
+        return repository.sweepAllSlots();
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.service;
+
+import com.example.entity.IdempotencyKey;
+import com.example.http.exception.ClientConflictException;
+import com.example.http.exception.IdempotencyKeyReusedException;
+import com.example.repository.IdempotencyKeyRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Сервис, отвечающий за идемпотентность переводов по заголовку Idempotency-Key. Ключ регистрируется
+ * в таблице transfer_idempotency_key в той же транзакции, что и перевод, поэтому результат сохраняется,
+ * только если перевод зафиксирован. Выполненные ключи дополнительно хранятся в in-memory LRU кэше,
+ * чтобы повторные запросы возвращали сохраненный результат без обращения к БД
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+    public static final String KEY_REUSED = "Idempotency-Key уже использован для другого запроса";
+    public static final String REQUEST_IN_PROGRESS = "Запрос с этим Idempotency-Key еще выполняется";
+    /**
+     * результат ключа, зарегистрированного запросом, который выполняется вне транзакции БД
+     */
+    private static final String IN_PROGRESS = "\"IN_PROGRESS\"";
+    private static final TypeReference<Integer> GROUP_SIZE = new TypeReference<>() {
+    };
+    private final IdempotencyKeyRepository repository;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Map<String, IdempotencyKey> cache;
+
+    public IdempotencyService(IdempotencyKeyRepository repository,
+                              ObjectMapper objectMapper,
+                              @Value("${transfer.idempotency.ttl:24h}") Duration ttl,
+                              @Value("${transfer.idempotency.cache-size:10000}") int cacheSize) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<String, IdempotencyKey>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, IdempotencyKey> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * метод, регистрирующий ключ идемпотентности в текущей транзакции или возвращающий ранее
+     * выполненный запрос с этим ключом. Сначала проверяется LRU кэш, затем таблица ключей
+     * @param clientId - идентификатор клиента
+     * @param idempotencyKey - ключ идемпотентности
+     * @param requestHash - отпечаток тела запроса (ключ нельзя использовать для другого запроса)
+     * @return Optional<IdempotencyKey> - ранее выполненный запрос или пустой Optional, если запрос нужно выполнить
+     */
+    @Transactional
+    public Optional<IdempotencyKey> claim(Integer clientId, String idempotencyKey, String requestHash) {
+        IdempotencyKey cached = cache.get(getCacheKey(clientId, idempotencyKey));
+        if (cached != null && cached.getCreatedAt().plus(ttl).isAfter(Instant.now())) {
+            return Optional.of(checkRequestHash(cached, requestHash));
+        }
+
+        if (repository.claim(clientId, idempotencyKey, requestHash, ttl.toMillis()) == 1) {
+            return Optional.empty();
+        }
+        IdempotencyKey stored = repository.findByClientIdAndIdempotencyKey(clientId, idempotencyKey)
+                .orElseThrow(() -> new IllegalStateException("Idempotency key disappeared: " + idempotencyKey));
+        checkRequestHash(stored, requestHash);
+        if (IN_PROGRESS.equals(stored.getResponse())) {
+            throw new ClientConflictException(REQUEST_IN_PROGRESS);
+        }
+        cache.put(getCacheKey(clientId, idempotencyKey), stored);
+        return Optional.of(stored);
+    }
+
+    /**
+     * метод, регистрирующий ключ идемпотентности в отдельной транзакции для запроса, который выполняется
+     * вне транзакции БД (режим перевода ENGINE). До сохранения результата ключ отмечен как выполняющийся:
+     * повторный запрос с этим ключом отклоняется, а не считается выполненным
+     * @param clientId - идентификатор клиента
+     * @param idempotencyKey - ключ идемпотентности
+     * @param requestHash - отпечаток тела запроса
+     * @return Optional<IdempotencyKey> - ранее выполненный запрос или пустой Optional, если запрос нужно выполнить
+     */
+    @Transactional
+    public Optional<IdempotencyKey> claimInProgress(Integer clientId, String idempotencyKey, String requestHash) {
+        Optional<IdempotencyKey> completed = claim(clientId, idempotencyKey, requestHash);
+        if (completed.isEmpty()) {
+            repository.saveResponse(clientId, idempotencyKey, IN_PROGRESS);
+        }
+        return completed;
+    }
+
+    /**
+     * метод, освобождающий ключ, зарегистрированный claimInProgress, если запрос отклонен
+     * и его можно повторить с тем же ключом
+     * @param clientId - идентификатор клиента
+     * @param idempotencyKey - ключ идемпотентности
+     */
+    @Transactional
+    public void release(Integer clientId, String idempotencyKey) {
+        repository.deleteInProgress(clientId, idempotencyKey, IN_PROGRESS);
+    }
+
+    /**
+     * метод, сохраняющий результат запроса с зарегистрированным ключом идемпотентности.
+     * В кэш результат попадает только после фиксации транзакции
+     * @param clientId - идентификатор клиента
+     * @param idempotencyKey - ключ идемпотентности
+     * @param requestHash - отпечаток тела запроса
+     * @param response - результат запроса (null, если у запроса нет тела ответа)
+     */
+    @Transactional
+    public void complete(Integer clientId, String idempotencyKey, String requestHash, Object response) {
+        String json = null;
+        if (response != null) {
+            json = writeResponse(response);
+            repository.saveResponse(clientId, idempotencyKey, json);
+        }
+
+        IdempotencyKey completed = IdempotencyKey.builder()
+                .clientId(clientId)
+                .idempotencyKey(idempotencyKey)
+                .requestHash(requestHash)
+                .response(json)
+                .createdAt(Instant.now())
+                .build();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.put(getCacheKey(clientId, idempotencyKey), completed);
+            }
+        });
+    }
+
+    /**
+     * метод, регистрирующий ключ идемпотентности пакета переводов вместе с размером групп, на которые пакет
+     * разбивается при первом выполнении. При повторе пакета возвращается сохраненный размер групп, поэтому
+     * группы и их ключи совпадают с первым выполнением, даже если transfer.batch.commit-size изменился
+     * @param clientId - идентификатор клиента
+     * @param idempotencyKey - ключ идемпотентности пакета
+     * @param requestHash - отпечаток тела пакета
+     * @param groupSize - размер групп для нового пакета
+     * @return int - размер групп пакета
+     */
+    @Transactional
+    public int claimBatch(Integer clientId, String idempotencyKey, String requestHash, int groupSize) {
+        Optional<IdempotencyKey> claimed = claim(clientId, idempotencyKey, requestHash);
+        if (claimed.isPresent()) {
+            return readResponse(claimed.get(), GROUP_SIZE);
+        }
+        complete(clientId, idempotencyKey, requestHash, groupSize);
+        return groupSize;
+    }
+
+    /**
+     * метод, восстанавливающий сохраненный результат запроса
+     * @param idempotencyKey - ранее выполненный запрос
+     * @param type - тип результата
+     * @return T - результат запроса
+     * @param <T> - тип результата
+     */
+    public <T> T readResponse(IdempotencyKey idempotencyKey, TypeReference<T> type) {
+        try {
+            return objectMapper.readValue(idempotencyKey.getResponse(), type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored response is not readable: " + idempotencyKey.getIdempotencyKey(), e);
+        }
+    }
+
+    /**
+     * метод, удаляющий ключи идемпотентности с истекшим сроком хранения
+     */
+    @Scheduled(fixedRateString = "${transfer.idempotency.cleanup-interval:3600000}")
+    @Transactional
+    public void deleteExpiredKeys() {
+        log.debug("Deleted {} expired idempotency keys", repository.deleteExpired(ttl.toMillis()));
+    }
+
+    /**
+     * метод, проверяющий, что ключ идемпотентности повторно используется для того же запроса
+     * @param idempotencyKey - ранее выполненный запрос
+     * @param requestHash - отпечаток тела текущего запроса
+     * @return IdempotencyKey - ранее выполненный запрос
+     */
+    private IdempotencyKey checkRequestHash(IdempotencyKey idempotencyKey, String requestHash) {
+        if (!idempotencyKey.getRequestHash().equals(requestHash)) {
+            throw new IdempotencyKeyReusedException(KEY_REUSED);
+        }
+        return idempotencyKey;
+    }
+
+    private String writeResponse(Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Response is not serializable", e);
+        }
+    }
+
+    private static String getCacheKey(Integer clientId, String idempotencyKey) {
+        return clientId + ":" + idempotencyKey;
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.service;
+
+import com.example.dto.AccrualChunkDto;
+import com.example.repository.ClientAccountRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Сервис, запускающий начисление процентов на счета клиентов по расписанию
+ * в соответствии с режимом начисления (scheduler.accrual.mode)
+ */
+@Service
+@Slf4j
+@ConditionalOnExpression("${scheduler.enabled:true} and '${scheduler.accrual.mode:SQL}' != 'LAZY'")
+public class InterestAccrualScheduler {
+    private final InterestAccrualService interestAccrualService;
+    private final HotAccountService hotAccountService;
+    private final ClientAccountRepository repository;
+    private final OptimisticLockRetry optimisticLockRetry;
+    private final Executor accrualTaskExecutor;
+    private final Clock clock;
+    private final AccrualMode accrualMode;
+    private final int chunkSize;
+    private final int partitions;
+    private final long interval;
+    private final int unitSize;
+    private final String nodeId;
+    private final boolean catchUpOnStart;
+
+    public InterestAccrualScheduler(InterestAccrualService interestAccrualService,
+                                    HotAccountService hotAccountService,
+                                    ClientAccountRepository repository,
+                                    OptimisticLockRetry optimisticLockRetry,
+                                    @Qualifier("accrualTaskExecutor") Executor accrualTaskExecutor,
+                                    Clock clock,
+                                    @Value("${scheduler.accrual.mode:SQL}") AccrualMode accrualMode,
+                                    @Value("${scheduler.accrual.chunk-size:1000}") int chunkSize,
+                                    @Value("${scheduler.accrual.partitions:4}") int partitions,
+                                    @Value("${scheduler.interval}") long interval,
+                                    @Value("${scheduler.accrual.unit-size:10000}") int unitSize,
+                                    @Value("${scheduler.accrual.node-id:#{T(java.util.UUID).randomUUID()}}") String nodeId,
+                                    @Value("${scheduler.accrual.catch-up-on-start:true}") boolean catchUpOnStart) {
+        this.interestAccrualService = interestAccrualService;
+        this.hotAccountService = hotAccountService;
+        this.repository = repository;
+        this.optimisticLockRetry = optimisticLockRetry;
+        this.accrualTaskExecutor = accrualTaskExecutor;
+        this.clock = clock;
+        this.accrualMode = accrualMode;
+        this.chunkSize = chunkSize;
+        this.partitions = partitions;
+        this.interval = interval;
+        this.unitSize = unitSize;
+        this.nodeId = nodeId;
+        this.catchUpOnStart = catchUpOnStart;
+    }
+
+    /**
+     * метод, начисляющий пропущенные проценты сразу после запуска приложения (например, после простоя),
+     * не дожидаясь первого запуска по расписанию
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Async("accrualSchedulerExecutor")
+    public void accrueMissedInterest() {
+        if (catchUpOnStart) {
+            accrueInterestToClients();
+        }
+    }
+
+    /**
+     * метод, увеличиваюший баланс каждого клиента на 5% раз в минуту. Каждый счет получает проценты
+     * за все интервалы, прошедшие с момента его последнего начисления, поэтому пропущенные или
+     * затянувшиеся запуски догоняются за один проход, а повторный запуск не начисляет проценты дважды.
+     * Перед начислением суммы со слотов горячих счетов переносятся в баланс. В режимах, которые сохраняют
+     * сущности с проверкой версии (ENTITY, CHUNKED, PARTITIONED), транзакция, не зафиксированная из-за
+     * параллельного перевода, повторяется: в режиме ENTITY - целиком, в остальных - только порция
+     */
+    @Scheduled(fixedRateString = "${scheduler.interval}", initialDelayString = "${scheduler.interval}")
+    @Async("accrualSchedulerExecutor")
+    public void accrueInterestToClients() {
+        long start = System.currentTimeMillis();
+        hotAccountService.sweepAll();
+        int updatedAccounts = switch (accrualMode) {
+            case ENTITY -> optimisticLockRetry.execute(OptimisticLockRetry.ACCRUAL,
+                    interestAccrualService::accrueByEntities);
+            case SQL -> interestAccrualService.accrueBySql();
+            case CHUNKED -> accrueRange(0, Integer.MAX_VALUE);
+            case PARTITIONED -> accrueByPartitions();
+            case CLUSTER -> accrueByWorkUnits(clock.millis() / interval);
+            case LAZY -> throw new IllegalStateException("Периодическое начисление отключено в режиме LAZY");
+        };
+        log.info("accrual mode - {}, updated accounts - {}, elapsed - {} ms",
+                accrualMode, updatedAccounts, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * метод, разбивающий диапазон id счетов на partitions частей и обрабатывающий их
+     * параллельно на пуле accrualTaskExecutor
+     * @return int - количество обновленных счетов
+     */
+    private int accrueByPartitions() {
+        Integer minId = repository.findMinId();
+        Integer maxId = repository.findMaxId();
+        if (minId == null) {
+            return 0;
+        }
+
+        long partitionSize = ((long) maxId - minId) / partitions + 1;
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < partitions; i++) {
+            long lowerId = minId - 1L + i * partitionSize;
+            if (lowerId >= maxId) {
+                break;
+            }
+            int partitionLowerId = (int) lowerId;
+            int partitionUpperId = (int) Math.min(lowerId + partitionSize, maxId);
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> accruePartition(partitionLowerId, partitionUpperId), accrualTaskExecutor));
+        }
+
+        return futures.stream()
+                .mapToInt(CompletableFuture::join)
+                .sum();
+    }
+
+    /**
+     * метод, регистрирующий запуск начисления tickNo (если его еще не зарегистрировал другой узел)
+     * и обрабатывающий единицы работы, пока незавершенные единицы не закончатся.
+     * Номер запуска вычисляется по часам accrualClock, поэтому все узлы в пределах одного интервала
+     * работают над одним и тем же запуском
+     * @param tickNo - номер запуска начисления
+     * @return int - количество счетов, обновленных этим узлом
+     */
+    public int accrueByWorkUnits(long tickNo) {
+        interestAccrualService.createWorkUnits(tickNo, unitSize);
+
+        int updatedAccounts = 0;
+        Optional<Integer> unitUpdatedAccounts;
+        while ((unitUpdatedAccounts = interestAccrualService.accrueWorkUnit(nodeId)).isPresent()) {
+            updatedAccounts += unitUpdatedAccounts.get();
+        }
+        return updatedAccounts;
+    }
+
+    /**
+     * метод, обрабатывающий один диапазон id счетов и логирующий время его обработки
+     * @param lowerId - нижняя граница диапазона (не включительно)
+     * @param upperId - верхняя граница диапазона (включительно)
+     * @return int - количество обновленных счетов
+     */
+    private int accruePartition(int lowerId, int upperId) {
+        long start = System.currentTimeMillis();
+        int updatedAccounts = accrueRange(lowerId, upperId);
+        log.info("accrual partition - ({}, {}], updated accounts - {}, elapsed - {} ms",
+                lowerId, upperId, updatedAccounts, System.currentTimeMillis() - start);
+        return updatedAccounts;
+    }
+
+    /**
+     * метод, обходящий счета с id из диапазона (lowerId, upperId] порциями по chunkSize штук
+     * в порядке возрастания id, фиксируя каждую порцию в отдельной транзакции (с повтором порции
+     * при конфликте версий)
+     * @param lowerId - нижняя граница диапазона (не включительно)
+     * @param upperId - верхняя граница диапазона (включительно)
+     * @return int - количество обновленных счетов
+     */
+    private int accrueRange(int lowerId, int upperId) {
+        int updatedAccounts = 0;
+        Integer lastId = lowerId;
+        AccrualChunkDto chunk;
+        do {
+            Integer chunkLowerId = lastId;
+            chunk = optimisticLockRetry.execute(OptimisticLockRetry.ACCRUAL,
+                    () -> interestAccrualService.accrueChunk(chunkLowerId, upperId, chunkSize));
+            updatedAccounts += chunk.getUpdatedAccounts();
+            lastId = chunk.getLastId();
+        } while (chunk.getProcessedAccounts() == chunkSize);
+        return updatedAccounts;
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.service;
+
+import com.example.dto.AccrualChunkDto;
+import com.example.entity.ClientAccount;
+import com.example.provider.BalanceProvider;
+import com.example.repository.AccrualWorkUnitRepository;
+import com.example.repository.ClientAccountRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static com.example.util.InterestUtil.COEFFICIENT;
+
+/**
+ * Сервис, отвечающий за начисление процентов на счета клиентов
+ */
+@Service
+@Slf4j
+@Transactional
+public class InterestAccrualService {
+    private static final String LOG_PATTERN = "clientId - {}, current balance - {}";
+    /**
+     * количество последних запусков начисления, которые хранятся в БД, чтобы опоздавший узел
+     * не зарегистрировал уже обработанный запуск повторно
+     */
+    private static final int TICK_RETENTION = 60;
+    private final ClientAccountRepository repository;
+    private final AccrualWorkUnitRepository workUnitRepository;
+    private final BalanceProvider balanceProvider;
+    private final EntityManager entityManager;
+    private final LedgerProjectionService ledgerProjectionService;
+    private final long interval;
+    private final boolean clearContext;
+    private final TransferMode transferMode;
+
+    public InterestAccrualService(ClientAccountRepository repository,
+                                  AccrualWorkUnitRepository workUnitRepository,
+                                  BalanceProvider balanceProvider,
+                                  EntityManager entityManager,
+                                  LedgerProjectionService ledgerProjectionService,
+                                  @Value("${scheduler.interval}") long interval,
+                                  @Value("${scheduler.accrual.clear-context:true}") boolean clearContext,
+                                  @Value("${transfer.mode:SQL}") TransferMode transferMode) {
+        this.repository = repository;
+        this.workUnitRepository = workUnitRepository;
+        this.balanceProvider = balanceProvider;
+        this.entityManager = entityManager;
+        this.ledgerProjectionService = ledgerProjectionService;
+        this.interval = interval;
+        this.clearContext = clearContext;
+        this.transferMode = transferMode;
+    }
+
+    /**
+     * метод, начисляющий проценты за все пропущенные интервалы, загружая все счета, баланс которых еще
+     * не достиг максимального, в persistence context и обновляя каждую сущность по отдельности
+     * @return int - количество обновленных счетов
+     */
+    public int accrueByEntities() {
+        int updatedAccounts = 0;
+        List<ClientAccount> clientAccounts = repository.findAllByCappedFalseAndAccruedAtLessThanEqual(
+                balanceProvider.getDueAt());
+        for (ClientAccount account : clientAccounts) {
+            if (balanceProvider.accrue(account)) {
+                updatedAccounts++;
+                log.info(LOG_PATTERN, account.getClient().getId(), account.getBalance());
+            }
+        }
+        return updatedAccounts;
+    }
+
+    /**
+     * метод, начисляющий проценты за все пропущенные интервалы порции счетов с id из диапазона
+     * (lastId, upperId] (keyset-пагинация).
+     * Каждая порция выполняется в отдельной транзакции, изменения отправляются в БД
+     * JDBC batch'ами (hibernate.jdbc.batch_size)
+     * @param lastId - id последнего счета из предыдущей порции
+     * @param upperId - максимальный id счета в обрабатываемом диапазоне
+     * @param chunkSize - размер порции
+     * @return AccrualChunkDto - результат обработки порции
+     */
+    public AccrualChunkDto accrueChunk(Integer lastId, Integer upperId, int chunkSize) {
+        List<ClientAccount> clientAccounts = repository.findDueAccounts(
+                lastId, upperId, balanceProvider.getDueAt(), Limit.of(chunkSize));
+        if (clientAccounts.isEmpty()) {
+            return new AccrualChunkDto(lastId, 0, 0);
+        }
+
+        int updatedAccounts = 0;
+        for (ClientAccount account : clientAccounts) {
+            if (balanceProvider.accrue(account)) {
+                updatedAccounts++;
+            }
+        }
+
+        Integer chunkLastId = clientAccounts.get(clientAccounts.size() - 1).getId();
+        if (clearContext) {
+            entityManager.flush();
+            entityManager.clear();
+        }
+        log.debug("accrual chunk - ({}, {}], updated accounts - {}", lastId, chunkLastId, updatedAccounts);
+        return new AccrualChunkDto(chunkLastId, clientAccounts.size(), updatedAccounts);
+    }
+
+    /**
+     * метод, начисляющий каждому клиенту проценты за все пропущенные интервалы одним UPDATE запросом,
+     * не превышая 207% от начального депозита. Счета, которые больше не могут быть увеличены,
+     * помечаются как достигшие максимального баланса и в следующих начислениях не участвуют.
+     * В режиме перевода LEDGER перед начислением журнал проецируется под блокировкой проекции,
+     * а начисления записываются в журнал как уже учтенные движения
+     * @return int - количество обновленных счетов
+     */
+    public int accrueBySql() {
+        if (transferMode == TransferMode.LEDGER) {
+            ledgerProjectionService.projectAll();
+            repository.capAccounts(COEFFICIENT);
+            return repository.accrueInterestWithEntries(COEFFICIENT, interval);
+        }
+        repository.capAccounts(COEFFICIENT);
+        return repository.accrueInterest(COEFFICIENT, interval);
+    }
+
+    /**
+     * метод, регистрирующий запуск начисления с номером tickNo и разбивающий его на единицы работы.
+     * Запуск регистрирует только первый из узлов кластера, остальные узлы получают 0
+     * @param tickNo - номер запуска начисления
+     * @param unitSize - количество id счетов в одной единице работы
+     * @return int - количество созданных единиц работы
+     */
+    public int createWorkUnits(long tickNo, int unitSize) {
+        int createdUnits = workUnitRepository.createWorkUnits(tickNo, unitSize);
+        if (createdUnits > 0) {
+            workUnitRepository.deleteCompletedTicksBefore(tickNo - TICK_RETENTION);
+        }
+        return createdUnits;
+    }
+
+    /**
+     * метод, захватывающий одну незавершенную единицу работы (FOR UPDATE SKIP LOCKED),
+     * увеличивающий баланс счетов из ее диапазона и отмечающий ее завершенной в той же транзакции,
+     * поэтому каждый диапазон обрабатывается ровно одним узлом
+     * @param nodeId - идентификатор узла кластера
+     * @return Optional<Integer> - количество обновленных счетов или Optional.empty(),
+     * если незавершенных единиц работы не осталось
+     */
+    public Optional<Integer> accrueWorkUnit(String nodeId) {
+        return workUnitRepository.claimWorkUnit()
+                .map(unit -> {
+                    repository.capAccountsInRange(COEFFICIENT, unit.getLowerId(), unit.getUpperId());
+                    int updatedAccounts = repository.accrueInterestInRange(
+                            COEFFICIENT, interval, unit.getLowerId(), unit.getUpperId());
+                    unit.setCompletedBy(nodeId);
+                    unit.setCompletedAt(Instant.now());
+                    log.debug("accrual work unit - {}, tick - {}, updated accounts - {}",
+                            unit.getId(), unit.getTickNo(), updatedAccounts);
+                    return updatedAccounts;
+                });
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Сервис, запускающий проекцию журнала движений по расписанию в режиме перевода LEDGER
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnExpression("${scheduler.enabled:true} and '${transfer.mode:SQL}' == 'LEDGER'")
+public class LedgerProjectionScheduler {
+    private final LedgerProjectionService ledgerProjectionService;
+
+    /**
+     * метод, проецирующий журнал порциями, каждая в отдельной транзакции, пока не учтенные записи
+     * не закончатся
+     */
+    @Scheduled(fixedDelayString = "${transfer.ledger.projection-interval:1000}")
+    public void projectEntries() {
+        int updatedAccounts = 0;
+        int updated;
+        while ((updated = ledgerProjectionService.projectBatch()) > 0) {
+            updatedAccounts += updated;
+        }
+        if (updatedAccounts > 0) {
+            log.debug("ledger projection finished, updated accounts - {}", updatedAccounts);
+        }
+    }
+}
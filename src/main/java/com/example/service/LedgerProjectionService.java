@@ -0,0 +1,57 @@
+package com.example.service;
+
+import com.example.repository.AccountEntryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Сервис, переносящий записи журнала движений (account_entry) на балансы счетов клиентов
+ */
+@Service
+@Slf4j
+@Transactional
+public class LedgerProjectionService {
+    /**
+     * ключ advisory-блокировки, под которой выполняется проекция журнала и начисление процентов
+     * в режиме перевода LEDGER: одновременно журнал проецирует только один узел
+     */
+    public static final long PROJECTION_LOCK_KEY = 5_270_016L;
+    private final AccountEntryRepository repository;
+    private final int batchSize;
+
+    public LedgerProjectionService(AccountEntryRepository repository,
+                                   @Value("${transfer.ledger.batch-size:1000}") int batchSize) {
+        this.repository = repository;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * метод, проецирующий на балансы счетов очередную порцию еще не учтенных записей журнала.
+     * Если проекцию уже выполняет другой узел, порция не обрабатывается
+     * @return int - количество обновленных счетов (0, если записей нет или блокировка занята)
+     */
+    public int projectBatch() {
+        if (!repository.tryLock(PROJECTION_LOCK_KEY)) {
+            return 0;
+        }
+        return repository.projectEntries(batchSize);
+    }
+
+    /**
+     * метод, проецирующий все не учтенные записи журнала, ожидая освобождения блокировки проекции.
+     * Блокировка удерживается до конца текущей транзакции
+     * @return int - количество обновлений счетов
+     */
+    public int projectAll() {
+        repository.lock(PROJECTION_LOCK_KEY);
+        int updatedAccounts = 0;
+        int updated;
+        while ((updated = repository.projectEntries(batchSize)) > 0) {
+            updatedAccounts += updated;
+        }
+        log.debug("ledger projected, updated accounts - {}", updatedAccounts);
+        return updatedAccounts;
+    }
+}
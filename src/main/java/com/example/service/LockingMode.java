@@ -0,0 +1,16 @@
+package com.example.service;
+
+/**
+ * Способы блокировки клиента при изменении его контактов
+ */
+public enum LockingMode {
+    /**
+     * клиент загружается через SELECT ... FOR UPDATE, конкурирующие изменения ждут друг друга
+     */
+    PESSIMISTIC,
+    /**
+     * клиент загружается без блокировки, изменение применяется, только если версия строки не изменилась.
+     * Конфликтующее изменение повторяется (см. OptimisticLockRetry)
+     */
+    OPTIMISTIC
+}
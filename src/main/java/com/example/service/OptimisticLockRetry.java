@@ -0,0 +1,92 @@
+package com.example.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Сервис, повторяющий операцию, транзакция которой не была зафиксирована из-за конфликта версий
+ * (оптимистическая блокировка). Перед повтором поток ждет случайное время от 0 до backoff * 2^(n-1) мс,
+ * но не больше max-backoff. Количество конфликтов, повторов и исчерпанных попыток публикуется
+ * в метриках optimistic.lock.conflicts, optimistic.lock.retries и optimistic.lock.exhausted
+ * с тегом operation. Вызывается вне транзакции, чтобы каждая попытка выполнялась в новой транзакции
+ */
+@Slf4j
+@Service
+public class OptimisticLockRetry {
+    public static final String TRANSFER = "transfer";
+    public static final String TRANSFER_GROUP = "transfer-group";
+    public static final String CONTACTS = "contacts";
+    public static final String ACCRUAL = "accrual";
+    private static final String OPERATION_TAG = "operation";
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long backoff;
+    private final long maxBackoff;
+
+    public OptimisticLockRetry(MeterRegistry meterRegistry,
+                               @Value("${locking.retry.max-attempts:5}") int maxAttempts,
+                               @Value("${locking.retry.backoff:5}") long backoff,
+                               @Value("${locking.retry.max-backoff:100}") long maxBackoff) {
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = maxAttempts;
+        this.backoff = backoff;
+        this.maxBackoff = maxBackoff;
+    }
+
+    /**
+     * метод, выполняющий операцию с повторами при конфликте версий
+     * @param operation - название операции (тег метрик)
+     * @param action - операция
+     * @return T - результат операции
+     */
+    public <T> T execute(String operation, Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (OptimisticLockingFailureException e) {
+                meterRegistry.counter("optimistic.lock.conflicts", OPERATION_TAG, operation).increment();
+                if (attempt >= maxAttempts) {
+                    meterRegistry.counter("optimistic.lock.exhausted", OPERATION_TAG, operation).increment();
+                    log.warn("{} is not completed after {} attempts", operation, attempt);
+                    throw e;
+                }
+                meterRegistry.counter("optimistic.lock.retries", OPERATION_TAG, operation).increment();
+                waitBeforeRetry(attempt, e);
+            }
+        }
+    }
+
+    /**
+     * метод, выполняющий операцию без результата с повторами при конфликте версий
+     * @param operation - название операции (тег метрик)
+     * @param action - операция
+     */
+    public void run(String operation, Runnable action) {
+        execute(operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * метод, ожидающий перед повтором случайное время (full jitter), чтобы конфликтующие потоки
+     * не повторяли операцию одновременно
+     * @param attempt - номер неудавшейся попытки
+     * @param conflict - исключение конфликта версий
+     */
+    private void waitBeforeRetry(int attempt, OptimisticLockingFailureException conflict) {
+        long cap = Math.min(maxBackoff, backoff << Math.min(attempt - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(cap + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw conflict;
+        }
+    }
+}
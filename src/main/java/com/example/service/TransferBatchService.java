@@ -0,0 +1,140 @@
+package com.example.service;
+
+import com.example.dto.TransferMoneyDto;
+import com.example.dto.TransferResultDto;
+import com.example.http.exception.ClientAccountException;
+import com.example.http.exception.ClientException;
+import com.example.util.RequestHashUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Сервис, выполняющий пакет переводов одного клиента. Пакет разбивается на группы по
+ * transfer.batch.commit-size переводов, каждая группа выполняется в отдельной транзакции
+ * (ClientAccountService.transferMoneyGroup), поэтому открытие и фиксация транзакции, блокировка
+ * счета отправителя и UPDATE запросы (JDBC batching) разделяются между переводами группы.
+ * Счета группы блокируются в памяти процесса (AccountLockManager) на время транзакции группы
+ */
+@Service
+@Slf4j
+public class TransferBatchService {
+    public static final String GROUP_CONFLICT = "Счета группы переводов изменены параллельными запросами, повторите пакет";
+    public static final String GROUP_LOCK_TIMEOUT = "Счета группы переводов заняты другими переводами, повторите пакет";
+    public static final String GROUP_FAILED = "Группа переводов не выполнена из-за внутренней ошибки";
+    private final ClientAccountService clientAccountService;
+    private final IdempotencyService idempotencyService;
+    private final OptimisticLockRetry optimisticLockRetry;
+    private final AccountLockManager accountLockManager;
+    private final int commitSize;
+
+    public TransferBatchService(ClientAccountService clientAccountService,
+                                IdempotencyService idempotencyService,
+                                OptimisticLockRetry optimisticLockRetry,
+                                AccountLockManager accountLockManager,
+                                @Value("${transfer.batch.commit-size:500}") int commitSize) {
+        this.clientAccountService = clientAccountService;
+        this.idempotencyService = idempotencyService;
+        this.optimisticLockRetry = optimisticLockRetry;
+        this.accountLockManager = accountLockManager;
+        this.commitSize = commitSize;
+    }
+
+    /**
+     * метод, выполняющий пакет переводов со счета клиента senderClientId. Ошибка при фиксации одной
+     * группы не отменяет уже зафиксированные группы: переводы такой группы получают статус FAILED.
+     * Ключ идемпотентности пакета регистрируется вместе с размером групп, а ключи групп вычисляются
+     * из содержимого группы (key#отпечаток позиции и переводов группы), поэтому при повторе пакета
+     * группы совпадают с первым выполнением: уже зафиксированные группы возвращают сохраненные результаты,
+     * а остальные выполняются. Группа, не зафиксированная из-за конфликта версий (режим OPTIMISTIC),
+     * повторяется целиком
+     * @param senderClientId - идентификатор клиента-отправителя
+     * @param transfers - переводы в порядке выполнения
+     * @param idempotencyKey - ключ идемпотентности пакета (null, если запрос не идемпотентный)
+     * @return List<TransferResultDto> - результаты переводов в том же порядке
+     */
+    public List<TransferResultDto> transferMoney(Integer senderClientId, List<TransferMoneyDto> transfers,
+                                                 String idempotencyKey) {
+        long startedAt = System.currentTimeMillis();
+        List<TransferResultDto> results = new ArrayList<>(transfers.size());
+        int groupSize = idempotencyKey == null ? commitSize : idempotencyService.claimBatch(
+                senderClientId, idempotencyKey, RequestHashUtil.getRequestHash(transfers), commitSize);
+        for (int from = 0; from < transfers.size(); from += groupSize) {
+            List<TransferMoneyDto> group = transfers.subList(from, Math.min(from + groupSize, transfers.size()));
+            try {
+                String groupKey = idempotencyKey == null ? null : getGroupKey(idempotencyKey, from, group);
+                results.addAll(transferMoneyGroup(senderClientId, group, groupKey));
+            } catch (RuntimeException e) {
+                String message = getFailureMessage(senderClientId, e);
+                group.forEach(transfer -> results.add(TransferResultDto.failed(transfer, message)));
+            }
+        }
+        log.info("Client {} batch: {} transfers in {} ms",
+                senderClientId, transfers.size(), System.currentTimeMillis() - startedAt);
+        return results;
+    }
+
+    /**
+     * метод, выполняющий группу переводов. Переводы через БД выполняются в транзакции группы под блокировкой
+     * счетов группы в памяти процесса, переводы движком в памяти (режим ENGINE) - вне транзакции и без
+     * блокировок: движок сам упорядочивает переводы по шардам счетов отправителей
+     * @param senderClientId - идентификатор клиента-отправителя
+     * @param group - переводы группы
+     * @param groupKey - ключ идемпотентности группы (null, если запрос не идемпотентный)
+     * @return List<TransferResultDto> - результаты переводов в том же порядке
+     */
+    private List<TransferResultDto> transferMoneyGroup(Integer senderClientId, List<TransferMoneyDto> group,
+                                                       String groupKey) {
+        if (clientAccountService.isEngineMode()) {
+            return clientAccountService.transferMoneyGroupByEngine(senderClientId, group, groupKey);
+        }
+        return optimisticLockRetry.execute(OptimisticLockRetry.TRANSFER_GROUP,
+                () -> accountLockManager.execute(senderClientId,
+                        group.stream().map(TransferMoneyDto::getRecipientId).toList(),
+                        () -> clientAccountService.transferMoneyGroup(senderClientId, group, groupKey)));
+    }
+
+    /**
+     * метод, возвращающий ключ идемпотентности группы: ключ пакета и отпечаток позиции группы в пакете
+     * и ее переводов. Позиция входит в отпечаток, чтобы одинаковые группы пакета не получили один ключ
+     * @param idempotencyKey - ключ идемпотентности пакета
+     * @param from - позиция первого перевода группы в пакете
+     * @param group - переводы группы
+     * @return String - ключ идемпотентности группы
+     */
+    private static String getGroupKey(String idempotencyKey, int from, List<TransferMoneyDto> group) {
+        return idempotencyKey + "#" + RequestHashUtil.getRequestHash(List.of(from, group));
+    }
+
+    /**
+     * метод, возвращающий причину отказа для переводов незафиксированной группы. Клиенту возвращаются
+     * только известные причины (сообщения ClientAccountException и ClientException, например о повторном
+     * использовании ключа идемпотентности, конфликт версий и ожидание блокировки счета дольше таймаута),
+     * текст остальных
+     * ошибок (например, ошибок БД) только логируется
+     * @param senderClientId - идентификатор клиента-отправителя
+     * @param e - ошибка фиксации группы
+     * @return String - причина отказа
+     */
+    private String getFailureMessage(Integer senderClientId, RuntimeException e) {
+        if (e instanceof ClientAccountException || e instanceof ClientException) {
+            log.warn("Transfer group of client {} is rejected: {}", senderClientId, e.getMessage());
+            return e.getMessage();
+        }
+        if (e instanceof OptimisticLockingFailureException) {
+            log.warn("Transfer group of client {} is not committed after retries: {}", senderClientId, e.getMessage());
+            return GROUP_CONFLICT;
+        }
+        if (e instanceof PessimisticLockingFailureException) {
+            log.warn("Transfer group of client {} is not committed: {}", senderClientId, e.getMessage());
+            return GROUP_LOCK_TIMEOUT;
+        }
+        log.error("Transfer group of client {} failed", senderClientId, e);
+        return GROUP_FAILED;
+    }
+}
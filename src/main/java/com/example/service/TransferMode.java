@@ -0,0 +1,38 @@
+package com.example.service;
+
+/**
+ * Режимы перевода денежных средств между счетами клиентов
+ */
+public enum TransferMode {
+    /**
+     * загрузка обоих счетов через SELECT ... FOR UPDATE в порядке возрастания id
+     * и проверка баланса под блокировкой
+     */
+    PESSIMISTIC,
+    /**
+     * загрузка обоих счетов без блокировки и проверка баланса в Java: при сохранении UPDATE проверяет
+     * версию строки (@Version), и если счет успел измениться, транзакция откатывается с
+     * OptimisticLockingFailureException, а перевод повторяется (см. OptimisticLockRetry).
+     * Выгоден при низкой конкуренции за счета, при высокой - повторы стоят дороже ожидания блокировки
+     */
+    OPTIMISTIC,
+    /**
+     * перевод одним UPDATE запросом без загрузки сущностей: успех определяется количеством
+     * обновленных строк, причина отказа выясняется дополнительными запросами только при неудаче.
+     * При режиме начисления LAZY используется PESSIMISTIC, так как перед списанием нужно
+     * зафиксировать начисленные проценты
+     */
+    SQL,
+    /**
+     * перевод записью в журнал движений (account_entry): сумма резервируется на счете отправителя,
+     * строка счета получателя не блокируется. Балансы обновляются фоновой проекцией журнала
+     * (см. LedgerProjectionService). При режиме начисления LAZY используется PESSIMISTIC
+     */
+    LEDGER,
+    /**
+     * перевод в памяти (см. InMemoryAccountEngine): перевод подтверждается после записи в WAL на диске,
+     * балансы в БД обновляются асинхронно. Перевод выполняется вне транзакции БД. Не запускается вместе
+     * с периодическим начислением процентов. При режиме начисления LAZY используется PESSIMISTIC
+     */
+    ENGINE
+}
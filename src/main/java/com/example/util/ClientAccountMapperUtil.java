@@ -0,0 +1,25 @@
+package com.example.util;
+
+import com.example.entity.ClientAccount;
+import com.example.money.Money;
+import com.example.provider.BalanceProvider;
+import com.example.service.HotAccountService;
+import lombok.RequiredArgsConstructor;
+import org.mapstruct.Named;
+import org.springframework.stereotype.Component;
+
+/**
+ * util-класс для работы с ClientAccountMapper
+ */
+@Named("ClientAccountMapperUtil")
+@Component
+@RequiredArgsConstructor
+public class ClientAccountMapperUtil {
+    private final BalanceProvider balanceProvider;
+    private final HotAccountService hotAccountService;
+
+    @Named("getBalance")
+    public Money getBalance(ClientAccount clientAccount){
+        return balanceProvider.getBalance(clientAccount).plus(hotAccountService.getSlotMoney(clientAccount));
+    }
+}
@@ -1,5 +1,8 @@
 package com.example.util;
 
+import com.example.dto.ClientCreateEditDto;
+import com.example.entity.ClientContact;
+import com.example.entity.ContactType;
 import com.example.repository.ClientAccountRepository;
 import com.example.dto.ClientAccountReadDto;
 import com.example.mapper.ClientAccountMapper;
@@ -8,6 +11,9 @@ import org.mapstruct.Named;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * util-класс для работы с ClientMapper
  */
@@ -30,4 +36,12 @@ public class ClientMapperUtil {
                 .map(clientAccountMapper::objectToDto)
                 .orElseThrow();
     }
+
+    @Named("getContacts")
+    public List<ClientContact> getContacts(ClientCreateEditDto clientDto){
+        List<ClientContact> contacts = new ArrayList<>();
+        contacts.add(ClientContact.builder().type(ContactType.PHONE).value(clientDto.getPhone()).build());
+        contacts.add(ClientContact.builder().type(ContactType.EMAIL).value(clientDto.getEmail()).build());
+        return contacts;
+    }
 }
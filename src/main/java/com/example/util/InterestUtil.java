@@ -0,0 +1,68 @@
+package com.example.util;
+
+import com.example.money.Money;
+
+import java.math.BigDecimal;
+
+/**
+ * Util-класс, содержащий правила начисления процентов на счет клиента
+ */
+public class InterestUtil {
+    /**
+     * коэффициент увеличения баланса за один интервал начисления (5%), используется в SQL запросах
+     */
+    public static final BigDecimal COEFFICIENT = new BigDecimal("1.05");
+
+    /**
+     * баланс после одного интервала начисления в процентах от текущего баланса (5%)
+     */
+    public static final long ACCRUAL_PERCENT = 105;
+
+    /**
+     * максимальный баланс в процентах от начального депозита
+     */
+    public static final long BALANCE_RAISE_LIMIT = 207;
+
+    /**
+     * метод, вычисляющий максимальный баланс счета, больше которого увеличение
+     * баланса невозможно (т.е. 207% от начального депозита)
+     * @param deposit - начальный депозит
+     * @return Money - максимальный баланс счета
+     */
+    public static Money getLimitBalance(Money deposit) {
+        return deposit.percent(BALANCE_RAISE_LIMIT);
+    }
+
+    /**
+     * метод, проверяющий, достиг ли баланс максимального, т.е. превысит ли его следующее начисление
+     * @param balance - текущий баланс
+     * @param limitBalance - максимальный баланс счета
+     * @return boolean - достиг ли баланс максимального
+     */
+    public static boolean isCapped(Money balance, Money limitBalance) {
+        return !balance.percent(ACCRUAL_PERCENT).isLessThan(limitBalance);
+    }
+
+    /**
+     * метод, вычисляющий баланс после начисления процентов за periods интервалов.
+     * Как и при ежеминутном начислении, баланс увеличивается на 5% за интервал, пока новый баланс
+     * меньше максимального, и округляется до копеек после каждого интервала. Начисление прекращается,
+     * когда баланс достигает максимального или перестает меняться после округления (балансы меньше 0.10),
+     * поэтому количество итераций ограничено количеством шагов до максимального баланса и не зависит от periods
+     * @param balance - текущий баланс
+     * @param limitBalance - максимальный баланс счета
+     * @param periods - количество интервалов начисления
+     * @return Money - баланс после начисления
+     */
+    public static Money accrue(Money balance, Money limitBalance, long periods) {
+        Money accruedBalance = balance;
+        for (long i = 0; i < periods; i++) {
+            Money newBalance = accruedBalance.percent(ACCRUAL_PERCENT);
+            if (!newBalance.isLessThan(limitBalance) || newBalance.equals(accruedBalance)) {
+                break;
+            }
+            accruedBalance = newBalance;
+        }
+        return accruedBalance;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.util;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Util-класс для курсоров keyset пагинации. Курсор - значение ключа сортировки и id последнего
+ * элемента страницы в base64url, клиент передает его без изменений
+ */
+public class KeysetCursorUtil {
+    public static final String INVALID_CURSOR = "Неверный курсор страницы";
+    private static final char SEPARATOR = ':';
+
+    private KeysetCursorUtil() {
+    }
+
+    /**
+     * метод, кодирующий курсор
+     * @param key - значение ключа сортировки последнего элемента
+     * @param id - id последнего элемента
+     * @return String - курсор
+     */
+    public static String encode(String key, Integer id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((id + String.valueOf(SEPARATOR) + key).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * метод, возвращающий id последнего элемента из курсора
+     * @param cursor - курсор
+     * @return Integer - id
+     */
+    public static Integer getId(String cursor) {
+        String decoded = decode(cursor);
+        try {
+            return Integer.valueOf(decoded.substring(0, decoded.indexOf(SEPARATOR)));
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, INVALID_CURSOR);
+        }
+    }
+
+    /**
+     * метод, возвращающий значение ключа сортировки последнего элемента из курсора
+     * @param cursor - курсор
+     * @return String - значение ключа
+     */
+    public static String getKey(String cursor) {
+        String decoded = decode(cursor);
+        return decoded.substring(decoded.indexOf(SEPARATOR) + 1);
+    }
+
+    private static String decode(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (decoded.indexOf(SEPARATOR) < 1) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, INVALID_CURSOR);
+            }
+            return decoded;
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, INVALID_CURSOR);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Util-класс, содержащий правила округления денежных сумм. Все суммы хранятся с фиксированной
+ * точностью (2 знака после запятой, столбцы NUMERIC(19, 2)), поэтому результат каждой операции
+ * над балансом округляется до копеек
+ */
+public class MoneyUtil {
+    /**
+     * количество знаков после запятой в денежных суммах
+     */
+    public static final int MONEY_SCALE = 2;
+
+    /**
+     * правило округления денежных сумм (совпадает с round() в PostgreSQL для положительных сумм)
+     */
+    public static final RoundingMode MONEY_ROUNDING = RoundingMode.HALF_UP;
+
+    /**
+     * метод, округляющий сумму до копеек
+     * @param amount - сумма
+     * @return BigDecimal - сумма с MONEY_SCALE знаками после запятой
+     */
+    public static BigDecimal toMoney(BigDecimal amount) {
+        return amount.setScale(MONEY_SCALE, MONEY_ROUNDING);
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Util-класс, вычисляющий отпечаток тела запроса для ключей идемпотентности: SHA-256 канонического JSON
+ * (свойства в алфавитном порядке, суммы с двумя знаками после запятой). В отличие от hashCode()
+ * разные запросы не получают одинаковый отпечаток, поэтому повтор ключа с другим телом всегда отклоняется
+ */
+public class RequestHashUtil {
+    private static final ObjectMapper CANONICAL_MAPPER = JsonMapper.builder()
+            .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+            .build();
+
+    private RequestHashUtil() {
+    }
+
+    /**
+     * метод, вычисляющий отпечаток тела запроса
+     * @param request - тело запроса (dto или список dto)
+     * @return String - SHA-256 канонического JSON в виде 64 шестнадцатеричных символов
+     */
+    public static String getRequestHash(Object request) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(CANONICAL_MAPPER.writeValueAsBytes(request)));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Request hash is not computable", e);
+        }
+    }
+}
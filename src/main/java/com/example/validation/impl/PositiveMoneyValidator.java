@@ -0,0 +1,23 @@
+package com.example.validation.impl;
+
+import com.example.money.Money;
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+import jakarta.validation.constraints.Positive;
+
+/**
+ * Валидатор, позволяющий использовать @Positive для Money
+ * (зарегистрирован в META-INF/services/jakarta.validation.ConstraintValidator)
+ */
+public class PositiveMoneyValidator implements ConstraintValidator<Positive, Money> {
+    /**
+     * метод, проверяющий, что сумма больше нуля (null считается валидным, как и для @Positive)
+     * @param value - сумма
+     * @param context - контекст
+     * @return boolean - прошла валидацию или нет
+     */
+    @Override
+    public boolean isValid(Money value, ConstraintValidatorContext context) {
+        return value == null || value.isPositive();
+    }
+}
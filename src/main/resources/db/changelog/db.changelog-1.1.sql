@@ -0,0 +1,14 @@
+--liquibase formatted sql
+
+--changeset agasparyan:4
+ALTER TABLE client_service.client_account
+    ADD COLUMN IF NOT EXISTS deposit NUMERIC CHECK (deposit > 0);
+
+--changeset agasparyan:5
+UPDATE client_service.client_account
+SET deposit = balance
+WHERE deposit IS NULL;
+
+--changeset agasparyan:6
+ALTER TABLE client_service.client_account
+    ALTER COLUMN deposit SET NOT NULL;
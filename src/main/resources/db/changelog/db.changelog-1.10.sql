@@ -0,0 +1,13 @@
+--liquibase formatted sql
+
+--changeset agasparyan:28
+CREATE TABLE IF NOT EXISTS client_service.engine_checkpoint
+(
+    id      INT PRIMARY KEY,
+    wal_seq BIGINT NOT NULL
+);
+
+--changeset agasparyan:29
+INSERT INTO client_service.engine_checkpoint(id, wal_seq)
+VALUES (1, 0)
+ON CONFLICT (id) DO NOTHING;
@@ -0,0 +1,14 @@
+--liquibase formatted sql
+
+--changeset agasparyan:30
+CREATE TABLE IF NOT EXISTS client_service.account_slot
+(
+    account_id INT            NOT NULL REFERENCES client_service.client_account (id) ON DELETE CASCADE,
+    slot_no    INT            NOT NULL,
+    balance    NUMERIC(19, 2) NOT NULL DEFAULT 0 CHECK (balance >= 0),
+    PRIMARY KEY (account_id, slot_no)
+);
+
+--changeset agasparyan:31
+CREATE INDEX IF NOT EXISTS account_slot_nonzero_idx
+    ON client_service.account_slot (account_id) WHERE balance <> 0;
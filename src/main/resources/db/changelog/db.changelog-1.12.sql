@@ -0,0 +1,9 @@
+--liquibase formatted sql
+
+--changeset agasparyan:32
+ALTER TABLE client_service.client_account
+    ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+--changeset agasparyan:33
+ALTER TABLE client_service.client
+    ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,9 @@
+--liquibase formatted sql
+
+--changeset agasparyan:34 runInTransaction:false
+CREATE INDEX CONCURRENTLY IF NOT EXISTS client_phone_numbers_gin_idx
+    ON client_service.client USING GIN (phone_numbers);
+
+--changeset agasparyan:35 runInTransaction:false
+CREATE INDEX CONCURRENTLY IF NOT EXISTS client_emails_gin_idx
+    ON client_service.client USING GIN (emails);
@@ -0,0 +1,80 @@
+--liquibase formatted sql
+
+-- Перенос контактов из массивов client.phone_numbers/emails в таблицу client_contact без остановки записи:
+-- 1) таблица и индексы создаются пустыми;
+-- 2) триггер переносит в таблицу изменения массивов, которые делают экземпляры предыдущей версии
+--    во время обновления;
+-- 3) существующие контакты переносятся пачками по 10000 клиентов, каждая пачка - отдельная транзакция;
+-- 4) массивы получают значение по умолчанию, так как новая версия их не заполняет.
+-- Триггер, массивы и их GIN индексы удаляются следующим релизом, когда не останется экземпляров предыдущей версии
+
+--changeset agasparyan:36
+CREATE TABLE IF NOT EXISTS client_service.client_contact
+(
+    id        BIGSERIAL PRIMARY KEY,
+    client_id INT          NOT NULL REFERENCES client_service.client (id) ON DELETE CASCADE,
+    type      VARCHAR(16)  NOT NULL CHECK (type IN ('PHONE', 'EMAIL')),
+    value     VARCHAR(255) NOT NULL
+);
+
+--changeset agasparyan:37
+CREATE UNIQUE INDEX IF NOT EXISTS client_contact_type_value_idx
+    ON client_service.client_contact (type, value);
+
+--changeset agasparyan:38
+CREATE INDEX IF NOT EXISTS client_contact_client_idx
+    ON client_service.client_contact (client_id, type);
+
+--changeset agasparyan:39 splitStatements:false
+CREATE OR REPLACE FUNCTION client_service.sync_client_contacts() RETURNS TRIGGER AS
+$$
+BEGIN
+    IF TG_OP = 'UPDATE' THEN
+        DELETE
+        FROM client_service.client_contact cc
+        WHERE cc.client_id = NEW.id
+          AND ((cc.type = 'PHONE' AND cc.value = ANY (OLD.phone_numbers) AND NOT cc.value = ANY (NEW.phone_numbers))
+            OR (cc.type = 'EMAIL' AND cc.value = ANY (OLD.emails) AND NOT cc.value = ANY (NEW.emails)));
+    END IF;
+    INSERT INTO client_service.client_contact(client_id, type, value)
+    SELECT NEW.id, 'PHONE', pn FROM unnest(NEW.phone_numbers) AS pn
+    UNION ALL
+    SELECT NEW.id, 'EMAIL', em FROM unnest(NEW.emails) AS em
+    ON CONFLICT (type, value) DO NOTHING;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER client_contacts_sync
+    AFTER INSERT OR UPDATE OF phone_numbers, emails
+    ON client_service.client
+    FOR EACH ROW
+EXECUTE FUNCTION client_service.sync_client_contacts();
+
+--changeset agasparyan:40 runInTransaction:false splitStatements:false
+DO
+$$
+DECLARE
+    last_id INT := 0;
+    max_id  INT;
+BEGIN
+    SELECT COALESCE(MAX(id), 0) INTO max_id FROM client_service.client;
+    WHILE last_id < max_id LOOP
+        INSERT INTO client_service.client_contact(client_id, type, value)
+        SELECT c.id, 'PHONE', pn FROM client_service.client c, unnest(c.phone_numbers) AS pn
+        WHERE c.id > last_id AND c.id <= last_id + 10000
+        UNION ALL
+        SELECT c.id, 'EMAIL', em FROM client_service.client c, unnest(c.emails) AS em
+        WHERE c.id > last_id AND c.id <= last_id + 10000
+        ORDER BY 1
+        ON CONFLICT (type, value) DO NOTHING;
+        last_id := last_id + 10000;
+        COMMIT;
+    END LOOP;
+END
+$$;
+
+--changeset agasparyan:41
+ALTER TABLE client_service.client
+    ALTER COLUMN phone_numbers SET DEFAULT '{}',
+    ALTER COLUMN emails SET DEFAULT '{}';
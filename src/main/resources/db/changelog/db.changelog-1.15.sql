@@ -0,0 +1,9 @@
+--liquibase formatted sql
+
+--changeset agasparyan:42 runInTransaction:false
+CREATE INDEX CONCURRENTLY IF NOT EXISTS client_fio_prefix_idx
+    ON client_service.client (lower(fio) varchar_pattern_ops);
+
+--changeset agasparyan:43 runInTransaction:false
+CREATE INDEX CONCURRENTLY IF NOT EXISTS client_birth_date_idx
+    ON client_service.client (birth_date, id);
@@ -0,0 +1,5 @@
+--liquibase formatted sql
+
+--changeset agasparyan:44 runInTransaction:false
+CREATE INDEX CONCURRENTLY IF NOT EXISTS client_fio_id_idx
+    ON client_service.client (fio, id);
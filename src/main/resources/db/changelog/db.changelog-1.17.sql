@@ -0,0 +1,25 @@
+--liquibase formatted sql
+
+--changeset agasparyan:45 splitStatements:false
+CREATE OR REPLACE FUNCTION client_service.accrue_balance(balance NUMERIC, limit_balance NUMERIC,
+                                                         coefficient NUMERIC, periods BIGINT)
+    RETURNS NUMERIC
+    LANGUAGE plpgsql
+    IMMUTABLE
+AS
+$$
+DECLARE
+    accrued_balance NUMERIC := balance;
+    new_balance     NUMERIC;
+    period          BIGINT  := 0;
+BEGIN
+    WHILE period < periods
+        LOOP
+            new_balance := round(accrued_balance * coefficient, 2);
+            EXIT WHEN new_balance >= limit_balance OR new_balance = accrued_balance;
+            accrued_balance := new_balance;
+            period := period + 1;
+        END LOOP;
+    RETURN accrued_balance;
+END
+$$;
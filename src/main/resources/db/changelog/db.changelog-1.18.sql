@@ -0,0 +1,6 @@
+--liquibase formatted sql
+
+--changeset agasparyan:46
+ALTER TABLE client_service.transfer_idempotency_key
+    ALTER COLUMN request_hash TYPE VARCHAR(64) USING request_hash::TEXT,
+    ALTER COLUMN idempotency_key TYPE VARCHAR(200);
@@ -0,0 +1,137 @@
+--liquibase formatted sql
+
+-- Двусторонняя синхронизация контактов до релиза, который удалит массивы client.phone_numbers/emails:
+-- 1) изменения client_contact (новая версия) дописываются в массивы, которые читают экземпляры
+--    предыдущей версии;
+-- 2) изменение массивов (предыдущая версия), контакт которого занят другим клиентом, отклоняется
+--    нарушением уникальности client_contact_type_value_idx, а не пропускается молча;
+-- 3) перенос существующих контактов выполняется повторно функцией, которая логирует (RAISE WARNING)
+--    каждый контакт, не перенесенный из-за того, что он уже занят другим клиентом.
+-- Триггеры срабатывают только на изменения, сделанные приложением (pg_trigger_depth() = 1),
+-- поэтому изменение, внесенное одним триггером, не запускает синхронизацию в обратную сторону
+
+--changeset agasparyan:47 splitStatements:false
+CREATE OR REPLACE FUNCTION client_service.sync_client_contacts() RETURNS TRIGGER AS
+$$
+BEGIN
+    IF pg_trigger_depth() > 1 THEN
+        RETURN NULL;
+    END IF;
+    IF TG_OP = 'UPDATE' THEN
+        DELETE
+        FROM client_service.client_contact cc
+        WHERE cc.client_id = NEW.id
+          AND ((cc.type = 'PHONE' AND cc.value = ANY (OLD.phone_numbers) AND NOT cc.value = ANY (NEW.phone_numbers))
+            OR (cc.type = 'EMAIL' AND cc.value = ANY (OLD.emails) AND NOT cc.value = ANY (NEW.emails)));
+    END IF;
+    INSERT INTO client_service.client_contact(client_id, type, value)
+    SELECT NEW.id, contact.type, contact.value
+    FROM (SELECT 'PHONE' AS type, pn AS value FROM unnest(NEW.phone_numbers) AS pn
+          UNION
+          SELECT 'EMAIL', em FROM unnest(NEW.emails) AS em) AS contact
+    WHERE NOT EXISTS(SELECT 1
+                     FROM client_service.client_contact cc
+                     WHERE cc.client_id = NEW.id
+                       AND cc.type = contact.type
+                       AND cc.value = contact.value);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+--changeset agasparyan:48 splitStatements:false
+CREATE OR REPLACE FUNCTION client_service.sync_client_contact_arrays() RETURNS TRIGGER AS
+$$
+BEGIN
+    IF pg_trigger_depth() > 1 THEN
+        RETURN NULL;
+    END IF;
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        UPDATE client_service.client
+        SET phone_numbers = CASE WHEN OLD.type = 'PHONE' THEN array_remove(phone_numbers, OLD.value) ELSE phone_numbers END,
+            emails        = CASE WHEN OLD.type = 'EMAIL' THEN array_remove(emails, OLD.value) ELSE emails END
+        WHERE id = OLD.client_id
+          AND OLD.value = ANY (CASE WHEN OLD.type = 'PHONE' THEN phone_numbers ELSE emails END);
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        UPDATE client_service.client
+        SET phone_numbers = CASE WHEN NEW.type = 'PHONE' THEN array_append(phone_numbers, NEW.value) ELSE phone_numbers END,
+            emails        = CASE WHEN NEW.type = 'EMAIL' THEN array_append(emails, NEW.value) ELSE emails END
+        WHERE id = NEW.client_id
+          AND NOT NEW.value = ANY (CASE WHEN NEW.type = 'PHONE' THEN phone_numbers ELSE emails END);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER client_contact_arrays_sync
+    AFTER INSERT OR UPDATE OR DELETE
+    ON client_service.client_contact
+    FOR EACH ROW
+EXECUTE FUNCTION client_service.sync_client_contact_arrays();
+
+--changeset agasparyan:49 splitStatements:false
+CREATE OR REPLACE FUNCTION client_service.backfill_client_contacts(from_id INT, to_id INT) RETURNS INT AS
+$$
+DECLARE
+    conflict  RECORD;
+    conflicts INT := 0;
+BEGIN
+    INSERT INTO client_service.client_contact(client_id, type, value)
+    SELECT c.id, 'PHONE', pn FROM client_service.client c, unnest(c.phone_numbers) AS pn
+    WHERE c.id > from_id AND c.id <= to_id
+    UNION ALL
+    SELECT c.id, 'EMAIL', em FROM client_service.client c, unnest(c.emails) AS em
+    WHERE c.id > from_id AND c.id <= to_id
+    ORDER BY 1
+    ON CONFLICT (type, value) DO NOTHING;
+
+    FOR conflict IN
+        SELECT contact.client_id, contact.type, contact.value, cc.client_id AS owner_id
+        FROM (SELECT c.id AS client_id, 'PHONE' AS type, pn AS value
+              FROM client_service.client c, unnest(c.phone_numbers) AS pn
+              WHERE c.id > from_id AND c.id <= to_id
+              UNION ALL
+              SELECT c.id, 'EMAIL', em
+              FROM client_service.client c, unnest(c.emails) AS em
+              WHERE c.id > from_id AND c.id <= to_id) AS contact
+        JOIN client_service.client_contact cc ON cc.type = contact.type AND cc.value = contact.value
+        WHERE cc.client_id <> contact.client_id
+        ORDER BY contact.client_id
+    LOOP
+        RAISE WARNING 'contact % % of client % is not migrated: it belongs to client %',
+            conflict.type, conflict.value, conflict.client_id, conflict.owner_id;
+        conflicts := conflicts + 1;
+    END LOOP;
+    RETURN conflicts;
+END;
+$$ LANGUAGE plpgsql;
+
+--changeset agasparyan:50 runInTransaction:false splitStatements:false
+DO
+$$
+DECLARE
+    last_id   INT := 0;
+    max_id    INT;
+    conflicts INT := 0;
+BEGIN
+    SELECT COALESCE(MAX(id), 0) INTO max_id FROM client_service.client;
+    WHILE last_id < max_id LOOP
+        conflicts := conflicts + client_service.backfill_client_contacts(last_id, last_id + 10000);
+        last_id := last_id + 10000;
+        COMMIT;
+    END LOOP;
+    IF conflicts > 0 THEN
+        RAISE WARNING '% contacts are not migrated to client_contact, they belong to other clients', conflicts;
+    END IF;
+END
+$$;
+
+-- Поиск по контактам выполняется по client_contact_type_value_idx, а массивы только синхронизируются
+-- триггерами, поэтому GIN индексы массивов (db.changelog-1.13.sql) лишь замедляют запись клиентов.
+-- Индексы удаляются без блокировки записи в таблицу клиентов, как и создавались
+
+--changeset agasparyan:52 runInTransaction:false
+DROP INDEX CONCURRENTLY IF EXISTS client_service.client_phone_numbers_gin_idx;
+
+--changeset agasparyan:53 runInTransaction:false
+DROP INDEX CONCURRENTLY IF EXISTS client_service.client_emails_gin_idx;
@@ -0,0 +1,14 @@
+--liquibase formatted sql
+
+--changeset agasparyan:7
+ALTER TABLE client_service.client_account
+    ADD COLUMN IF NOT EXISTS limit_balance NUMERIC;
+
+--changeset agasparyan:8
+UPDATE client_service.client_account
+SET limit_balance = deposit * 207 / 100
+WHERE limit_balance IS NULL;
+
+--changeset agasparyan:9
+ALTER TABLE client_service.client_account
+    ALTER COLUMN limit_balance SET NOT NULL;
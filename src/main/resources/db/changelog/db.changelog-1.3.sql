@@ -0,0 +1,24 @@
+--liquibase formatted sql
+
+--changeset agasparyan:10
+CREATE TABLE IF NOT EXISTS client_service.accrual_tick
+(
+    tick_no    BIGINT PRIMARY KEY,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now()
+);
+
+--changeset agasparyan:11
+CREATE TABLE IF NOT EXISTS client_service.accrual_work_unit
+(
+    id           BIGSERIAL PRIMARY KEY,
+    tick_no      BIGINT  NOT NULL REFERENCES client_service.accrual_tick (tick_no) ON DELETE CASCADE,
+    lower_id     INT     NOT NULL,
+    upper_id     INT     NOT NULL,
+    completed_by VARCHAR(100),
+    completed_at TIMESTAMP WITH TIME ZONE
+);
+
+--changeset agasparyan:12
+CREATE INDEX IF NOT EXISTS accrual_work_unit_pending_idx
+    ON client_service.accrual_work_unit (tick_no, id)
+    WHERE completed_at IS NULL;
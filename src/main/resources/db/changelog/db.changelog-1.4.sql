@@ -0,0 +1,5 @@
+--liquibase formatted sql
+
+--changeset agasparyan:13
+ALTER TABLE client_service.client_account
+    ADD COLUMN IF NOT EXISTS accrued_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now();
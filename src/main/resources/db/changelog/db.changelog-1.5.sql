@@ -0,0 +1,15 @@
+--liquibase formatted sql
+
+--changeset agasparyan:14
+ALTER TABLE client_service.client_account
+    ADD COLUMN IF NOT EXISTS capped BOOLEAN NOT NULL DEFAULT false;
+
+--changeset agasparyan:15
+UPDATE client_service.client_account
+SET capped = true
+WHERE balance * 1.05 >= limit_balance;
+
+--changeset agasparyan:16
+CREATE INDEX IF NOT EXISTS client_account_active_idx
+    ON client_service.client_account (id)
+    WHERE NOT capped;
@@ -0,0 +1,23 @@
+--liquibase formatted sql
+
+--changeset agasparyan:17 splitStatements:false
+CREATE OR REPLACE FUNCTION client_service.accrual_periods(accrued_at TIMESTAMP WITH TIME ZONE, interval_ms BIGINT)
+    RETURNS BIGINT
+    LANGUAGE sql
+    STABLE
+AS
+$$
+SELECT GREATEST(floor(extract(EPOCH FROM now() - accrued_at) * 1000 / interval_ms), 0)::BIGINT
+$$;
+
+--changeset agasparyan:18 splitStatements:false
+CREATE OR REPLACE FUNCTION client_service.accrue_balance(balance NUMERIC, limit_balance NUMERIC,
+                                                         coefficient NUMERIC, periods BIGINT)
+    RETURNS NUMERIC
+    LANGUAGE sql
+    IMMUTABLE
+AS
+$$
+SELECT balance * power(coefficient,
+                       LEAST(periods, GREATEST(ceil(ln(limit_balance / balance) / ln(coefficient)) - 1, 0)))
+$$;
@@ -0,0 +1,75 @@
+--liquibase formatted sql
+
+-- changeset 51 добавлен после выпуска changeset 19 и поэтому стоит перед ним: на новой БД он приводит суммы
+-- к копейкам до смены типа столбцов, на БД, где changeset 19 уже выполнен, ничего не меняет.
+-- Суммы округляются HALF_UP, как MoneyUtil.MONEY_ROUNDING (round() для numeric округляет половину от нуля).
+-- Баланс и депозит меньше половины копейки округлились бы до 0 и нарушили бы CHECK (> 0), поэтому
+-- до округления они явно поднимаются до 0.01, а количество таких счетов выводится предупреждением
+
+--changeset agasparyan:51 splitStatements:false
+DO
+$$
+DECLARE
+    lifted_balances INT;
+    lifted_deposits INT;
+BEGIN
+    UPDATE client_service.client_account
+    SET balance = 0.01
+    WHERE round(balance, 2) < 0.01;
+    GET DIAGNOSTICS lifted_balances = ROW_COUNT;
+
+    UPDATE client_service.client_account
+    SET deposit = 0.01
+    WHERE round(deposit, 2) < 0.01;
+    GET DIAGNOSTICS lifted_deposits = ROW_COUNT;
+
+    IF lifted_balances > 0 OR lifted_deposits > 0 THEN
+        RAISE WARNING 'balances of % accounts and deposits of % accounts are less than 0.01 and are set to 0.01',
+            lifted_balances, lifted_deposits;
+    END IF;
+
+    UPDATE client_service.client_account
+    SET balance       = round(balance, 2),
+        deposit       = round(deposit, 2),
+        limit_balance = round(limit_balance, 2)
+    WHERE balance <> round(balance, 2)
+       OR deposit <> round(deposit, 2)
+       OR limit_balance <> round(limit_balance, 2);
+END
+$$;
+
+--changeset agasparyan:19
+ALTER TABLE client_service.client_account
+    ALTER COLUMN balance TYPE NUMERIC(19, 2) USING GREATEST(round(balance, 2), 0.01),
+    ALTER COLUMN deposit TYPE NUMERIC(19, 2) USING GREATEST(round(deposit, 2), 0.01),
+    ALTER COLUMN limit_balance TYPE NUMERIC(19, 2) USING round(limit_balance, 2);
+
+--changeset agasparyan:20 splitStatements:false
+CREATE OR REPLACE FUNCTION client_service.accrue_balance(balance NUMERIC, limit_balance NUMERIC,
+                                                         coefficient NUMERIC, periods BIGINT)
+    RETURNS NUMERIC
+    LANGUAGE plpgsql
+    IMMUTABLE
+AS
+$$
+DECLARE
+    accrued_balance NUMERIC := balance;
+    new_balance     NUMERIC;
+    period          BIGINT  := 0;
+BEGIN
+    WHILE period < periods
+        LOOP
+            new_balance := round(accrued_balance * coefficient, 2);
+            EXIT WHEN new_balance >= limit_balance;
+            accrued_balance := new_balance;
+            period := period + 1;
+        END LOOP;
+    RETURN accrued_balance;
+END
+$$;
+
+--changeset agasparyan:21
+UPDATE client_service.client_account
+SET capped = true
+WHERE NOT capped
+  AND round(balance * 1.05, 2) >= limit_balance;
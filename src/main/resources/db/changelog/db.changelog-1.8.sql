@@ -0,0 +1,17 @@
+--liquibase formatted sql
+
+--changeset agasparyan:22
+CREATE TABLE IF NOT EXISTS client_service.transfer_idempotency_key
+(
+    id              BIGSERIAL PRIMARY KEY,
+    client_id       INT                      NOT NULL REFERENCES client_service.client (id) ON DELETE CASCADE,
+    idempotency_key VARCHAR(100)             NOT NULL,
+    request_hash    INT                      NOT NULL,
+    response        TEXT,
+    created_at      TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+    UNIQUE (client_id, idempotency_key)
+);
+
+--changeset agasparyan:23
+CREATE INDEX IF NOT EXISTS transfer_idempotency_key_created_at_idx
+    ON client_service.transfer_idempotency_key (created_at);
@@ -0,0 +1,26 @@
+--liquibase formatted sql
+
+--changeset agasparyan:24
+ALTER TABLE client_service.client_account
+    ADD COLUMN IF NOT EXISTS reserved NUMERIC(19, 2) NOT NULL DEFAULT 0 CHECK (reserved >= 0);
+
+--changeset agasparyan:25
+CREATE TABLE IF NOT EXISTS client_service.account_entry
+(
+    id                      BIGSERIAL PRIMARY KEY,
+    account_id              INT                      NOT NULL REFERENCES client_service.client_account (id) ON DELETE CASCADE,
+    counterparty_account_id INT REFERENCES client_service.client_account (id) ON DELETE SET NULL,
+    amount                  NUMERIC(19, 2)           NOT NULL,
+    entry_type              VARCHAR(20)              NOT NULL,
+    projected               BOOLEAN                  NOT NULL DEFAULT false,
+    created_at              TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now()
+);
+
+--changeset agasparyan:26
+CREATE INDEX IF NOT EXISTS account_entry_unprojected_idx
+    ON client_service.account_entry (id)
+    WHERE NOT projected;
+
+--changeset agasparyan:27
+CREATE INDEX IF NOT EXISTS account_entry_account_idx
+    ON client_service.account_entry (account_id, id);
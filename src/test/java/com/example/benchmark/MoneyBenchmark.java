@@ -0,0 +1,117 @@
+package com.example.benchmark;
+
+import com.example.money.Money;
+import com.example.util.InterestUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH бенчмарк, сравнивающий Money (копейки в long) с прежней реализацией на BigDecimal
+ * на путях начисления процентов и перевода средств.
+ * Запуск: main метод класса (после mvn test-compile) или
+ * java -cp target/test-classes:target/classes:&lt;classpath&gt; org.openjdk.jmh.Main MoneyBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmark {
+    private static final BigDecimal COEFFICIENT = new BigDecimal("1.05");
+    private static final BigDecimal BALANCE_RAISE_LIMIT = new BigDecimal(207);
+    private static final BigDecimal HUNDRED = new BigDecimal(100);
+
+    @Param({"1000"})
+    private int accounts;
+
+    private BigDecimal[] decimalBalances;
+    private BigDecimal[] decimalLimits;
+    private Money[] moneyBalances;
+    private Money[] moneyLimits;
+    private BigDecimal[] decimalAmounts;
+    private Money[] moneyAmounts;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        decimalBalances = new BigDecimal[accounts];
+        decimalLimits = new BigDecimal[accounts];
+        moneyBalances = new Money[accounts];
+        moneyLimits = new Money[accounts];
+        decimalAmounts = new BigDecimal[accounts];
+        moneyAmounts = new Money[accounts];
+        for (int i = 0; i < accounts; i++) {
+            long minorUnits = 100 + random.nextInt(10_000_000);
+            decimalBalances[i] = BigDecimal.valueOf(minorUnits, 2);
+            decimalLimits[i] = decimalBalances[i].multiply(BALANCE_RAISE_LIMIT).divide(HUNDRED)
+                    .setScale(2, RoundingMode.HALF_UP);
+            moneyBalances[i] = Money.ofMinor(minorUnits);
+            moneyLimits[i] = InterestUtil.getLimitBalance(moneyBalances[i]);
+            decimalAmounts[i] = BigDecimal.valueOf(random.nextInt(10_000), 2);
+            moneyAmounts[i] = Money.of(decimalAmounts[i]);
+        }
+    }
+
+    /**
+     * одно начисление процентов для всех счетов на BigDecimal
+     */
+    @Benchmark
+    public void accrueBigDecimal(Blackhole blackhole) {
+        for (int i = 0; i < accounts; i++) {
+            BigDecimal newBalance = decimalBalances[i].multiply(COEFFICIENT).setScale(2, RoundingMode.HALF_UP);
+            blackhole.consume(newBalance.compareTo(decimalLimits[i]) < 0 ? newBalance : decimalBalances[i]);
+        }
+    }
+
+    /**
+     * одно начисление процентов для всех счетов на Money
+     */
+    @Benchmark
+    public void accrueMoney(Blackhole blackhole) {
+        for (int i = 0; i < accounts; i++) {
+            blackhole.consume(InterestUtil.accrue(moneyBalances[i], moneyLimits[i], 1));
+        }
+    }
+
+    /**
+     * перевод между соседними счетами на BigDecimal (сумма уже десериализована в BigDecimal,
+     * чтобы измерялась только арифметика, а не разбор строки)
+     */
+    @Benchmark
+    public void transferBigDecimal(Blackhole blackhole) {
+        for (int i = 1; i < accounts; i++) {
+            BigDecimal amount = decimalAmounts[i];
+            if (decimalBalances[i - 1].compareTo(amount) >= 0) {
+                blackhole.consume(decimalBalances[i - 1].subtract(amount));
+                blackhole.consume(decimalBalances[i].add(amount));
+            }
+        }
+    }
+
+    /**
+     * перевод между соседними счетами на Money (сумма уже десериализована в Money)
+     */
+    @Benchmark
+    public void transferMoney(Blackhole blackhole) {
+        for (int i = 1; i < accounts; i++) {
+            Money amount = moneyAmounts[i];
+            if (moneyBalances[i - 1].compareTo(amount) >= 0) {
+                blackhole.consume(moneyBalances[i - 1].minus(amount));
+                blackhole.consume(moneyBalances[i].plus(amount));
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(MoneyBenchmark.class.getSimpleName()).build()).run();
+    }
+}
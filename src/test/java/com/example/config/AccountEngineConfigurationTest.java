@@ -0,0 +1,36 @@
+package com.example.config;
+
+import com.example.engine.AccountStore;
+import com.example.service.AccrualMode;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Класс для Unit тестирования AccountEngineConfiguration
+ */
+class AccountEngineConfigurationTest {
+    @TempDir
+    Path walDirectory;
+
+    /**
+     * параметризованный метод, тестирующий, что движок не создается в режиме начисления LAZY независимо
+     * от того, включены ли задачи по расписанию: иначе переводы молча выполнялись бы в режиме PESSIMISTIC
+     * @param schedulerEnabled - включены ли задачи по расписанию
+     */
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void lazyAccrualIsRejected(boolean schedulerEnabled) {
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> new AccountEngineConfiguration().accountEngine(mock(AccountStore.class), walDirectory,
+                        4, 1024, 67108864, 256, 1000, schedulerEnabled, AccrualMode.LAZY));
+
+        assertThat(exception.getMessage()).contains("scheduler.accrual.mode=LAZY");
+    }
+}
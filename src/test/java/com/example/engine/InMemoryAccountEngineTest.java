@@ -0,0 +1,164 @@
+package com.example.engine;
+
+import com.example.http.exception.ClientAccountException;
+import com.example.money.Money;
+import com.example.service.ClientAccountService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Класс для Unit тестирования InMemoryAccountEngine: восстановление балансов из WAL после остановки
+ * без переноса переводов в хранилище (аналог падения процесса)
+ */
+class InMemoryAccountEngineTest {
+    private static final long HOUR = 3_600_000;
+    @TempDir
+    Path walDirectory;
+    private InMemoryStore store;
+
+    @BeforeEach
+    void initData() {
+        store = new InMemoryStore();
+        for (int clientId = 1; clientId <= 3; clientId++) {
+            store.balances.put(clientId * 10, Money.of("100").getMinorUnits());
+        }
+    }
+
+    /**
+     * метод, тестирующий, что подтвержденные переводы восстанавливаются из WAL,
+     * даже если они не были перенесены в хранилище
+     * @throws Exception - exception
+     */
+    @Test
+    void transfersAreRecoveredFromWal() throws Exception {
+        InMemoryAccountEngine engine = startEngine();
+        engine.transfer(1, 2, Money.of("30"));
+        engine.transfer(2, 3, Money.of("120"));
+        engine.halt();
+
+        InMemoryAccountEngine recovered = startEngine();
+
+        assertThat(recovered.getBalance(1)).contains(Money.of("70"));
+        assertThat(recovered.getBalance(2)).contains(Money.of("10"));
+        assertThat(recovered.getBalance(3)).contains(Money.of("220"));
+        recovered.close();
+        assertThat(store.balances).containsEntry(10, 7000L).containsEntry(20, 1000L).containsEntry(30, 22000L);
+    }
+
+    /**
+     * метод, тестирующий, что переводы, уже перенесенные в хранилище, не применяются повторно
+     * при восстановлении, а неполная запись в конце сегмента игнорируется
+     * @throws Exception - exception
+     */
+    @Test
+    void checkpointedTransfersAreNotReplayed() throws Exception {
+        InMemoryAccountEngine engine = startEngine();
+        engine.transfer(1, 2, Money.of("30"));
+        assertThat(engine.checkpoint()).isEqualTo(1);
+        engine.transfer(1, 3, Money.of("20"));
+        engine.halt();
+        appendTornRecord();
+
+        InMemoryAccountEngine recovered = startEngine();
+        recovered.transfer(3, 1, Money.of("5"));
+        recovered.close();
+
+        assertThat(store.checkpointSeq).isEqualTo(3);
+        assertThat(store.balances).containsEntry(10, 5500L).containsEntry(20, 13000L).containsEntry(30, 11500L);
+    }
+
+    /**
+     * метод, тестирующий, что отклоненный перевод не попадает в WAL
+     * @throws Exception - exception
+     */
+    @Test
+    void rejectedTransferIsNotLogged() throws Exception {
+        InMemoryAccountEngine engine = startEngine();
+
+        ClientAccountException exception = assertThrows(
+                ClientAccountException.class, () -> engine.transfer(1, 2, Money.of("100")));
+        assertThat(exception.getMessage()).isEqualTo(ClientAccountService.INSUFFICIENT_FUNDS);
+        assertThrows(ClientAccountException.class, () -> engine.transfer(1, 4, Money.of("10")));
+        engine.halt();
+
+        assertThat(WriteAheadLog.readRecords(walDirectory, 0)).isEmpty();
+    }
+
+    /**
+     * метод, тестирующий, что перевод в остановленный движок отклоняется, а не ждет обработки
+     * @throws Exception - exception
+     */
+    @Test
+    @Timeout(5)
+    void transferToStoppedEngineIsRejected() throws Exception {
+        InMemoryAccountEngine engine = startEngine();
+        engine.halt();
+
+        assertThrows(IllegalStateException.class, () -> engine.transfer(1, 2, Money.of("10")));
+        assertThat(WriteAheadLog.readRecords(walDirectory, 0)).isEmpty();
+    }
+
+    private InMemoryAccountEngine startEngine() throws Exception {
+        InMemoryAccountEngine engine = new InMemoryAccountEngine(store, walDirectory, 2, 16, 1024, 8, HOUR);
+        engine.start();
+        return engine;
+    }
+
+    /**
+     * метод, дописывающий в конец последнего сегмента часть записи, как при падении во время записи
+     * @throws Exception - exception
+     */
+    private void appendTornRecord() throws Exception {
+        try (Stream<Path> segments = Files.list(walDirectory)) {
+            Path lastSegment = segments.sorted().reduce((first, second) -> second).orElseThrow();
+            Files.write(lastSegment, new byte[WriteAheadLog.RECORD_SIZE / 2], StandardOpenOption.APPEND);
+        }
+    }
+
+    /**
+     * хранилище балансов в памяти: id счета клиента clientId равен clientId * 10
+     */
+    private static class InMemoryStore implements AccountStore {
+        private final Map<Integer, Long> balances = new TreeMap<>();
+        private long checkpointSeq;
+
+        @Override
+        public long loadCheckpointSeq() {
+            return checkpointSeq;
+        }
+
+        @Override
+        public Iterable<AccountSnapshot> loadAccounts() {
+            List<AccountSnapshot> accounts = new ArrayList<>();
+            balances.forEach((accountId, balance) -> accounts.add(new AccountSnapshot(accountId, accountId / 10, balance)));
+            return accounts;
+        }
+
+        @Override
+        public Optional<AccountSnapshot> loadAccount(Integer clientId) {
+            return Optional.ofNullable(balances.get(clientId * 10))
+                    .map(balance -> new AccountSnapshot(clientId * 10, clientId, balance));
+        }
+
+        @Override
+        public void checkpoint(Map<Integer, Long> deltas, long checkpointSeq) {
+            deltas.forEach((accountId, delta) -> balances.merge(accountId, delta, Long::sum));
+            this.checkpointSeq = checkpointSeq;
+        }
+    }
+}
@@ -1,14 +1,24 @@
 package com.example.http.controller;
 
 import com.example.dto.TransferMoneyDto;
+import com.example.money.Money;
 import com.example.integration.IntegrationTestBase;
+import com.example.security.ClientPrincipal;
+import com.example.service.ClientService;
+import com.example.service.IdempotencyService;
+import com.example.util.RequestHashUtil;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.List;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -19,8 +29,10 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @AutoConfigureMockMvc
 @RequiredArgsConstructor
 class ClientRestControllerTest extends IntegrationTestBase {
+    private static final String IDEMPOTENCY_KEY = "transfer-1";
     private final MockMvc mockMvc;
     private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
 
     /**
      * метод, тестирующий трансфер денежных средств
@@ -28,7 +40,7 @@ class ClientRestControllerTest extends IntegrationTestBase {
      */
     @Test
     void transferMoney() throws Exception {
-        TransferMoneyDto transferMoneyDto = new TransferMoneyDto(2, 20f);
+        TransferMoneyDto transferMoneyDto = new TransferMoneyDto(2, Money.of("20"));
         String requestBody = objectMapper.writeValueAsString(transferMoneyDto);
         mockMvc.perform(patch("/api/v1/clients/transferring")
                         .with(user("test1@mail.ru"))
@@ -37,4 +49,107 @@ class ClientRestControllerTest extends IntegrationTestBase {
                 .andExpect(status().is2xxSuccessful());
 
     }
-}
\ No newline at end of file
+
+    /**
+     * метод, тестирующий трансфер денежных средств клиентом, аутентифицированным jwt токеном
+     * (ClientPrincipal с id клиента)
+     * @throws Exception - exception
+     */
+    @Test
+    void transferMoneyByClientPrincipal() throws Exception {
+        ClientPrincipal principal = new ClientPrincipal("test1@mail.ru", 1, null);
+        TransferMoneyDto transferMoneyDto = new TransferMoneyDto(2, Money.of("20"));
+        String requestBody = objectMapper.writeValueAsString(transferMoneyDto);
+        mockMvc.perform(patch("/api/v1/clients/transferring")
+                        .with(authentication(new UsernamePasswordAuthenticationToken(principal, null, List.of())))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(requestBody))
+                .andExpect(status().is2xxSuccessful());
+    }
+
+    /**
+     * метод, тестирующий, что добавление контакта, занятого другим клиентом, отклоняется с кодом 409
+     * @throws Exception - exception
+     */
+    @Test
+    void addTakenEmailReturnsConflict() throws Exception {
+        mockMvc.perform(patch("/api/v1/clients/add-email/1")
+                        .with(user("test1@mail.ru"))
+                        .param("email", "test2@mail.ru"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.messages[0]").value(ClientService.CONTACT_IS_TAKEN));
+    }
+
+    /**
+     * метод, тестирующий, что перевод с ключом идемпотентности, уже использованным для перевода с другим
+     * телом, отклоняется с кодом 422
+     * @throws Exception - exception
+     */
+    @Test
+    void transferMoneyWithReusedIdempotencyKeyReturnsUnprocessableEntity() throws Exception {
+        mockMvc.perform(patch("/api/v1/clients/transferring")
+                        .with(user("test1@mail.ru"))
+                        .header("Idempotency-Key", IDEMPOTENCY_KEY)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new TransferMoneyDto(2, Money.of("20")))))
+                .andExpect(status().is2xxSuccessful());
+
+        mockMvc.perform(patch("/api/v1/clients/transferring")
+                        .with(user("test1@mail.ru"))
+                        .header("Idempotency-Key", IDEMPOTENCY_KEY)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new TransferMoneyDto(3, Money.of("20")))))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.messages[0]").value(IdempotencyService.KEY_REUSED));
+    }
+
+    /**
+     * метод, тестирующий, что повтор перевода, который с тем же ключом идемпотентности еще выполняется,
+     * отклоняется с кодом 409
+     * @throws Exception - exception
+     */
+    @Test
+    void transferMoneyInProgressReturnsConflict() throws Exception {
+        TransferMoneyDto transferMoneyDto = new TransferMoneyDto(2, Money.of("20"));
+        jdbcTemplate.update("""
+                INSERT INTO client_service.transfer_idempotency_key(client_id, idempotency_key, request_hash, response)
+                VALUES (1, ?, ?, '"IN_PROGRESS"')
+                """, IDEMPOTENCY_KEY, RequestHashUtil.getRequestHash(transferMoneyDto));
+
+        mockMvc.perform(patch("/api/v1/clients/transferring")
+                        .with(user("test1@mail.ru"))
+                        .header("Idempotency-Key", IDEMPOTENCY_KEY)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(transferMoneyDto)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.messages[0]").value(IdempotencyService.REQUEST_IN_PROGRESS));
+    }
+
+    /**
+     * метод, тестирующий, что изменение контактов несуществующего клиента отклоняется с кодом 404
+     * и сообщением об ошибке
+     * @throws Exception - exception
+     */
+    @Test
+    void addEmailToUnknownClientReturnsNotFound() throws Exception {
+        mockMvc.perform(patch("/api/v1/clients/add-email/100")
+                        .with(user("test1@mail.ru"))
+                        .param("email", "new100@mail.ru"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.messages[0]").value("Клиент не найден по данному id"));
+    }
+
+    /**
+     * метод, тестирующий, что перевод с телом запроса неверного формата отклоняется с кодом 400
+     * @throws Exception - exception
+     */
+    @Test
+    void transferMoneyWithMalformedBodyReturnsBadRequest() throws Exception {
+        mockMvc.perform(patch("/api/v1/clients/transferring")
+                        .with(user("test1@mail.ru"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"recipientId\": 2, \"amount\": "))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.messages[0]").value("Тело запроса не соответствует формату"));
+    }
+}
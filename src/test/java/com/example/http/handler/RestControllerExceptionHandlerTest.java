@@ -0,0 +1,87 @@
+package com.example.http.handler;
+
+import com.example.dto.ExceptionResponseDto;
+import com.example.http.controller.AuthRestController;
+import com.example.http.controller.ClientRestController;
+import com.example.http.exception.AuthException;
+import com.example.http.exception.ClientAccountException;
+import com.example.http.exception.ClientConflictException;
+import com.example.http.exception.ClientException;
+import com.example.http.exception.IdempotencyKeyReusedException;
+import com.example.service.AccountLockManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Класс для Unit тестирования RestControllerExceptionHandler: коды ответов и сообщения для исключений
+ * контроллеров
+ */
+class RestControllerExceptionHandlerTest {
+    private final RestControllerExceptionHandler handler = new RestControllerExceptionHandler();
+
+    /**
+     * метод, тестирующий, что обработчик применяется к контроллерам приложения
+     */
+    @Test
+    void adviceAppliesToControllers() {
+        RestControllerAdvice advice = RestControllerExceptionHandler.class.getAnnotation(RestControllerAdvice.class);
+
+        assertThat(advice.basePackages()).contains(
+                ClientRestController.class.getPackageName(), AuthRestController.class.getPackageName());
+    }
+
+    /**
+     * параметризованный метод, тестирующий код ответа и сообщение для исключения
+     * @param ex - исключение
+     * @param status - ожидаемый код ответа
+     * @param message - ожидаемое сообщение
+     */
+    @ParameterizedTest
+    @MethodSource("getArgumentsForHandleException")
+    void handleException(Exception ex, HttpStatus status, String message) {
+        ResponseEntity<?> response = handler.handleException(ex);
+
+        assertThat(response.getStatusCode()).isEqualTo(status);
+        assertThat(((ExceptionResponseDto) response.getBody()).getMessages()).containsExactly(message);
+    }
+
+    /**
+     * метод, предоставляющий исключения и ожидаемые для них код ответа и сообщение
+     * @return Stream<Arguments> - стрим аргументов
+     */
+    static Stream<Arguments> getArgumentsForHandleException() {
+        return Stream.of(
+                Arguments.of(new ClientException("Клиент не найден"), HttpStatus.NOT_FOUND, "Клиент не найден"),
+                Arguments.of(new ClientAccountException("Счет не найден"), HttpStatus.NOT_FOUND, "Счет не найден"),
+                Arguments.of(new ClientConflictException("Контакт занят"), HttpStatus.CONFLICT, "Контакт занят"),
+                Arguments.of(new IdempotencyKeyReusedException("Ключ занят"),
+                        HttpStatus.UNPROCESSABLE_ENTITY, "Ключ занят"),
+                Arguments.of(new AuthException("Неверный пароль"), HttpStatus.UNAUTHORIZED, "Неверный пароль"),
+                Arguments.of(new HttpMessageNotReadableException("JSON parse error",
+                                new MockHttpInputMessage(new byte[0])),
+                        HttpStatus.BAD_REQUEST, "Тело запроса не соответствует формату"),
+                Arguments.of(new OptimisticLockingFailureException("Row was updated (client_account#1)"),
+                        HttpStatus.CONFLICT, RestControllerExceptionHandler.CONCURRENT_UPDATE),
+                Arguments.of(new CannotAcquireLockException("lock timeout"),
+                        HttpStatus.CONFLICT, AccountLockManager.ACCOUNT_IS_BUSY),
+                Arguments.of(new DataIntegrityViolationException("client_contact_type_value_key"),
+                        HttpStatus.CONFLICT, RestControllerExceptionHandler.DATA_CONFLICT),
+                Arguments.of(new IllegalStateException("relation client_service.client does not exist"),
+                        HttpStatus.INTERNAL_SERVER_ERROR, RestControllerExceptionHandler.INTERNAL_ERROR)
+        );
+    }
+}
@@ -9,10 +9,13 @@ import org.springframework.test.context.jdbc.Sql;
 import org.testcontainers.containers.PostgreSQLContainer;
 
 /**
- * Абстрактный класс, который должен наследовать каждый интеграционный тестовый класс
+ * Абстрактный класс, который должен наследовать каждый интеграционный тестовый класс. Все наследники
+ * работают с одним test container. Перед каждым тестом БД очищается и заполняется тестовыми данными,
+ * поэтому нетранзакционные тесты (@Transactional(propagation = NOT_SUPPORTED)) не влияют на остальные
  */
 @IT
 @Sql({
+        "classpath:sql/clean.sql",
         "classpath:sql/data.sql"
 })
 @WithMockUser(username = "test@mail.ru", password = "test")
@@ -20,7 +23,7 @@ public abstract class IntegrationTestBase {
     /**
      * test container
      */
-    private static final PostgreSQLContainer<?> container
+    protected static final PostgreSQLContainer<?> container
             = new PostgreSQLContainer<>("postgres:14.1");
 
     /**
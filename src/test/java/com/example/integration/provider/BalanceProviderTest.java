@@ -0,0 +1,124 @@
+package com.example.integration.provider;
+
+import com.example.entity.ClientAccount;
+import com.example.integration.IntegrationTestBase;
+import com.example.money.Money;
+import com.example.provider.BalanceProvider;
+import com.example.repository.ClientAccountRepository;
+import com.example.service.AccrualMode;
+import com.example.service.InterestAccrualService;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+
+import static com.example.util.InterestUtil.COEFFICIENT;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Интеграционный тестовый класс для BalanceProvider в режиме начисления LAZY: баланс, вычисленный
+ * при чтении, должен совпадать с балансом, который фиксирует в БД периодическое начисление
+ */
+@RequiredArgsConstructor
+class BalanceProviderTest extends IntegrationTestBase {
+    private static final Integer CLIENT_ID = 1;
+
+    /**
+     * интервал начисления, совпадает с scheduler.interval, с которым работает InterestAccrualService
+     */
+    private static final long INTERVAL = 60_000;
+
+    private final BalanceProvider lazyBalanceProvider = new BalanceProvider(AccrualMode.LAZY, INTERVAL);
+
+    private final ClientAccountRepository clientAccountRepository;
+
+    private final InterestAccrualService interestAccrualService;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * параметризованный метод, тестирующий, что баланс, вычисленный при чтении через periods интервалов,
+     * совпадает с балансом после начисления одним UPDATE запросом (режим SQL), в том числе когда
+     * баланс упирается в максимальный (после 14 интервалов баланс 100 больше не увеличивается)
+     * @param periods - количество прошедших интервалов начисления
+     * @param expectedBalance - ожидаемый баланс
+     */
+    @ParameterizedTest
+    @CsvSource({"1, 105.00", "5, 127.63", "14, 198.01", "30, 198.01"})
+    void derivedBalanceMatchesSqlAccrual(long periods, String expectedBalance) {
+        ClientAccount account = getAccountAccruedPeriodsAgo(periods);
+
+        Money derivedBalance = lazyBalanceProvider.getBalance(account);
+        clientAccountRepository.accrueInterest(COEFFICIENT, INTERVAL);
+
+        assertThat(derivedBalance).isEqualTo(Money.of(expectedBalance));
+        assertThat(getStoredBalance()).isEqualTo(derivedBalance);
+    }
+
+    /**
+     * параметризованный метод, тестирующий, что баланс, вычисленный при чтении через periods интервалов,
+     * совпадает с балансом, зафиксированным начислением порциями сущностей (режим CHUNKED)
+     * @param periods - количество прошедших интервалов начисления
+     * @param expectedBalance - ожидаемый баланс
+     */
+    @ParameterizedTest
+    @CsvSource({"1, 105.00", "5, 127.63", "14, 198.01", "30, 198.01"})
+    void derivedBalanceMatchesChunkedAccrual(long periods, String expectedBalance) {
+        ClientAccount account = getAccountAccruedPeriodsAgo(periods);
+
+        Money derivedBalance = lazyBalanceProvider.getBalance(account);
+        interestAccrualService.accrueChunk(0, Integer.MAX_VALUE, 100);
+
+        assertThat(derivedBalance).isEqualTo(Money.of(expectedBalance));
+        assertThat(getStoredBalance()).isEqualTo(derivedBalance);
+    }
+
+    /**
+     * метод, тестирующий, что баланс меньше 0.10, который не меняется после округления до копеек,
+     * остается прежним и при чтении, и после начисления в БД, а счет не помечается как достигший
+     * максимального баланса
+     */
+    @Test
+    void smallBalanceIsNotAccrued() {
+        jdbcTemplate.update("UPDATE client_service.client_account SET balance = 0.09 WHERE client_id = ?", CLIENT_ID);
+        ClientAccount account = getAccountAccruedPeriodsAgo(1000);
+
+        Money derivedBalance = lazyBalanceProvider.getBalance(account);
+        clientAccountRepository.accrueInterest(COEFFICIENT, INTERVAL);
+        clientAccountRepository.capAccounts(COEFFICIENT);
+
+        assertThat(derivedBalance).isEqualTo(Money.of("0.09"));
+        assertThat(getStoredBalance()).isEqualTo(derivedBalance);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT capped FROM client_service.client_account WHERE client_id = ?", Boolean.class, CLIENT_ID))
+                .isFalse();
+    }
+
+    /**
+     * метод, возвращающий счет клиента, последнее начисление которого было periods с половиной
+     * интервалов назад (половина интервала - запас на время выполнения теста)
+     * @param periods - количество прошедших интервалов начисления
+     * @return ClientAccount - счет клиента
+     */
+    private ClientAccount getAccountAccruedPeriodsAgo(long periods) {
+        jdbcTemplate.update("""
+                        UPDATE client_service.client_account
+                        SET accrued_at = now() - ? * INTERVAL '1 millisecond'
+                        WHERE client_id = ?
+                        """,
+                periods * INTERVAL + INTERVAL / 2, CLIENT_ID);
+        return clientAccountRepository.findClientAccountByClientId(CLIENT_ID).get();
+    }
+
+    /**
+     * метод, читающий баланс счета клиента напрямую из БД, минуя persistence context
+     * @return Money - баланс счета
+     */
+    private Money getStoredBalance() {
+        return Money.of(jdbcTemplate.queryForObject(
+                "SELECT balance FROM client_service.client_account WHERE client_id = ?", BigDecimal.class, CLIENT_ID));
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.integration.repository;
+
+import com.example.dto.TransferMoneyDto;
+import com.example.dto.TransferResultDto;
+import com.example.engine.InMemoryAccountEngine;
+import com.example.integration.IntegrationTestBase;
+import com.example.money.Money;
+import com.example.provider.BalanceProvider;
+import com.example.repository.AccountEntryRepository;
+import com.example.repository.ClientAccountRepository;
+import com.example.service.ClientAccountService;
+import com.example.service.ClientService;
+import com.example.service.HotAccountService;
+import com.example.service.IdempotencyService;
+import com.example.service.LedgerProjectionService;
+import com.example.service.TransferMode;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static com.example.service.LedgerProjectionService.PROJECTION_LOCK_KEY;
+import static com.example.util.InterestUtil.COEFFICIENT;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Интеграционный тестовый класс для журнала операций (режим перевода LEDGER): резервирование суммы
+ * перевода, проекция журнала на балансы и начисление процентов при неучтенных записях
+ */
+@RequiredArgsConstructor
+class AccountEntryRepositoryTest extends IntegrationTestBase {
+    private static final Integer SENDER_CLIENT_ID = 1;
+    private static final Integer RECIPIENT_CLIENT_ID = 2;
+
+    /**
+     * интервал начисления, совпадает с scheduler.interval, с которым работает InterestAccrualService
+     */
+    private static final long INTERVAL = 60_000;
+
+    private final AccountEntryRepository accountEntryRepository;
+
+    private final ClientAccountRepository clientAccountRepository;
+
+    private final LedgerProjectionService ledgerProjectionService;
+
+    private final ClientService clientService;
+
+    private final BalanceProvider balanceProvider;
+
+    private final IdempotencyService idempotencyService;
+
+    private final HotAccountService hotAccountService;
+
+    private final ObjectProvider<InMemoryAccountEngine> accountEngine;
+
+    private final DataSource dataSource;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * метод, тестирующий, что перевод резервирует сумму на счете отправителя, не изменяя балансы,
+     * и отклоняется, если доступный баланс (баланс минус резерв) после него не останется положительным
+     */
+    @Test
+    void appendTransferReservesAgainstAvailableBalance() {
+        BigDecimal amount = new BigDecimal("60.00");
+
+        int appended = accountEntryRepository.appendTransfer(SENDER_CLIENT_ID, RECIPIENT_CLIENT_ID, amount);
+        int rejected = accountEntryRepository.appendTransfer(SENDER_CLIENT_ID, RECIPIENT_CLIENT_ID, amount);
+
+        assertThat(appended).isEqualTo(2);
+        assertThat(rejected).isZero();
+        assertThat(getAccountValue("reserved", SENDER_CLIENT_ID)).isEqualTo(Money.of("60.00"));
+        assertThat(getAccountValue("balance", SENDER_CLIENT_ID)).isEqualTo(Money.of("100.00"));
+        assertThat(getAccountValue("balance", RECIPIENT_CLIENT_ID)).isEqualTo(Money.of("100.00"));
+        assertThat(getPendingEntries()).isEqualTo(2);
+    }
+
+    /**
+     * метод, тестирующий, что проекция переносит неучтенные записи на балансы, снимает резерв
+     * и удерживает advisory-блокировку проекции до конца транзакции
+     */
+    @Test
+    void projectAllAppliesPendingEntriesUnderLock() {
+        accountEntryRepository.appendTransfer(SENDER_CLIENT_ID, RECIPIENT_CLIENT_ID, new BigDecimal("30.00"));
+        accountEntryRepository.appendTransfer(SENDER_CLIENT_ID, RECIPIENT_CLIENT_ID, new BigDecimal("20.00"));
+
+        int updatedAccounts = ledgerProjectionService.projectAll();
+
+        assertThat(updatedAccounts).isEqualTo(2);
+        assertThat(getAccountValue("balance", SENDER_CLIENT_ID)).isEqualTo(Money.of("50.00"));
+        assertThat(getAccountValue("reserved", SENDER_CLIENT_ID)).isEqualTo(Money.ZERO);
+        assertThat(getAccountValue("balance", RECIPIENT_CLIENT_ID)).isEqualTo(Money.of("150.00"));
+        assertThat(getPendingEntries()).isZero();
+        assertThat(jdbcTemplate.queryForObject("""
+                        SELECT count(*)
+                        FROM pg_locks
+                        WHERE locktype = 'advisory'
+                        AND pid = pg_backend_pid()
+                        AND objid::bigint = ?
+                        """, Integer.class, PROJECTION_LOCK_KEY))
+                .isEqualTo(1);
+    }
+
+    /**
+     * метод, тестирующий, что проекция не выполняется, пока блокировку проекции удерживает другой узел
+     */
+    @Test
+    void projectBatchSkipsWhenLockIsHeldByAnotherNode() throws SQLException {
+        accountEntryRepository.appendTransfer(SENDER_CLIENT_ID, RECIPIENT_CLIENT_ID, new BigDecimal("30.00"));
+
+        try (Connection otherNode = dataSource.getConnection()) {
+            otherNode.setAutoCommit(false);
+            try (Statement statement = otherNode.createStatement()) {
+                statement.execute("SELECT pg_advisory_xact_lock(" + PROJECTION_LOCK_KEY + ")");
+                assertThat(ledgerProjectionService.projectBatch()).isZero();
+            } finally {
+                otherNode.rollback();
+            }
+        }
+
+        assertThat(getPendingEntries()).isEqualTo(2);
+        assertThat(getAccountValue("balance", SENDER_CLIENT_ID)).isEqualTo(Money.of("100.00"));
+    }
+
+    /**
+     * метод, тестирующий начисление процентов при неучтенных записях журнала: начисление идет на баланс
+     * без учета резерва, запись о начислении сразу отмечается учтенной, а последующая проекция
+     * применяет перевод к начисленному балансу ровно один раз
+     */
+    @Test
+    void accrueInterestWithPendingEntries() {
+        accountEntryRepository.appendTransfer(SENDER_CLIENT_ID, RECIPIENT_CLIENT_ID, new BigDecimal("50.00"));
+        jdbcTemplate.update("UPDATE client_service.client_account SET accrued_at = now() - ? * INTERVAL '1 millisecond'",
+                INTERVAL + INTERVAL / 2);
+
+        int accruedAccounts = clientAccountRepository.accrueInterestWithEntries(COEFFICIENT, INTERVAL);
+        ledgerProjectionService.projectAll();
+
+        assertThat(accruedAccounts).isEqualTo(10);
+        assertThat(getAccountValue("balance", SENDER_CLIENT_ID)).isEqualTo(Money.of("55.00"));
+        assertThat(getAccountValue("reserved", SENDER_CLIENT_ID)).isEqualTo(Money.ZERO);
+        assertThat(getAccountValue("balance", RECIPIENT_CLIENT_ID)).isEqualTo(Money.of("155.00"));
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM client_service.account_entry WHERE entry_type = 'ACCRUAL' AND projected",
+                Integer.class)).isEqualTo(10);
+    }
+
+    /**
+     * метод, тестирующий, что пакетный перевод в режиме LEDGER со счета, достигшего максимального баланса,
+     * возобновляет начисление процентов только после того, как проекция уменьшит баланс отправителя
+     */
+    @Test
+    void transferGroupUncapsSenderAfterProjection() {
+        jdbcTemplate.update("UPDATE client_service.client_account SET balance = 200, capped = true WHERE client_id = ?",
+                SENDER_CLIENT_ID);
+        ClientAccountService ledgerClientAccountService = new ClientAccountService(clientAccountRepository,
+                clientService, balanceProvider, idempotencyService, hotAccountService, accountEntryRepository,
+                accountEngine, TransferMode.LEDGER);
+
+        List<TransferResultDto> results = ledgerClientAccountService.transferMoneyGroup(SENDER_CLIENT_ID,
+                List.of(new TransferMoneyDto(RECIPIENT_CLIENT_ID, Money.of("50"))), null);
+        clientAccountRepository.flush();
+
+        assertThat(results).extracting(TransferResultDto::getStatus).containsOnly(TransferResultDto.Status.COMPLETED);
+        assertThat(isCapped(SENDER_CLIENT_ID)).isTrue();
+
+        ledgerProjectionService.projectAll();
+
+        assertThat(getAccountValue("balance", SENDER_CLIENT_ID)).isEqualTo(Money.of("150.00"));
+        assertThat(isCapped(SENDER_CLIENT_ID)).isFalse();
+    }
+
+    /**
+     * метод, читающий денежное поле счета клиента напрямую из БД, минуя persistence context
+     * @param column - имя столбца (balance или reserved)
+     * @param clientId - идентификатор клиента
+     * @return Money - значение поля
+     */
+    private Money getAccountValue(String column, Integer clientId) {
+        return Money.of(jdbcTemplate.queryForObject(
+                "SELECT " + column + " FROM client_service.client_account WHERE client_id = ?",
+                BigDecimal.class, clientId));
+    }
+
+    /**
+     * метод, читающий из БД признак достижения максимального баланса счетом клиента
+     * @param clientId - идентификатор клиента
+     * @return boolean - достиг ли счет максимального баланса
+     */
+    private boolean isCapped(Integer clientId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT capped FROM client_service.client_account WHERE client_id = ?", Boolean.class, clientId);
+    }
+
+    /**
+     * метод, возвращающий количество еще не учтенных записей журнала
+     * @return int - количество записей
+     */
+    private int getPendingEntries() {
+        return jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM client_service.account_entry WHERE NOT projected", Integer.class);
+    }
+}
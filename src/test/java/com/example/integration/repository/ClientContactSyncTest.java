@@ -0,0 +1,136 @@
+package com.example.integration.repository;
+
+import com.example.dto.ClientContactsDto;
+import com.example.integration.IntegrationTestBase;
+import com.example.service.ClientService;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Интеграционный тестовый класс для синхронизации контактов между таблицей client_contact и массивами
+ * client.phone_numbers/emails, которые читают экземпляры предыдущей версии, и для повторного переноса
+ * контактов из массивов (функция backfill_client_contacts). Тестовые данные (sql/data.sql) добавляют
+ * контакты напрямую в client_contact, поэтому массивы клиентов заполняет триггер client_contact_arrays_sync
+ */
+@RequiredArgsConstructor
+class ClientContactSyncTest extends IntegrationTestBase {
+    private static final Integer CLIENT_ID = 1;
+
+    private final ClientService clientService;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * метод, тестирующий, что добавление, замена и удаление контактов новой версией отражаются в массивах клиента
+     */
+    @Test
+    void contactChangesAreMirroredToArrays() {
+        assertThat(getArray("emails", CLIENT_ID)).containsExactly("test1@mail.ru");
+
+        clientService.addEmailToClient(CLIENT_ID, "work1@mail.ru");
+        clientService.changeClientPhone(CLIENT_ID, new ClientContactsDto("89111111111", "89000000001"));
+        clientService.removeClientEmail(CLIENT_ID, "test1@mail.ru");
+
+        assertThat(getArray("emails", CLIENT_ID)).containsExactly("work1@mail.ru");
+        assertThat(getArray("phone_numbers", CLIENT_ID)).containsExactly("89000000001");
+    }
+
+    /**
+     * метод, тестирующий, что изменение массивов предыдущей версией отражается в client_contact
+     */
+    @Test
+    void arrayUpdateIsMirroredToContacts() {
+        jdbcTemplate.update("""
+                UPDATE client_service.client
+                SET phone_numbers = '{89000000001, 89000000002}', emails = array_append(emails, 'work1@mail.ru')
+                WHERE id = ?
+                """, CLIENT_ID);
+
+        assertThat(getContacts("PHONE", CLIENT_ID)).containsExactlyInAnyOrder("89000000001", "89000000002");
+        assertThat(getContacts("EMAIL", CLIENT_ID)).containsExactlyInAnyOrder("test1@mail.ru", "work1@mail.ru");
+        assertThat(getArray("phone_numbers", CLIENT_ID)).containsExactly("89000000001", "89000000002");
+    }
+
+    /**
+     * метод, тестирующий, что изменение массивов, добавляющее контакт другого клиента, отклоняется,
+     * а не пропускается молча
+     */
+    @Test
+    void arrayUpdateWithTakenContactFails() {
+        assertThrows(DataIntegrityViolationException.class, () -> jdbcTemplate.update(
+                "UPDATE client_service.client SET emails = array_append(emails, 'test2@mail.ru') WHERE id = ?",
+                CLIENT_ID));
+    }
+
+    /**
+     * метод, тестирующий перенос контактов клиентов, созданных до появления client_contact (без триггера):
+     * свободные контакты переносятся, контакт, занятый другим клиентом, не переносится и учитывается
+     * в количестве конфликтов, массивы клиентов не изменяются, а повторный перенос ничего не добавляет
+     */
+    @Test
+    void backfillMigratesArraysAndReportsConflicts() {
+        jdbcTemplate.execute("ALTER TABLE client_service.client DISABLE TRIGGER client_contacts_sync");
+        jdbcTemplate.update("""
+                INSERT INTO client_service.client(id, fio, birth_date, login, password, phone_numbers, emails)
+                VALUES (11, 'Тест11', '2000-01-10', 'test11@mail.ru', '123', '{89000000011}',
+                        '{test11@mail.ru, test1@mail.ru}'),
+                       (12, 'Тест12', '2000-01-10', 'test12@mail.ru', '123', '{89000000012}', '{test12@mail.ru}')
+                """);
+        jdbcTemplate.execute("ALTER TABLE client_service.client ENABLE TRIGGER client_contacts_sync");
+
+        Integer conflicts = jdbcTemplate.queryForObject(
+                "SELECT client_service.backfill_client_contacts(10, 20)", Integer.class);
+        Integer repeatedConflicts = jdbcTemplate.queryForObject(
+                "SELECT client_service.backfill_client_contacts(10, 20)", Integer.class);
+
+        assertThat(conflicts).isEqualTo(1);
+        assertThat(repeatedConflicts).isEqualTo(1);
+        assertThat(getContacts("EMAIL", 11)).containsExactly("test11@mail.ru");
+        assertThat(getContacts("PHONE", 11)).containsExactly("89000000011");
+        assertThat(getContacts("EMAIL", 12)).containsExactly("test12@mail.ru");
+        assertThat(getContacts("PHONE", 12)).containsExactly("89000000012");
+        assertThat(getContacts("EMAIL", CLIENT_ID)).containsExactly("test1@mail.ru");
+        assertThat(getArray("emails", 11)).containsExactly("test11@mail.ru", "test1@mail.ru");
+    }
+
+    /**
+     * метод, тестирующий, что GIN индексы массивов контактов удалены: поиск выполняется по client_contact
+     */
+    @Test
+    void arrayIndexesAreDropped() {
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT indexname FROM pg_indexes WHERE schemaname = 'client_service' AND tablename = 'client'",
+                String.class))
+                .doesNotContain("client_phone_numbers_gin_idx", "client_emails_gin_idx");
+    }
+
+    /**
+     * метод, читающий контакты клиента заданного типа из client_contact
+     * @param type - тип контакта
+     * @param clientId - идентификатор клиента
+     * @return List<String> - контакты
+     */
+    private List<String> getContacts(String type, Integer clientId) {
+        return jdbcTemplate.queryForList(
+                "SELECT value FROM client_service.client_contact WHERE client_id = ? AND type = ? ORDER BY id",
+                String.class, clientId, type);
+    }
+
+    /**
+     * метод, читающий массив контактов клиента (phone_numbers или emails)
+     * @param column - имя столбца
+     * @param clientId - идентификатор клиента
+     * @return List<String> - контакты в порядке элементов массива
+     */
+    private List<String> getArray(String column, Integer clientId) {
+        return jdbcTemplate.queryForList(
+                "SELECT unnest(" + column + ") FROM client_service.client WHERE id = ?", String.class, clientId);
+    }
+}
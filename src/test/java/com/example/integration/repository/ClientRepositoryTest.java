@@ -0,0 +1,48 @@
+package com.example.integration.repository;
+
+import com.example.integration.IntegrationTestBase;
+import com.example.repository.ClientRepository;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Интеграционный тестовый класс для проверки уникальности логина и контактов при регистрации клиента
+ * (ClientRepository.existsByLoginOrPhoneOrEmail)
+ */
+@RequiredArgsConstructor
+class ClientRepositoryTest extends IntegrationTestBase {
+    private final ClientRepository clientRepository;
+
+    /**
+     * параметризованный метод, тестирующий, что клиент находится по каждому из занятых логина, телефона
+     * и email по отдельности и не находится, если все они свободны
+     * @param login - логин
+     * @param phone - номер телефона
+     * @param email - email
+     * @param exists - ожидаемый результат
+     */
+    @ParameterizedTest
+    @MethodSource("getArgumentsForExistsByLoginOrPhoneOrEmail")
+    void existsByLoginOrPhoneOrEmail(String login, String phone, String email, boolean exists) {
+        assertThat(clientRepository.existsByLoginOrPhoneOrEmail(login, phone, email)).isEqualTo(exists);
+    }
+
+    /**
+     * метод, предоставляющий логин, телефон и email нового клиента и ожидаемый результат проверки
+     * @return Stream<Arguments> - стрим аргументов
+     */
+    static Stream<Arguments> getArgumentsForExistsByLoginOrPhoneOrEmail() {
+        return Stream.of(
+                Arguments.of("test1@mail.ru", "89000000011", "new11@mail.ru", true),
+                Arguments.of("new11@mail.ru", "89111111112", "new11@mail.ru", true),
+                Arguments.of("new11@mail.ru", "89000000011", "test3@mail.ru", true),
+                Arguments.of("new11@mail.ru", "89000000011", "new11@mail.ru", false)
+        );
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.integration.repository;
+
+import com.example.dto.ClientSearchFilter;
+import com.example.entity.Client;
+import com.example.integration.IntegrationTestBase;
+import com.example.repository.ClientRepository;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Интеграционный тестовый класс для поиска клиентов по комбинации фильтров
+ */
+@RequiredArgsConstructor
+class ClientSearchRepositoryTest extends IntegrationTestBase {
+    private final ClientRepository clientRepository;
+
+    /**
+     * метод, тестирующий, что фильтры объединяются через И, а фио ищется по началу без учета регистра
+     */
+    @Test
+    void searchCombinesFilters() {
+        ClientSearchFilter filter = ClientSearchFilter.builder()
+                .birthDate(LocalDate.of(1990, 1, 1))
+                .fio("тест1")
+                .build();
+
+        Slice<Client> clients = clientRepository.search(filter, PageRequest.of(0, 10, Sort.by("fio")));
+
+        assertThat(clients.getContent()).extracting(Client::getFio).containsExactly("Тест1", "Тест10");
+        assertThat(clients.hasNext()).isFalse();
+    }
+
+    /**
+     * метод, тестирующий поиск по телефону и email одного клиента и по контактам разных клиентов
+     */
+    @Test
+    void searchByContacts() {
+        ClientSearchFilter sameClient = ClientSearchFilter.builder()
+                .phone("89111111113")
+                .email("test3@mail.ru")
+                .build();
+        ClientSearchFilter differentClients = ClientSearchFilter.builder()
+                .phone("89111111113")
+                .email("test4@mail.ru")
+                .build();
+
+        assertThat(clientRepository.search(sameClient, PageRequest.of(0, 10)).getContent())
+                .extracting(Client::getId).containsExactly(3);
+        assertThat(clientRepository.search(differentClients, PageRequest.of(0, 10)).getContent()).isEmpty();
+    }
+
+    /**
+     * метод, тестирующий, что клиенты с одинаковой датой рождения упорядочиваются по id,
+     * а наличие следующей страницы определяется без запроса количества
+     */
+    @Test
+    void searchPagesWithStableOrder() {
+        Sort sort = Sort.by(Sort.Direction.DESC, "birthDate");
+
+        Slice<Client> firstPage = clientRepository.search(ClientSearchFilter.builder().build(), PageRequest.of(0, 3, sort));
+        Slice<Client> lastPage = clientRepository.search(ClientSearchFilter.builder().build(), PageRequest.of(3, 3, sort));
+
+        assertThat(firstPage.getContent()).extracting(Client::getId).containsExactly(9, 10, 8);
+        assertThat(firstPage.hasNext()).isTrue();
+        assertThat(lastPage.getContent()).extracting(Client::getId).containsExactly(1);
+        assertThat(lastPage.hasNext()).isFalse();
+    }
+}
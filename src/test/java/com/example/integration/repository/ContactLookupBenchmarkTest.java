@@ -0,0 +1,138 @@
+package com.example.integration.repository;
+
+import com.example.entity.Client;
+import com.example.integration.IntegrationTestBase;
+import com.example.repository.ClientRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlMergeMode;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Бенчмарк поиска клиентов по номеру телефона и email на нескольких миллионах клиентов: сравнивает
+ * прежние запросы через unnest по массивам контактов (полный просмотр таблицы, GIN индексы массивов
+ * удалены) с поиском по уникальному индексу client_contact, а также проверку уникальности при регистрации
+ * с прежним декартовым EXISTS.
+ * Клиенты создаются с массивами контактов, в client_contact их переносит триггер миграции.
+ * Тест не транзакционный, так как VACUUM нельзя выполнить в транзакции, поэтому после теста БД очищается.
+ * Заполнение таблицы занимает время, поэтому тест запускается только с количеством клиентов:
+ * mvn test -Dtest=ContactLookupBenchmarkTest -Dbenchmark.clients=3000000
+ */
+@Slf4j
+@SpringBootTest(properties = "scheduler.enabled=false")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIfSystemProperty(named = "benchmark.clients", matches = "\\d+")
+@RequiredArgsConstructor
+class ContactLookupBenchmarkTest extends IntegrationTestBase {
+    private static final int LOOKUPS = 200;
+    private static final String UNNEST_PHONE_QUERY = """
+            SELECT c.id FROM client_service.client c, unnest(c.phone_numbers) AS pn
+            WHERE pn = ?
+            """;
+    private static final String UNNEST_EMAIL_QUERY = """
+            SELECT c.id FROM client_service.client c, unnest(c.emails) AS em
+            WHERE em = ?
+            """;
+    private static final String CARTESIAN_EXISTS_QUERY = """
+            SELECT EXISTS(SELECT * FROM client_service.client,
+            unnest(phone_numbers) AS pn, unnest(emails) AS em
+            WHERE login = ? OR pn = ? OR em = ?)
+            """;
+    private static final int CARTESIAN_LOOKUPS = 5;
+
+    private final ClientRepository clientRepository;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * метод, заполняющий таблицу клиентов и сравнивающий время поиска по телефону и email
+     * прежними и новыми запросами, а также проверку уникальности при регистрации. Новые запросы должны
+     * использовать индекс client_contact и находить тех же клиентов
+     */
+    @Test
+    @SqlMergeMode(SqlMergeMode.MergeMode.MERGE)
+    @Sql(scripts = "classpath:sql/clean.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    void contactLookupsUseIndexes() {
+        int clients = Integer.getInteger("benchmark.clients");
+        long startedAt = System.nanoTime();
+        jdbcTemplate.update("""
+                INSERT INTO client_service.client(fio, birth_date, login, password, phone_numbers, emails)
+                SELECT 'Клиент' || n, DATE '1970-01-01' + n % 15000, 'bench' || n, '123',
+                       CAST(ARRAY['7' || lpad(n::text, 10, '0')] AS varchar[]),
+                       CAST(ARRAY['bench' || n || '@mail.ru', 'bench' || n || '@work.ru'] AS varchar[])
+                FROM generate_series(1, ?) AS n
+                """, clients);
+        jdbcTemplate.execute("VACUUM ANALYZE client_service.client");
+        jdbcTemplate.execute("VACUUM ANALYZE client_service.client_contact");
+        log.info("Contact lookup benchmark: {} clients loaded in {} ms",
+                clients, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+
+        assertThat(explain("SELECT client_id FROM client_service.client_contact WHERE type = 'PHONE' AND value = '70000000001'"))
+                .contains("client_contact_type_value_idx");
+        assertThat(explain("SELECT client_id FROM client_service.client_contact WHERE type = 'EMAIL' AND value = 'bench1@mail.ru'"))
+                .contains("client_contact_type_value_idx");
+
+        Random random = new Random(0);
+        int[] numbers = random.ints(LOOKUPS, 1, clients + 1).toArray();
+        IntFunction<String> phone = n -> "7" + String.format("%010d", n);
+        IntFunction<String> email = n -> "bench" + n + "@work.ru";
+
+        for (int n : numbers) {
+            List<Integer> unnestIds = jdbcTemplate.queryForList(UNNEST_PHONE_QUERY, Integer.class, phone.apply(n));
+            List<Integer> contactIds = clientRepository.findClientsByPhone(PageRequest.of(0, 10), phone.apply(n))
+                    .map(Client::getId).getContent();
+            assertThat(contactIds).containsExactlyInAnyOrderElementsOf(unnestIds).hasSize(1);
+        }
+
+        log.info("Phone lookup: unnest - {} ms, client_contact - {} ms per query",
+                measure(numbers, n -> jdbcTemplate.queryForList(UNNEST_PHONE_QUERY, Integer.class, phone.apply(n))),
+                measure(numbers, n -> clientRepository.findClientsByPhone(PageRequest.of(0, 10), phone.apply(n))));
+        log.info("Email lookup: unnest - {} ms, client_contact - {} ms per query",
+                measure(numbers, n -> jdbcTemplate.queryForList(UNNEST_EMAIL_QUERY, Integer.class, email.apply(n))),
+                measure(numbers, n -> clientRepository.findClientsByEmail(PageRequest.of(0, 10), email.apply(n))));
+
+        assertThat(clientRepository.existsByLoginOrPhoneOrEmail("new", "new", email.apply(numbers[0]))).isTrue();
+        assertThat(clientRepository.existsByLoginOrPhoneOrEmail("new", "new", "new@mail.ru")).isFalse();
+        log.info("Registration check of a new client: cartesian EXISTS - {} ms, index probes - {} ms per query",
+                measure(new int[CARTESIAN_LOOKUPS], n -> jdbcTemplate.queryForObject(
+                        CARTESIAN_EXISTS_QUERY, Boolean.class, "new", "new", "new@mail.ru")),
+                measure(numbers, n -> clientRepository.existsByLoginOrPhoneOrEmail("new" + n, "new" + n, "new" + n)));
+    }
+
+    /**
+     * метод, возвращающий план выполнения запроса
+     * @param query - запрос
+     * @return String - план выполнения
+     */
+    private String explain(String query) {
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + query, String.class));
+    }
+
+    /**
+     * метод, измеряющий среднее время выполнения поиска
+     * @param numbers - номера искомых клиентов
+     * @param lookup - поиск
+     * @return double - среднее время поиска в мс
+     */
+    private double measure(int[] numbers, IntFunction<?> lookup) {
+        long startedAt = System.nanoTime();
+        for (int n : numbers) {
+            lookup.apply(n);
+        }
+        return (System.nanoTime() - startedAt) / 1_000_000.0 / numbers.length;
+    }
+}
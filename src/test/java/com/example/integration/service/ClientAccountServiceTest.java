@@ -1,17 +1,24 @@
 package com.example.integration.service;
 
+import com.example.dto.TransferResultDto;
 import com.example.entity.ClientAccount;
 import com.example.repository.ClientAccountRepository;
 import com.example.dto.TransferMoneyDto;
+import com.example.money.Money;
 import com.example.http.exception.ClientAccountException;
+import com.example.http.exception.IdempotencyKeyReusedException;
 import com.example.integration.IntegrationTestBase;
+import com.example.service.AccountLockManager;
 import com.example.service.ClientAccountService;
+import com.example.service.IdempotencyService;
+import com.example.service.OptimisticLockRetry;
+import com.example.service.TransferBatchService;
 import lombok.RequiredArgsConstructor;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
-import java.math.BigDecimal;
+import java.util.List;
 import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -26,18 +33,25 @@ class ClientAccountServiceTest extends IntegrationTestBase {
     private static final Integer RECIPIENT_CLIENT_ID = 2;
     private static final Integer RECIPIENT_FAKE_CLIENT_ID = 14;
     private static final String SENDER_LOGIN = "test1@mail.ru";
+    private static final String IDEMPOTENCY_KEY = "payroll-2024-05-1";
 
     private final ClientAccountService clientAccountService;
 
     private final ClientAccountRepository clientAccountRepository;
 
+    private final IdempotencyService idempotencyService;
+
+    private final OptimisticLockRetry optimisticLockRetry;
+
+    private final AccountLockManager accountLockManager;
+
     /**
      * метод, тестирующий трансфер денежных средств
      */
     @Test
     void transferMoney() {
         TransferMoneyDto transferMoneyDto
-                = new TransferMoneyDto(RECIPIENT_CLIENT_ID, 20f);
+                = new TransferMoneyDto(RECIPIENT_CLIENT_ID, Money.of("20"));
 
         clientAccountService.transferMoney(SENDER_LOGIN, transferMoneyDto);
 
@@ -46,8 +60,66 @@ class ClientAccountServiceTest extends IntegrationTestBase {
         ClientAccount recipientAccount
                 = clientAccountRepository.findClientAccountByClientId(RECIPIENT_CLIENT_ID).get();
 
-        assertThat(senderAccount.getBalance()).isEqualTo(new BigDecimal(80));
-        assertThat(recipientAccount.getBalance()).isEqualTo(new BigDecimal(120));
+        assertThat(senderAccount.getBalance()).isEqualTo(Money.of("80"));
+        assertThat(recipientAccount.getBalance()).isEqualTo(Money.of("120"));
+    }
+
+    /**
+     * метод, тестирующий, что повторный перевод с тем же ключом идемпотентности и тем же телом
+     * завершается успешно без повторного списания
+     */
+    @Test
+    void transferMoneyWithIdempotencyKeyIsReplayed() {
+        TransferMoneyDto transferMoneyDto = new TransferMoneyDto(RECIPIENT_CLIENT_ID, Money.of("20"));
+
+        clientAccountService.transferMoney(SENDER_CLIENT_ID, transferMoneyDto, IDEMPOTENCY_KEY);
+        clientAccountService.transferMoney(SENDER_CLIENT_ID,
+                new TransferMoneyDto(RECIPIENT_CLIENT_ID, Money.of("20.00")), IDEMPOTENCY_KEY);
+
+        assertThat(getBalance(SENDER_CLIENT_ID)).isEqualTo(Money.of("80"));
+        assertThat(getBalance(RECIPIENT_CLIENT_ID)).isEqualTo(Money.of("120"));
+    }
+
+    /**
+     * параметризованный метод, тестирующий, что ключ идемпотентности нельзя использовать для перевода
+     * с другим телом, в том числе с телом, hashCode() которого совпадает с первым (2, 1.59 и 3, 1.00)
+     * @param transferMoneyDto - первый перевод
+     * @param reusedKeyTransferMoneyDto - перевод с тем же ключом
+     */
+    @ParameterizedTest
+    @MethodSource("getArgumentsForReusedKey")
+    void transferMoneyWithReusedIdempotencyKeyIsRejected(TransferMoneyDto transferMoneyDto,
+                                                         TransferMoneyDto reusedKeyTransferMoneyDto) {
+        clientAccountService.transferMoney(SENDER_CLIENT_ID, transferMoneyDto, IDEMPOTENCY_KEY);
+
+        IdempotencyKeyReusedException exception = assertThrows(IdempotencyKeyReusedException.class,
+                () -> clientAccountService.transferMoney(SENDER_CLIENT_ID, reusedKeyTransferMoneyDto, IDEMPOTENCY_KEY));
+
+        assertThat(exception.getMessage()).isEqualTo(IdempotencyService.KEY_REUSED);
+        assertThat(getBalance(SENDER_CLIENT_ID)).isEqualTo(Money.of("100").minus(transferMoneyDto.getAmount()));
+        assertThat(getBalance(3)).isEqualTo(Money.of("100"));
+    }
+
+    /**
+     * метод, тестирующий, что повтор пакета переводов с тем же ключом возвращает сохраненные результаты
+     * без повторного списания, даже если размер групп пакета изменился между запросами
+     */
+    @Test
+    void transferBatchWithIdempotencyKeyIsReplayed() {
+        List<TransferMoneyDto> transfers = List.of(
+                new TransferMoneyDto(RECIPIENT_CLIENT_ID, Money.of("10")),
+                new TransferMoneyDto(3, Money.of("10")),
+                new TransferMoneyDto(RECIPIENT_CLIENT_ID, Money.of("10")));
+
+        List<TransferResultDto> results = getTransferBatchService(1)
+                .transferMoney(SENDER_CLIENT_ID, transfers, IDEMPOTENCY_KEY);
+        List<TransferResultDto> replayedResults = getTransferBatchService(2)
+                .transferMoney(SENDER_CLIENT_ID, transfers, IDEMPOTENCY_KEY);
+
+        assertThat(results).extracting(TransferResultDto::getStatus).containsOnly(TransferResultDto.Status.COMPLETED);
+        assertThat(replayedResults).isEqualTo(results);
+        assertThat(getBalance(SENDER_CLIENT_ID)).isEqualTo(Money.of("70"));
+        assertThat(getBalance(RECIPIENT_CLIENT_ID)).isEqualTo(Money.of("120"));
     }
 
     /**
@@ -73,13 +145,49 @@ class ClientAccountServiceTest extends IntegrationTestBase {
     static Stream<Arguments> getArgumentsForExceptionScenarios(){
         return Stream.of(
                 Arguments.of(
-                        new TransferMoneyDto(RECIPIENT_FAKE_CLIENT_ID, 20f),
+                        new TransferMoneyDto(RECIPIENT_FAKE_CLIENT_ID, Money.of("20")),
                         "Счет у клиента не найден"
                 ),
                 Arguments.of(
-                        new TransferMoneyDto(RECIPIENT_CLIENT_ID, 120f),
+                        new TransferMoneyDto(RECIPIENT_CLIENT_ID, Money.of("120")),
                         "На счету недостаточно средств"
                 )
         );
     }
-}
\ No newline at end of file
+
+    /**
+     * метод, предоставляющий первый перевод и перевод с тем же ключом идемпотентности, но другим телом
+     * @return Stream<Arguments> - стрим аргументов
+     */
+    static Stream<Arguments> getArgumentsForReusedKey() {
+        return Stream.of(
+                Arguments.of(
+                        new TransferMoneyDto(RECIPIENT_CLIENT_ID, Money.of("20")),
+                        new TransferMoneyDto(RECIPIENT_CLIENT_ID, Money.of("30"))
+                ),
+                Arguments.of(
+                        new TransferMoneyDto(RECIPIENT_CLIENT_ID, Money.of("1.59")),
+                        new TransferMoneyDto(3, Money.of("1.00"))
+                )
+        );
+    }
+
+    /**
+     * метод, создающий сервис пакетных переводов с размером групп commitSize
+     * @param commitSize - количество переводов в группе
+     * @return TransferBatchService - сервис пакетных переводов
+     */
+    private TransferBatchService getTransferBatchService(int commitSize) {
+        return new TransferBatchService(clientAccountService, idempotencyService, optimisticLockRetry,
+                accountLockManager, commitSize);
+    }
+
+    /**
+     * метод, возвращающий баланс счета клиента
+     * @param clientId - идентификатор клиента
+     * @return Money - баланс счета
+     */
+    private Money getBalance(Integer clientId) {
+        return clientAccountRepository.findClientAccountByClientId(clientId).get().getBalance();
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.integration.service;
+
+import com.example.dto.ClientReadDto;
+import com.example.dto.KeysetSlice;
+import com.example.http.exception.ClientException;
+import com.example.integration.IntegrationTestBase;
+import com.example.service.ClientService;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Интеграционный тестовый класс для ClientService: keyset пагинация поиска клиентов и изменение контактов
+ */
+@RequiredArgsConstructor
+class ClientServiceTest extends IntegrationTestBase {
+    private static final int PAGE_SIZE = 3;
+    private static final LocalDate BIRTH_DATE = LocalDate.of(1990, 1, 1);
+
+    private final ClientService clientService;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * метод, тестирующий, что обход страниц по курсору возвращает тех же клиентов в том же порядке,
+     * что и постраничный доступ, включая клиентов с одинаковой датой рождения
+     */
+    @Test
+    void birthDateCursorPagesMatchOffsetPages() {
+        List<Integer> byOffset = new ArrayList<>();
+        for (int page = 0; page < 4; page++) {
+            clientService.getClientsByBirthDate(page, PAGE_SIZE, BIRTH_DATE, null)
+                    .forEach(client -> byOffset.add(client.getId()));
+        }
+
+        List<Integer> byCursor = new ArrayList<>();
+        String cursor = null;
+        do {
+            KeysetSlice<ClientReadDto> clients
+                    = (KeysetSlice<ClientReadDto>) clientService.getClientsByBirthDate(0, PAGE_SIZE, BIRTH_DATE, cursor);
+            clients.forEach(client -> byCursor.add(client.getId()));
+            cursor = clients.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(byCursor).containsExactly(1, 2, 3, 4, 5, 6, 7, 8, 9, 10).isEqualTo(byOffset);
+    }
+
+    /**
+     * метод, тестирующий обход клиентов по фио по курсору и отклонение поврежденного курсора
+     */
+    @Test
+    void fioCursorPages() {
+        List<Integer> byCursor = new ArrayList<>();
+        String cursor = null;
+        do {
+            KeysetSlice<ClientReadDto> clients
+                    = (KeysetSlice<ClientReadDto>) clientService.getClientsByFio(0, PAGE_SIZE, "тест", cursor);
+            clients.forEach(client -> byCursor.add(client.getId()));
+            cursor = clients.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(byCursor).containsExactly(1, 10, 2, 3, 4, 5, 6, 7, 8, 9);
+        assertThrows(ResponseStatusException.class, () -> clientService.getClientsByFio(0, PAGE_SIZE, "тест", "broken"));
+    }
+
+    /**
+     * метод, тестирующий, что удаление последнего email и последнего номера телефона клиента отклоняется,
+     * а контакты остаются и в client_contact, и в массивах клиента
+     */
+    @Test
+    void removeLastContactIsRefused() {
+        ClientException emailException = assertThrows(ClientException.class,
+                () -> clientService.removeClientEmail(1, "test1@mail.ru"));
+        ClientException phoneException = assertThrows(ClientException.class,
+                () -> clientService.removeClientPhone(1, "89111111111"));
+
+        assertThat(emailException.getMessage()).isEqualTo(ClientService.LAST_EMAIL);
+        assertThat(phoneException.getMessage()).isEqualTo(ClientService.LAST_PHONE);
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT value FROM client_service.client_contact WHERE client_id = 1 ORDER BY type", String.class))
+                .containsExactly("test1@mail.ru", "89111111111");
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT unnest(emails || phone_numbers) FROM client_service.client WHERE id = 1", String.class))
+                .containsExactly("test1@mail.ru", "89111111111");
+    }
+}
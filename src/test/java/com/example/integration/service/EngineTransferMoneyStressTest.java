@@ -0,0 +1,54 @@
+package com.example.integration.service;
+
+import com.example.dto.TransferMoneyDto;
+import com.example.engine.InMemoryAccountEngine;
+import com.example.repository.ClientAccountRepository;
+import com.example.service.ClientAccountService;
+import com.example.service.OptimisticLockRetry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Path;
+
+/**
+ * Нагрузка TransferMoneyStressTest в режиме перевода ENGINE: переводы выполняются движком в памяти
+ * вне транзакции, перед проверкой балансов в БД переводы переносятся контрольной точкой
+ */
+@SpringBootTest(properties = {"scheduler.enabled=false", "transfer.mode=ENGINE"})
+class EngineTransferMoneyStressTest extends TransferMoneyStressTest {
+    @TempDir
+    static Path walDirectory;
+
+    private final InMemoryAccountEngine accountEngine;
+
+    EngineTransferMoneyStressTest(ClientAccountService clientAccountService,
+                                  ClientAccountRepository clientAccountRepository,
+                                  OptimisticLockRetry optimisticLockRetry,
+                                  MeterRegistry meterRegistry,
+                                  InMemoryAccountEngine accountEngine) {
+        super(clientAccountService, clientAccountRepository, optimisticLockRetry, meterRegistry);
+        this.accountEngine = accountEngine;
+    }
+
+    /**
+     * метод динамически устанавливающий каталог WAL
+     * @param registry - реестр свойств
+     */
+    @DynamicPropertySource
+    static void walProperties(DynamicPropertyRegistry registry) {
+        registry.add("transfer.engine.wal-dir", () -> walDirectory.toString());
+    }
+
+    @Override
+    protected void transferMoney(Integer senderClientId, TransferMoneyDto transferMoneyDto) {
+        clientAccountService.transferMoneyByEngine(senderClientId, transferMoneyDto, null);
+    }
+
+    @Override
+    protected void flushTransfers() {
+        accountEngine.checkpoint();
+    }
+}
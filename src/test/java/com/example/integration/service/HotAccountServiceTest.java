@@ -0,0 +1,215 @@
+package com.example.integration.service;
+
+import com.example.dto.TransferMoneyDto;
+import com.example.http.exception.ClientAccountException;
+import com.example.integration.IntegrationTestBase;
+import com.example.money.Money;
+import com.example.repository.ClientAccountRepository;
+import com.example.service.ClientAccountService;
+import com.example.service.HotAccountService;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlMergeMode;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Интеграционный тестовый класс для HotAccountService: зачисления на слоты горячих счетов
+ * клиентов 2 и 3 и перенос сумм со слотов в баланс. В контексте приложения горячий счет - счет клиента 2
+ */
+@RequiredArgsConstructor
+@SpringBootTest(properties = {"transfer.hot-accounts.client-ids=2", "transfer.hot-accounts.slots=4"})
+class HotAccountServiceTest extends IntegrationTestBase {
+    private static final Integer SENDER_CLIENT_ID = 1;
+    private static final Integer HOT_CLIENT_ID = 2;
+    private static final Integer OTHER_HOT_CLIENT_ID = 3;
+    private static final int SLOTS = 4;
+    private static final int TRANSFERS = 200;
+
+    private final ClientAccountRepository clientAccountRepository;
+
+    private final ClientAccountService clientAccountService;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * метод, тестирующий, что перевод на горячий счет списывает сумму с баланса отправителя и зачисляет ее
+     * на слот, не изменяя баланс получателя, а видимая сумма на слотах учитывает зачисление
+     */
+    @Test
+    void transferToSlotCreditsSlot() {
+        HotAccountService service = getHotAccountService();
+        service.splitHotAccounts();
+
+        assertThat(service.transferToSlot(SENDER_CLIENT_ID, HOT_CLIENT_ID, Money.of("30"))).isTrue();
+        assertThat(service.transferToSlot(SENDER_CLIENT_ID, HOT_CLIENT_ID, Money.of("80"))).isFalse();
+
+        assertThat(getBalance(SENDER_CLIENT_ID)).isEqualTo(Money.of("70"));
+        assertThat(getBalance(HOT_CLIENT_ID)).isEqualTo(Money.of("100"));
+        assertThat(getSlotBalance(HOT_CLIENT_ID)).isEqualTo(Money.of("30"));
+        assertThat(service.getSlotMoney(clientAccountRepository.findClientAccountByClientId(HOT_CLIENT_ID).get()))
+                .isEqualTo(Money.of("30"));
+    }
+
+    /**
+     * метод, тестирующий, что горячему счету, у которого еще нет слотов (счет открыт после запуска
+     * приложения), слоты создаются при первом зачислении, и перевод не отклоняется
+     */
+    @Test
+    void transferToSlotCreatesSlotsOfLateHotAccount() {
+        HotAccountService service = getHotAccountService();
+
+        assertThat(service.transferToSlot(SENDER_CLIENT_ID, HOT_CLIENT_ID, Money.of("30"))).isTrue();
+
+        assertThat(jdbcTemplate.queryForObject("""
+                        SELECT count(*)
+                        FROM client_service.account_slot s
+                        JOIN client_service.client_account ca ON ca.id = s.account_id
+                        WHERE ca.client_id = ?
+                        """, Integer.class, HOT_CLIENT_ID))
+                .isEqualTo(SLOTS);
+        assertThat(getSlotBalance(HOT_CLIENT_ID)).isEqualTo(Money.of("30"));
+    }
+
+    /**
+     * метод, тестирующий, что перенос со слотов выполняется только для горячих счетов среди переданных
+     * клиентов, увеличивает баланс на сумму слотов и обнуляет слоты
+     */
+    @Test
+    void sweepMovesSlotsIntoBalance() {
+        HotAccountService service = getHotAccountService();
+        service.splitHotAccounts();
+        service.transferToSlot(SENDER_CLIENT_ID, HOT_CLIENT_ID, Money.of("30"));
+        service.transferToSlot(SENDER_CLIENT_ID, HOT_CLIENT_ID, Money.of("20"));
+
+        assertThat(service.sweep(List.of(SENDER_CLIENT_ID, 4))).isZero();
+        assertThat(service.sweep(List.of(SENDER_CLIENT_ID, HOT_CLIENT_ID))).isEqualTo(1);
+        assertThat(service.sweep(List.of(HOT_CLIENT_ID))).isZero();
+
+        assertThat(getBalance(HOT_CLIENT_ID)).isEqualTo(Money.of("150"));
+        assertThat(getSlotBalance(HOT_CLIENT_ID)).isEqualTo(Money.ZERO);
+    }
+
+    /**
+     * метод, тестирующий перенос со всех непустых слотов всех горячих счетов
+     */
+    @Test
+    void sweepAllMovesAllSlotsIntoBalances() {
+        HotAccountService service = getHotAccountService();
+        service.splitHotAccounts();
+        service.transferToSlot(SENDER_CLIENT_ID, HOT_CLIENT_ID, Money.of("30"));
+        service.transferToSlot(SENDER_CLIENT_ID, OTHER_HOT_CLIENT_ID, Money.of("20"));
+
+        assertThat(service.sweepAll()).isEqualTo(2);
+        assertThat(service.sweepAll()).isZero();
+
+        assertThat(getBalance(SENDER_CLIENT_ID)).isEqualTo(Money.of("50"));
+        assertThat(getBalance(HOT_CLIENT_ID)).isEqualTo(Money.of("130"));
+        assertThat(getBalance(OTHER_HOT_CLIENT_ID)).isEqualTo(Money.of("120"));
+        assertThat(getSlotBalance(HOT_CLIENT_ID).plus(getSlotBalance(OTHER_HOT_CLIENT_ID))).isEqualTo(Money.ZERO);
+    }
+
+    /**
+     * метод, тестирующий встречные переводы между обычным и горячим счетом: на баланс горячего счета
+     * не хватает средств для перевода, поэтому каждый перевод с него переносит суммы со слотов, на которые
+     * одновременно зачисляются переводы обычного счета. Переводы не должны завершаться взаимной блокировкой,
+     * а суммарный баланс обоих счетов (вместе со слотами) не меняется.
+     * Тест не транзакционный, чтобы каждый перевод выполнялся в собственной транзакции, поэтому после теста
+     * БД очищается
+     * @throws Exception - exception
+     */
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @SqlMergeMode(SqlMergeMode.MergeMode.MERGE)
+    @Sql(scripts = "classpath:sql/clean.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    void oppositeTransfersWithHotAccountDoNotDeadlock() throws Exception {
+        jdbcTemplate.update("UPDATE client_service.client_account SET balance = 1 WHERE client_id = ?", HOT_CLIENT_ID);
+        AtomicInteger completed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<?> toHot = executor.submit(() -> transferRepeatedly(start, SENDER_CLIENT_ID, HOT_CLIENT_ID, completed));
+        Future<?> fromHot
+                = executor.submit(() -> transferRepeatedly(start, HOT_CLIENT_ID, SENDER_CLIENT_ID, completed));
+
+        start.countDown();
+        toHot.get(1, TimeUnit.MINUTES);
+        fromHot.get(1, TimeUnit.MINUTES);
+        executor.shutdown();
+
+        assertThat(completed.get()).isPositive();
+        assertThat(getBalance(SENDER_CLIENT_ID).plus(getBalance(HOT_CLIENT_ID)).plus(getSlotBalance(HOT_CLIENT_ID)))
+                .isEqualTo(Money.of("101"));
+    }
+
+    /**
+     * метод, выполняющий TRANSFERS переводов по 1 со счета отправителя на счет получателя. Отказ из-за
+     * нехватки средств допустим, взаимная блокировка (PessimisticLockingFailureException) завершает поток с ошибкой
+     * @param start - сигнал начала переводов
+     * @param senderClientId - идентификатор клиента-отправителя
+     * @param recipientClientId - идентификатор клиента-получателя
+     * @param completed - счетчик выполненных переводов
+     * @return Void - null
+     * @throws InterruptedException - exception
+     */
+    private Void transferRepeatedly(CountDownLatch start, Integer senderClientId, Integer recipientClientId,
+                                    AtomicInteger completed) throws InterruptedException {
+        start.await();
+        for (int i = 0; i < TRANSFERS; i++) {
+            try {
+                clientAccountService.transferMoney(senderClientId,
+                        new TransferMoneyDto(recipientClientId, Money.of("1")));
+                completed.incrementAndGet();
+            } catch (ClientAccountException e) {
+                assertThat(e.getMessage()).isEqualTo(ClientAccountService.INSUFFICIENT_FUNDS);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * метод, создающий сервис горячих счетов клиентов 2 и 3
+     * @return HotAccountService - сервис горячих счетов
+     */
+    private HotAccountService getHotAccountService() {
+        return new HotAccountService(clientAccountRepository, Set.of(HOT_CLIENT_ID, OTHER_HOT_CLIENT_ID), SLOTS);
+    }
+
+    /**
+     * метод, читающий баланс счета клиента напрямую из БД, минуя persistence context
+     * @param clientId - идентификатор клиента
+     * @return Money - баланс счета
+     */
+    private Money getBalance(Integer clientId) {
+        return Money.of(jdbcTemplate.queryForObject(
+                "SELECT balance FROM client_service.client_account WHERE client_id = ?", BigDecimal.class, clientId));
+    }
+
+    /**
+     * метод, читающий сумму на слотах счета клиента напрямую из БД
+     * @param clientId - идентификатор клиента
+     * @return Money - сумма на слотах
+     */
+    private Money getSlotBalance(Integer clientId) {
+        return Money.of(jdbcTemplate.queryForObject("""
+                SELECT COALESCE(SUM(s.balance), 0)
+                FROM client_service.account_slot s
+                JOIN client_service.client_account ca ON ca.id = s.account_id
+                WHERE ca.client_id = ?
+                """, BigDecimal.class, clientId));
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.integration.service;
+
+import com.example.integration.IntegrationTestBase;
+import com.example.money.Money;
+import com.example.repository.ClientAccountRepository;
+import com.example.service.AccrualMode;
+import com.example.service.HotAccountService;
+import com.example.service.InterestAccrualScheduler;
+import com.example.service.InterestAccrualService;
+import com.example.service.OptimisticLockRetry;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Интеграционный тестовый класс для режимов начисления процентов CHUNKED, PARTITIONED и CLUSTER.
+ * Планировщик создается в тесте для каждого режима, диапазоны id выполняются в потоке теста
+ * (в его транзакции), порции, диапазоны и единицы работы по 3 счета, чтобы 10 счетов
+ * обрабатывались в несколько проходов
+ */
+@RequiredArgsConstructor
+class InterestAccrualModesTest extends IntegrationTestBase {
+    /**
+     * интервал начисления, совпадает с scheduler.interval, с которым работает InterestAccrualService
+     */
+    private static final long INTERVAL = 60_000;
+    private static final int BATCH_SIZE = 3;
+    private static final int CLIENTS = 10;
+
+    private final InterestAccrualService interestAccrualService;
+
+    private final HotAccountService hotAccountService;
+
+    private final ClientAccountRepository clientAccountRepository;
+
+    private final OptimisticLockRetry optimisticLockRetry;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * параметризованный метод, тестирующий, что каждый счет получает проценты за прошедший интервал
+     * ровно один раз, даже если начисление запускается повторно
+     * @param accrualMode - режим начисления
+     */
+    @ParameterizedTest
+    @EnumSource(value = AccrualMode.class, names = {"CHUNKED", "PARTITIONED", "CLUSTER"})
+    void accrueOnePeriod(AccrualMode accrualMode) {
+        setAccruedPeriodsAgo(1, "TRUE");
+        InterestAccrualScheduler scheduler = getScheduler(accrualMode);
+
+        scheduler.accrueInterestToClients();
+        scheduler.accrueInterestToClients();
+
+        assertThat(getBalances("TRUE")).hasSize(CLIENTS).containsOnly(Money.of("105.00"));
+    }
+
+    /**
+     * параметризованный метод, тестирующий, что счет, баланс которого после начисления превысил бы
+     * максимальный (207), не изменяется и помечается как достигший максимального баланса,
+     * а остальные счета получают проценты
+     * @param accrualMode - режим начисления
+     */
+    @ParameterizedTest
+    @EnumSource(value = AccrualMode.class, names = {"CHUNKED", "PARTITIONED", "CLUSTER"})
+    void capAccountAtLimitBalance(AccrualMode accrualMode) {
+        jdbcTemplate.update("UPDATE client_service.client_account SET balance = 200 WHERE client_id = 5");
+        setAccruedPeriodsAgo(1, "TRUE");
+
+        getScheduler(accrualMode).accrueInterestToClients();
+
+        assertThat(getBalances("client_id = 5")).containsExactly(Money.of("200.00"));
+        assertThat(getBalances("client_id <> 5")).hasSize(CLIENTS - 1).containsOnly(Money.of("105.00"));
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT client_id FROM client_service.client_account WHERE capped", Integer.class))
+                .containsExactly(5);
+    }
+
+    /**
+     * параметризованный метод, тестирующий догоняющее начисление после простоя: при запуске приложения
+     * каждый счет получает проценты за все пропущенные интервалы за один проход (счет клиента 2 -
+     * до максимального баланса), а повторный запуск ничего не начисляет
+     * @param accrualMode - режим начисления
+     */
+    @ParameterizedTest
+    @EnumSource(value = AccrualMode.class, names = {"CHUNKED", "PARTITIONED", "CLUSTER"})
+    void catchUpMissedPeriodsOnRestart(AccrualMode accrualMode) {
+        setAccruedPeriodsAgo(3, "client_id <> 2");
+        setAccruedPeriodsAgo(30, "client_id = 2");
+        InterestAccrualScheduler scheduler = getScheduler(accrualMode);
+
+        scheduler.accrueMissedInterest();
+        scheduler.accrueMissedInterest();
+
+        assertThat(getBalances("client_id <> 2")).hasSize(CLIENTS - 1).containsOnly(Money.of("115.76"));
+        assertThat(getBalances("client_id = 2")).containsExactly(Money.of("198.01"));
+    }
+
+    /**
+     * метод, создающий планировщик начисления в режиме accrualMode с фиксированными часами,
+     * поэтому повторные запуски в режиме CLUSTER относятся к одному номеру запуска
+     * @param accrualMode - режим начисления
+     * @return InterestAccrualScheduler - планировщик
+     */
+    private InterestAccrualScheduler getScheduler(AccrualMode accrualMode) {
+        return new InterestAccrualScheduler(interestAccrualService, hotAccountService, clientAccountRepository,
+                optimisticLockRetry, Runnable::run, Clock.fixed(Instant.now(), ZoneOffset.UTC), accrualMode,
+                BATCH_SIZE, BATCH_SIZE, INTERVAL, BATCH_SIZE, "node-1", true);
+    }
+
+    /**
+     * метод, сдвигающий момент последнего начисления счетов, подходящих под условие, на periods
+     * с половиной интервалов назад (половина интервала - запас на время выполнения теста)
+     * @param periods - количество пропущенных интервалов начисления
+     * @param condition - условие на счета (SQL)
+     */
+    private void setAccruedPeriodsAgo(long periods, String condition) {
+        jdbcTemplate.update("UPDATE client_service.client_account SET accrued_at = now() - ? * INTERVAL '1 millisecond' "
+                + "WHERE " + condition, periods * INTERVAL + INTERVAL / 2);
+    }
+
+    /**
+     * метод, читающий балансы счетов, подходящих под условие, напрямую из БД
+     * @param condition - условие на счета (SQL)
+     * @return List<Money> - балансы счетов
+     */
+    private List<Money> getBalances(String condition) {
+        return jdbcTemplate.queryForList("SELECT balance FROM client_service.client_account WHERE " + condition,
+                        BigDecimal.class).stream()
+                .map(Money::of)
+                .toList();
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.integration.service;
+
+import com.example.ClientServiceSpringApplicationRunner;
+import com.example.integration.IntegrationTestBase;
+import com.example.service.InterestAccrualScheduler;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlMergeMode;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Интеграционный тестовый класс для кластерного начисления процентов (режим CLUSTER):
+ * несколько экземпляров приложения работают с одной БД. Узлы фиксируют начисление в собственных
+ * транзакциях, поэтому тест не транзакционный, и после теста БД очищается
+ */
+@SpringBootTest(properties = "scheduler.enabled=false")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@RequiredArgsConstructor
+class InterestAccrualSchedulerTest extends IntegrationTestBase {
+    private static final int NODES = 3;
+    private static final long TICK_NO = 1;
+    private static final List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * метод, запускающий несколько контекстов приложения, подключенных к test container
+     */
+    @BeforeAll
+    static void runNodes() {
+        for (int i = 0; i < NODES; i++) {
+            contexts.add(new SpringApplicationBuilder(ClientServiceSpringApplicationRunner.class)
+                    .profiles("test")
+                    .properties(
+                            "spring.datasource.url=" + container.getJdbcUrl(),
+                            "server.port=0",
+                            "scheduler.interval=3600000",
+                            "scheduler.accrual.mode=CLUSTER",
+                            "scheduler.accrual.unit-size=3",
+                            "scheduler.accrual.catch-up-on-start=false",
+                            "scheduler.accrual.node-id=node-" + i
+                    )
+                    .run());
+        }
+    }
+
+    /**
+     * метод, останавливающий контексты приложения
+     */
+    @AfterAll
+    static void stopNodes() {
+        contexts.forEach(ConfigurableApplicationContext::close);
+    }
+
+    /**
+     * метод, сдвигающий момент последнего начисления всех счетов на интервал запуска узлов назад
+     */
+    @BeforeEach
+    void initAccruedAt() {
+        jdbcTemplate.update("UPDATE client_service.client_account SET accrued_at = now() - interval '61 minutes'");
+    }
+
+    /**
+     * метод, тестирующий, что при одновременном запуске начисления на всех узлах
+     * каждый счет получает начисление ровно один раз за прошедший интервал
+     * @throws Exception - exception
+     */
+    @Test
+    @SqlMergeMode(SqlMergeMode.MergeMode.MERGE)
+    @Sql(scripts = "classpath:sql/clean.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    void accrueByWorkUnits() throws Exception {
+        assertThat(runTickOnAllNodes()).isEqualTo(10);
+        assertThat(runTickOnAllNodes()).isZero();
+
+        List<BigDecimal> balances = jdbcTemplate.queryForList(
+                "SELECT balance FROM client_service.client_account", BigDecimal.class);
+        assertThat(balances)
+                .hasSize(10)
+                .allSatisfy(balance ->
+                        assertThat(balance.setScale(2, RoundingMode.HALF_UP)).isEqualTo(new BigDecimal("105.00")));
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM client_service.accrual_work_unit WHERE completed_at IS NULL", Integer.class))
+                .isZero();
+    }
+
+    /**
+     * метод, одновременно запускающий начисление TICK_NO на всех узлах
+     * @return int - суммарное количество обновленных счетов
+     * @throws Exception - exception
+     */
+    private int runTickOnAllNodes() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(NODES);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (ConfigurableApplicationContext context : contexts) {
+                InterestAccrualScheduler scheduler = context.getBean(InterestAccrualScheduler.class);
+                futures.add(executor.submit(() -> scheduler.accrueByWorkUnits(TICK_NO)));
+            }
+
+            int updatedAccounts = 0;
+            for (Future<Integer> future : futures) {
+                updatedAccounts += future.get();
+            }
+            return updatedAccounts;
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
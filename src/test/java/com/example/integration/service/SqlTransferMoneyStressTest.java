@@ -0,0 +1,21 @@
+package com.example.integration.service;
+
+import com.example.repository.ClientAccountRepository;
+import com.example.service.ClientAccountService;
+import com.example.service.OptimisticLockRetry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Нагрузка TransferMoneyStressTest в режиме перевода SQL
+ */
+@SpringBootTest(properties = {"scheduler.enabled=false", "transfer.mode=SQL"})
+class SqlTransferMoneyStressTest extends TransferMoneyStressTest {
+
+    SqlTransferMoneyStressTest(ClientAccountService clientAccountService,
+                               ClientAccountRepository clientAccountRepository,
+                               OptimisticLockRetry optimisticLockRetry,
+                               MeterRegistry meterRegistry) {
+        super(clientAccountService, clientAccountRepository, optimisticLockRetry, meterRegistry);
+    }
+}
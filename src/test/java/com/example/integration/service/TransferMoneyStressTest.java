@@ -0,0 +1,148 @@
+package com.example.integration.service;
+
+import com.example.dto.TransferMoneyDto;
+import com.example.entity.ClientAccount;
+import com.example.http.exception.ClientAccountException;
+import com.example.integration.IntegrationTestBase;
+import com.example.money.Money;
+import com.example.repository.ClientAccountRepository;
+import com.example.service.ClientAccountService;
+import com.example.service.OptimisticLockRetry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlMergeMode;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Нагрузочный тест переводов: несколько потоков одновременно переводят средства между
+ * небольшим количеством счетов (в том числе во встречных направлениях). Наследники запускают
+ * одну и ту же нагрузку в разных режимах перевода (transfer.mode), в логах - количество переводов
+ * в секунду, конфликтов версий и повторов. Переводы выполняются через OptimisticLockRetry, как в контроллере.
+ * Тест не транзакционный, чтобы каждый перевод выполнялся в собственной транзакции, как при обработке
+ * HTTP запросов, поэтому после теста БД очищается
+ */
+@Slf4j
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+abstract class TransferMoneyStressTest extends IntegrationTestBase {
+    private static final int THREADS = 8;
+    private static final int TRANSFERS_PER_THREAD = 250;
+    private static final int CLIENTS = 10;
+    private static final Money TOTAL_BALANCE = Money.of("1000");
+
+    protected final ClientAccountService clientAccountService;
+
+    private final ClientAccountRepository clientAccountRepository;
+
+    private final OptimisticLockRetry optimisticLockRetry;
+
+    private final MeterRegistry meterRegistry;
+
+    TransferMoneyStressTest(ClientAccountService clientAccountService,
+                            ClientAccountRepository clientAccountRepository,
+                            OptimisticLockRetry optimisticLockRetry,
+                            MeterRegistry meterRegistry) {
+        this.clientAccountService = clientAccountService;
+        this.clientAccountRepository = clientAccountRepository;
+        this.optimisticLockRetry = optimisticLockRetry;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * метод, тестирующий, что при одновременных переводах не возникает взаимных блокировок,
+     * ни один баланс не уходит в минус и суммарный баланс всех счетов в БД не меняется
+     * @throws Exception - exception
+     */
+    @Test
+    @SqlMergeMode(SqlMergeMode.MergeMode.MERGE)
+    @Sql(scripts = "classpath:sql/clean.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    void concurrentTransfersPreserveTotalBalance() throws Exception {
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger conflicted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            Random random = new Random(i);
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < TRANSFERS_PER_THREAD; j++) {
+                    int sender = random.nextInt(CLIENTS) + 1;
+                    int recipient = (sender + random.nextInt(CLIENTS - 1)) % CLIENTS + 1;
+                    Money amount = Money.ofMinor(random.nextInt(5000) + 1);
+                    try {
+                        transferMoney(sender, new TransferMoneyDto(recipient, amount));
+                        completed.incrementAndGet();
+                    } catch (ClientAccountException e) {
+                        rejected.incrementAndGet();
+                    } catch (OptimisticLockingFailureException e) {
+                        conflicted.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long startedAt = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        long elapsedNanos = System.nanoTime() - startedAt;
+        executor.shutdown();
+
+        log.info("{} transfers: {} completed, {} rejected, {} not completed after retries, {} transfers/s, "
+                        + "version conflicts - {}, retries - {}",
+                getClass().getSimpleName(), completed.get(), rejected.get(), conflicted.get(),
+                (completed.get() + rejected.get()) * TimeUnit.SECONDS.toNanos(1) / elapsedNanos,
+                count("optimistic.lock.conflicts"), count("optimistic.lock.retries"));
+        flushTransfers();
+
+        List<ClientAccount> accounts = clientAccountRepository.findAll();
+        assertThat(completed.get()).isPositive();
+        assertThat(accounts)
+                .hasSize(CLIENTS)
+                .allSatisfy(account -> assertThat(account.getBalance().isPositive()).isTrue());
+        assertThat(accounts.stream().map(ClientAccount::getBalance).reduce(Money.ZERO, Money::plus))
+                .isEqualTo(TOTAL_BALANCE);
+    }
+
+    /**
+     * метод, выполняющий один перевод нагрузки
+     * @param senderClientId - идентификатор клиента-отправителя
+     * @param transferMoneyDto - перевод
+     */
+    protected void transferMoney(Integer senderClientId, TransferMoneyDto transferMoneyDto) {
+        optimisticLockRetry.run(OptimisticLockRetry.TRANSFER,
+                () -> clientAccountService.transferMoney(senderClientId, transferMoneyDto));
+    }
+
+    /**
+     * метод, вызываемый после нагрузки перед проверкой балансов в БД
+     */
+    protected void flushTransfers() {
+    }
+
+    private double count(String meter) {
+        return meterRegistry.find(meter).tag("operation", OptimisticLockRetry.TRANSFER).counters().stream()
+                .mapToDouble(Counter::count)
+                .sum();
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.money;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Класс для Unit тестирования Money, MoneySerializer и MoneyDeserializer
+ */
+class MoneyTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * параметризованный метод, тестирующий разбор суммы из строки с округлением до копеек (HALF_UP)
+     * @param amount - строковое представление суммы
+     * @param expectedMinorUnits - ожидаемое количество копеек
+     */
+    @ParameterizedTest
+    @CsvSource({"100, 10000", "1.5, 150", "1.005, 101", "1.004, 100", "-1.005, -101", "0.001, 0"})
+    void parseRoundsToMinorUnits(String amount, long expectedMinorUnits) {
+        assertThat(Money.of(amount).getMinorUnits()).isEqualTo(expectedMinorUnits);
+    }
+
+    /**
+     * параметризованный метод, тестирующий вычисление процентов с округлением половины копейки от нуля,
+     * как round() в PostgreSQL
+     * @param minorUnits - сумма в копейках
+     * @param percent - количество процентов
+     * @param expectedMinorUnits - ожидаемое количество копеек
+     */
+    @ParameterizedTest
+    @CsvSource({"10000, 105, 10500", "10, 105, 11", "9, 105, 9", "-10, 105, -11", "11576, 105, 12155"})
+    void percentRoundsHalfUp(long minorUnits, long percent, long expectedMinorUnits) {
+        assertThat(Money.ofMinor(minorUnits).percent(percent)).isEqualTo(Money.ofMinor(expectedMinorUnits));
+    }
+
+    /**
+     * метод, тестирующий, что переполнение long приводит к ArithmeticException, а не к потере точности
+     */
+    @Test
+    void overflowThrowsArithmeticException() {
+        Money max = Money.ofMinor(Long.MAX_VALUE);
+
+        assertThrows(ArithmeticException.class, () -> max.plus(Money.ofMinor(1)));
+        assertThrows(ArithmeticException.class, () -> Money.ofMinor(Long.MIN_VALUE).minus(Money.ofMinor(1)));
+        assertThrows(ArithmeticException.class, () -> max.percent(105));
+        assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("1e20")));
+    }
+
+    /**
+     * метод, тестирующий строковое представление и преобразование в BigDecimal
+     */
+    @Test
+    void formatWithTwoDecimals() {
+        assertThat(Money.of("105")).hasToString("105.00");
+        assertThat(Money.ofMinor(-5)).hasToString("-0.05");
+        assertThat(Money.ofMinor(12345).toBigDecimal()).isEqualByComparingTo("123.45");
+        assertThat(Money.ofMinor(12345).toBigDecimal().scale()).isEqualTo(2);
+    }
+
+    /**
+     * метод, тестирующий запись Money в JSON числом с двумя знаками после запятой
+     * @throws Exception - exception
+     */
+    @Test
+    void serializeAsNumber() throws Exception {
+        assertThat(objectMapper.writeValueAsString(Money.of("1.5"))).isEqualTo("1.50");
+        assertThat(objectMapper.writeValueAsString(Money.ZERO)).isEqualTo("0.00");
+    }
+
+    /**
+     * параметризованный метод, тестирующий чтение Money из JSON числа или строки без промежуточного double
+     * @param json - JSON значение
+     * @param expectedAmount - ожидаемая сумма
+     * @throws Exception - exception
+     */
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {"20|20.00", "0.1|0.10", "1.005|1.01", "\"12.5\"|12.50", "\" 7 \"|7.00"})
+    void deserializeNumberOrString(String json, String expectedAmount) throws Exception {
+        assertThat(objectMapper.readValue(json, Money.class)).isEqualTo(Money.of(expectedAmount));
+    }
+
+    /**
+     * метод, тестирующий, что некорректные значения отклоняются при чтении из JSON
+     */
+    @Test
+    void deserializeRejectsInvalidValues() {
+        assertThrows(InvalidFormatException.class, () -> objectMapper.readValue("\"abc\"", Money.class));
+        assertThrows(MismatchedInputException.class, () -> objectMapper.readValue("true", Money.class));
+    }
+}
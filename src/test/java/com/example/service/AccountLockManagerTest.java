@@ -0,0 +1,142 @@
+package com.example.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Класс для Unit тестирования AccountLockManager
+ */
+class AccountLockManagerTest {
+    private static final int STRIPES = 4;
+    private static final long TIMEOUT = 5_000;
+    private SimpleMeterRegistry meterRegistry;
+    private AccountLockManager accountLockManager;
+
+    @BeforeEach
+    void initData() {
+        meterRegistry = new SimpleMeterRegistry();
+        accountLockManager = new AccountLockManager(meterRegistry, true, STRIPES, TIMEOUT);
+    }
+
+    /**
+     * метод, тестирующий, что операция, страйп счета которой занят, ждет освобождения страйпа, а ожидание
+     * записывается в метрику с тегом роли счета. Операция со счетами других страйпов не ждет
+     * @throws Exception - exception
+     */
+    @Test
+    void contendedStripeIsMeasured() throws Exception {
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> accountLockManager.run(1, 2, () -> {
+            locked.countDown();
+            await(release);
+        }));
+        locked.await();
+
+        assertThat(accountLockManager.execute(3, List.of(4), () -> 7)).isEqualTo(7);
+        CompletableFuture<Integer> waiter = CompletableFuture.supplyAsync(
+                () -> accountLockManager.execute(3, List.of(2 + STRIPES), () -> 42));
+        Thread.sleep(50);
+        assertThat(waiter).isNotDone();
+        release.countDown();
+
+        assertThat(waiter.get(5, TimeUnit.SECONDS)).isEqualTo(42);
+        holder.get(5, TimeUnit.SECONDS);
+        assertThat(meterRegistry.find("account.lock.wait").tag("role", "recipient").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.find("account.lock.wait").tag("role", "sender").timer().count()).isZero();
+    }
+
+    /**
+     * метод, тестирующий, что операция, не дождавшаяся страйпа за таймаут, отклоняется и не выполняется
+     * @throws Exception - exception
+     */
+    @Test
+    void lockTimeoutRejectsOperation() throws Exception {
+        AccountLockManager shortTimeoutLockManager = new AccountLockManager(meterRegistry, true, STRIPES, 50);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> shortTimeoutLockManager.run(1, 2, () -> {
+            locked.countDown();
+            await(release);
+        }));
+        locked.await();
+
+        AtomicBoolean executed = new AtomicBoolean();
+        CannotAcquireLockException exception = assertThrows(CannotAcquireLockException.class,
+                () -> shortTimeoutLockManager.run(1, 3, () -> executed.set(true)));
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+
+        assertThat(exception.getMessage()).isEqualTo(AccountLockManager.ACCOUNT_IS_BUSY);
+        assertThat(executed).isFalse();
+        assertThat(meterRegistry.find("account.lock.wait").tag("role", "sender").timer().count()).isEqualTo(1);
+    }
+
+    /**
+     * метод, тестирующий встречные операции двух счетов разных страйпов: страйпы захватываются в одном
+     * порядке, поэтому операции не блокируют друг друга навсегда (иначе страйп не был бы получен за таймаут)
+     * и выполняются по одной
+     * @throws Exception - exception
+     */
+    @Test
+    void oppositeOperationsRunOneAtATime() throws Exception {
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger maxInside = new AtomicInteger();
+        Runnable operation = () -> {
+            maxInside.accumulateAndGet(inside.incrementAndGet(), Math::max);
+            inside.decrementAndGet();
+        };
+
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() -> {
+            for (int i = 0; i < 10_000; i++) {
+                accountLockManager.run(1, 2, operation);
+            }
+        });
+        CompletableFuture<Void> second = CompletableFuture.runAsync(() -> {
+            for (int i = 0; i < 10_000; i++) {
+                accountLockManager.run(2, 1, operation);
+            }
+        });
+
+        CompletableFuture.allOf(first, second).get(30, TimeUnit.SECONDS);
+        assertThat(maxInside.get()).isEqualTo(1);
+    }
+
+    /**
+     * метод, тестирующий, что страйп, общий для отправителя и получателя, захватывается и освобождается
+     * один раз: после операции страйп сразу доступен другому потоку
+     * @throws Exception - exception
+     */
+    @Test
+    void sharedStripeIsLockedOnce() throws Exception {
+        AccountLockManager shortTimeoutLockManager = new AccountLockManager(meterRegistry, true, STRIPES, 50);
+
+        assertThat(shortTimeoutLockManager.execute(1, List.of(1 + STRIPES, 1 + 2 * STRIPES), () -> 42))
+                .isEqualTo(42);
+
+        assertThat(CompletableFuture.supplyAsync(() -> shortTimeoutLockManager.execute(1, List.of(2), () -> 7))
+                .get(5, TimeUnit.SECONDS)).isEqualTo(7);
+        assertThat(meterRegistry.find("account.lock.wait").timers())
+                .allSatisfy(timer -> assertThat(timer.count()).isZero());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,26 +1,45 @@
 package com.example.service;
 
+import com.example.entity.AccountEntry;
+import com.example.entity.AccountEntryType;
 import com.example.entity.Client;
 import com.example.entity.ClientAccount;
+import com.example.entity.IdempotencyKey;
+import com.example.repository.AccountEntryRepository;
 import com.example.repository.ClientAccountRepository;
 import com.example.dto.TransferMoneyDto;
+import com.example.dto.TransferResultDto;
+import com.example.money.Money;
 import com.example.http.exception.ClientAccountException;
+import com.example.provider.BalanceProvider;
+import com.example.util.RequestHashUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 
 /**
  * Класс для Unit тестирования ClientAccountService
@@ -31,25 +50,32 @@ class ClientAccountServiceTest {
     private static final Integer RECIPIENT_CLIENT_ID = 2;
     private static final Integer RECIPIENT_FAKE_CLIENT_ID = 14;
     private static final String SENDER_LOGIN = "test1@mail.ru";
-    private static BigDecimal balance = new BigDecimal(100);
+    private static final String IDEMPOTENCY_KEY = "payroll-2024-05-1";
+    private static Money balance = Money.of("100");
     private Client client;
     private ClientAccount senderClientAccount;
     @Mock
     private ClientService clientService;
     @Mock
     private ClientAccountRepository clientAccountRepository;
+    @Mock
+    private BalanceProvider balanceProvider;
+    @Mock
+    private IdempotencyService idempotencyService;
+    @Mock
+    private AccountEntryRepository accountEntryRepository;
+    @Mock
+    private HotAccountService hotAccountService;
     @InjectMocks
     private ClientAccountService clientAccountService;
 
     @BeforeEach
     void initData(){
         client = Client.builder().id(SENDER_CLIENT_ID).login(SENDER_LOGIN).build();
-        senderClientAccount = ClientAccount.builder().balance(balance).build();
+        senderClientAccount = ClientAccount.builder().balance(balance).client(client).build();
 
-        doReturn(client)
+        lenient().doReturn(client)
                 .when(clientService).getClientByLogin(SENDER_LOGIN);
-        doReturn(Optional.of(senderClientAccount))
-                .when(clientAccountRepository).findClientAccountByClientId(SENDER_CLIENT_ID);
     }
 
     /**
@@ -57,16 +83,183 @@ class ClientAccountServiceTest {
      */
     @Test
     void transferMoney() {
-        ClientAccount recipientClientAccount = ClientAccount.builder().balance(balance).build();
-        TransferMoneyDto transferMoneyDto = new TransferMoneyDto(RECIPIENT_CLIENT_ID, 20f);
+        ClientAccount recipientClientAccount = getRecipientClientAccount();
+        TransferMoneyDto transferMoneyDto = new TransferMoneyDto(RECIPIENT_CLIENT_ID, Money.of("20"));
 
-        doReturn(Optional.of(recipientClientAccount))
-                .when(clientAccountRepository).findClientAccountByClientId(RECIPIENT_CLIENT_ID);
+        doReturn(List.of(senderClientAccount, recipientClientAccount))
+                .when(clientAccountRepository)
+                .findAllByClientIdInForUpdate(List.of(SENDER_CLIENT_ID, RECIPIENT_CLIENT_ID));
 
         clientAccountService.transferMoney(SENDER_LOGIN, transferMoneyDto);
 
-        assertThat(senderClientAccount.getBalance()).isEqualTo(new BigDecimal(80));
-        assertThat(recipientClientAccount.getBalance()).isEqualTo(new BigDecimal(120));
+        assertThat(senderClientAccount.getBalance()).isEqualTo(Money.of("80.00"));
+        assertThat(recipientClientAccount.getBalance()).isEqualTo(Money.of("120.00"));
+    }
+
+    /**
+     * метод, тестирующий, что в режиме OPTIMISTIC счета загружаются без блокировки строк
+     */
+    @Test
+    void transferMoneyOptimistic() {
+        ClientAccountService optimisticClientAccountService = new ClientAccountService(
+                clientAccountRepository, clientService, balanceProvider, idempotencyService, hotAccountService,
+                accountEntryRepository, null, TransferMode.OPTIMISTIC);
+        ClientAccount recipientClientAccount = getRecipientClientAccount();
+        TransferMoneyDto transferMoneyDto = new TransferMoneyDto(RECIPIENT_CLIENT_ID, Money.of("20"));
+
+        doReturn(List.of(senderClientAccount, recipientClientAccount))
+                .when(clientAccountRepository)
+                .findAllByClientIdIn(List.of(SENDER_CLIENT_ID, RECIPIENT_CLIENT_ID));
+
+        optimisticClientAccountService.transferMoney(SENDER_CLIENT_ID, transferMoneyDto);
+
+        verify(clientAccountRepository, never()).findAllByClientIdInForUpdate(anyCollection());
+        assertThat(senderClientAccount.getBalance()).isEqualTo(Money.of("80.00"));
+        assertThat(recipientClientAccount.getBalance()).isEqualTo(Money.of("120.00"));
+    }
+
+    /**
+     * метод, тестирующий, что при переводе одним UPDATE запросом отказ из-за недостатка средств
+     * определяется по количеству обновленных строк без загрузки счетов для блокировки
+     */
+    @Test
+    void transferMoneyBySqlInsufficientFunds() {
+        ClientAccountService sqlClientAccountService = new ClientAccountService(
+                clientAccountRepository, clientService, balanceProvider, idempotencyService, hotAccountService,
+                accountEntryRepository, null, TransferMode.SQL);
+        TransferMoneyDto transferMoneyDto = new TransferMoneyDto(RECIPIENT_CLIENT_ID, Money.of("120"));
+
+        doReturn(0)
+                .when(clientAccountRepository)
+                .transferMoney(SENDER_CLIENT_ID, RECIPIENT_CLIENT_ID, new BigDecimal("120.00"));
+        doReturn(Optional.of(senderClientAccount))
+                .when(clientAccountRepository).findClientAccountByClientId(SENDER_CLIENT_ID);
+        doReturn(Optional.of(getRecipientClientAccount()))
+                .when(clientAccountRepository).findClientAccountByClientId(RECIPIENT_CLIENT_ID);
+
+        ClientAccountException exception = assertThrows(
+                ClientAccountException.class,
+                () -> sqlClientAccountService.transferMoney(SENDER_LOGIN, transferMoneyDto)
+        );
+
+        assertThat(exception.getMessage()).isEqualTo(ClientAccountService.INSUFFICIENT_FUNDS);
+        verify(clientAccountRepository, never()).findAllByClientIdInForUpdate(anyCollection());
+    }
+
+    /**
+     * метод, тестирующий, что перевод на горячий счет зачисляется на слот без обновления строки
+     * счета получателя, а при нехватке средств на балансе горячего счета отправителя суммы
+     * со слотов переносятся в баланс вместе с блокировкой строки счета получателя и перевод повторяется
+     */
+    @Test
+    void transferMoneyBySqlWithHotAccounts() {
+        ClientAccountService sqlClientAccountService = new ClientAccountService(
+                clientAccountRepository, clientService, balanceProvider, idempotencyService, hotAccountService,
+                accountEntryRepository, null, TransferMode.SQL);
+        Money amount = Money.of("120");
+
+        doReturn(true).when(hotAccountService).isHot(SENDER_CLIENT_ID);
+        doReturn(true).when(hotAccountService).isHot(RECIPIENT_CLIENT_ID);
+        doReturn(false, true)
+                .when(hotAccountService).transferToSlot(SENDER_CLIENT_ID, RECIPIENT_CLIENT_ID, amount);
+        doReturn(1).when(hotAccountService).sweep(List.of(SENDER_CLIENT_ID, RECIPIENT_CLIENT_ID));
+
+        sqlClientAccountService.transferMoney(SENDER_CLIENT_ID, new TransferMoneyDto(RECIPIENT_CLIENT_ID, amount));
+
+        verify(hotAccountService, times(2)).transferToSlot(SENDER_CLIENT_ID, RECIPIENT_CLIENT_ID, amount);
+        verify(hotAccountService).sweep(List.of(SENDER_CLIENT_ID, RECIPIENT_CLIENT_ID));
+        verify(clientAccountRepository, never()).transferMoney(any(), any(), any());
+    }
+
+    /**
+     * метод, тестирующий, что переводы группы применяются по очереди под одной блокировкой,
+     * а отклоненный перевод не отменяет остальные
+     */
+    @Test
+    void transferMoneyGroup() {
+        ClientAccount recipientClientAccount = getRecipientClientAccount();
+        List<TransferMoneyDto> transfers = List.of(
+                new TransferMoneyDto(RECIPIENT_CLIENT_ID, Money.of("60")),
+                new TransferMoneyDto(RECIPIENT_FAKE_CLIENT_ID, Money.of("10")),
+                new TransferMoneyDto(RECIPIENT_CLIENT_ID, Money.of("50")),
+                new TransferMoneyDto(RECIPIENT_CLIENT_ID, Money.of("30"))
+        );
+
+        doReturn(List.of(senderClientAccount, recipientClientAccount))
+                .when(clientAccountRepository)
+                .findAllByClientIdInForUpdate(Set.of(SENDER_CLIENT_ID, RECIPIENT_CLIENT_ID, RECIPIENT_FAKE_CLIENT_ID));
+
+        List<TransferResultDto> results = clientAccountService.transferMoneyGroup(SENDER_CLIENT_ID, transfers, null);
+
+        assertThat(results).extracting(TransferResultDto::getStatus).containsExactly(
+                TransferResultDto.Status.COMPLETED,
+                TransferResultDto.Status.REJECTED,
+                TransferResultDto.Status.REJECTED,
+                TransferResultDto.Status.COMPLETED
+        );
+        assertThat(results.get(1).getMessage()).isEqualTo(ClientAccountService.ACCOUNT_IS_NOT_FOUND);
+        assertThat(results.get(2).getMessage()).isEqualTo(ClientAccountService.INSUFFICIENT_FUNDS);
+        assertThat(senderClientAccount.getBalance()).isEqualTo(Money.of("10.00"));
+        assertThat(recipientClientAccount.getBalance()).isEqualTo(Money.of("190.00"));
+    }
+
+    /**
+     * метод, тестирующий, что в режиме LEDGER переводы группы резервируют сумму на счете отправителя
+     * и записываются в журнал движений, не изменяя балансы до проекции
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void transferMoneyGroupByLedger() {
+        ClientAccountService ledgerClientAccountService = new ClientAccountService(
+                clientAccountRepository, clientService, balanceProvider, idempotencyService, hotAccountService,
+                accountEntryRepository, null, TransferMode.LEDGER);
+        senderClientAccount.setId(SENDER_CLIENT_ID);
+        ClientAccount recipientClientAccount = getRecipientClientAccount();
+        recipientClientAccount.setId(RECIPIENT_CLIENT_ID);
+        List<TransferMoneyDto> transfers = List.of(
+                new TransferMoneyDto(RECIPIENT_CLIENT_ID, Money.of("60")),
+                new TransferMoneyDto(RECIPIENT_CLIENT_ID, Money.of("50"))
+        );
+
+        doReturn(List.of(senderClientAccount, recipientClientAccount))
+                .when(clientAccountRepository)
+                .findAllByClientIdInForUpdate(Set.of(SENDER_CLIENT_ID, RECIPIENT_CLIENT_ID));
+
+        List<TransferResultDto> results = ledgerClientAccountService.transferMoneyGroup(
+                SENDER_CLIENT_ID, transfers, null);
+
+        ArgumentCaptor<List<AccountEntry>> entries = ArgumentCaptor.forClass(List.class);
+        verify(accountEntryRepository).saveAll(entries.capture());
+        assertThat(results).extracting(TransferResultDto::getStatus).containsExactly(
+                TransferResultDto.Status.COMPLETED,
+                TransferResultDto.Status.REJECTED
+        );
+        assertThat(senderClientAccount.getBalance()).isEqualTo(Money.of("100.00"));
+        assertThat(senderClientAccount.getReserved()).isEqualTo(Money.of("60.00"));
+        assertThat(recipientClientAccount.getBalance()).isEqualTo(Money.of("100.00"));
+        assertThat(entries.getValue())
+                .extracting(AccountEntry::getAccountId, AccountEntry::getAmount, AccountEntry::getEntryType)
+                .containsExactly(
+                        tuple(SENDER_CLIENT_ID, Money.of("-60"), AccountEntryType.TRANSFER_DEBIT),
+                        tuple(RECIPIENT_CLIENT_ID, Money.of("60"), AccountEntryType.TRANSFER_CREDIT)
+                );
+    }
+
+    /**
+     * метод, тестирующий, что повторный запрос с ключом идемпотентности уже выполненного перевода
+     * не обращается к счетам
+     */
+    @Test
+    void transferMoneyWithCompletedIdempotencyKey() {
+        TransferMoneyDto transferMoneyDto = new TransferMoneyDto(RECIPIENT_CLIENT_ID, Money.of("20"));
+
+        doReturn(Optional.of(IdempotencyKey.builder().build()))
+                .when(idempotencyService).claim(SENDER_CLIENT_ID, IDEMPOTENCY_KEY, RequestHashUtil.getRequestHash(transferMoneyDto));
+
+        clientAccountService.transferMoney(SENDER_CLIENT_ID, transferMoneyDto, IDEMPOTENCY_KEY);
+
+        verifyNoInteractions(clientAccountRepository);
+        verify(idempotencyService, never()).complete(any(), any(), any(), any());
     }
 
     /**
@@ -77,11 +270,12 @@ class ClientAccountServiceTest {
     @ParameterizedTest
     @MethodSource("getArgumentsForExceptionScenarios")
     void transferMoneyExceptionScenarios(TransferMoneyDto transferMoneyDto, String expectedMessage){
-        if(transferMoneyDto.getRecipientId() != RECIPIENT_FAKE_CLIENT_ID) {
-            ClientAccount recipientClientAccount = ClientAccount.builder().balance(balance).build();
-            doReturn(Optional.of(recipientClientAccount))
-                    .when(clientAccountRepository).findClientAccountByClientId(RECIPIENT_CLIENT_ID);
-        }
+        List<ClientAccount> lockedAccounts = transferMoneyDto.getRecipientId() != RECIPIENT_FAKE_CLIENT_ID
+                ? List.of(senderClientAccount, getRecipientClientAccount())
+                : List.of(senderClientAccount);
+        doReturn(lockedAccounts)
+                .when(clientAccountRepository)
+                .findAllByClientIdInForUpdate(List.of(SENDER_CLIENT_ID, transferMoneyDto.getRecipientId()));
 
         ClientAccountException exception = assertThrows(
                 ClientAccountException.class,
@@ -91,6 +285,17 @@ class ClientAccountServiceTest {
         assertThat(exception.getMessage()).isEqualTo(expectedMessage);
     }
 
+    /**
+     * метод, создающий счет клиента-получателя
+     * @return ClientAccount - счет клиента-получателя
+     */
+    private ClientAccount getRecipientClientAccount() {
+        return ClientAccount.builder()
+                .balance(balance)
+                .client(Client.builder().id(RECIPIENT_CLIENT_ID).build())
+                .build();
+    }
+
     /**
      * метод, предоставляющий данные для параметризованного тестового метода
      * @return Stream<Arguments> - стрим аргументов
@@ -98,11 +303,11 @@ class ClientAccountServiceTest {
     static Stream<Arguments> getArgumentsForExceptionScenarios(){
         return Stream.of(
                 Arguments.of(
-                        new TransferMoneyDto(RECIPIENT_FAKE_CLIENT_ID, 20f),
+                        new TransferMoneyDto(RECIPIENT_FAKE_CLIENT_ID, Money.of("20")),
                         "Счет у клиента не найден"
                 ),
                 Arguments.of(
-                        new TransferMoneyDto(RECIPIENT_CLIENT_ID, 120f),
+                        new TransferMoneyDto(RECIPIENT_CLIENT_ID, Money.of("120")),
                         "На счету недостаточно средств"
                 )
         );
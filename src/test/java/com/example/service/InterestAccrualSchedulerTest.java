@@ -0,0 +1,52 @@
+package com.example.service;
+
+import com.example.repository.ClientAccountRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Класс для Unit тестирования InterestAccrualScheduler
+ */
+@ExtendWith(MockitoExtension.class)
+class InterestAccrualSchedulerTest {
+    private static final long INTERVAL = 60_000;
+    private static final int UNIT_SIZE = 100;
+    @Mock
+    private InterestAccrualService interestAccrualService;
+    @Mock
+    private HotAccountService hotAccountService;
+    @Mock
+    private ClientAccountRepository clientAccountRepository;
+
+    /**
+     * метод, тестирующий, что номер запуска в режиме CLUSTER вычисляется по часам планировщика:
+     * в любой момент внутри интервала узлы регистрируют один и тот же запуск
+     */
+    @Test
+    void tickNoIsTakenFromClock() {
+        doReturn(Optional.empty()).when(interestAccrualService).accrueWorkUnit("node-1");
+
+        getScheduler(Instant.ofEpochMilli(3 * INTERVAL)).accrueInterestToClients();
+        getScheduler(Instant.ofEpochMilli(4 * INTERVAL - 1)).accrueInterestToClients();
+
+        verify(interestAccrualService, times(2)).createWorkUnits(3, UNIT_SIZE);
+    }
+
+    private InterestAccrualScheduler getScheduler(Instant now) {
+        return new InterestAccrualScheduler(interestAccrualService, hotAccountService, clientAccountRepository,
+                new OptimisticLockRetry(new SimpleMeterRegistry(), 1, 0, 0), Runnable::run,
+                Clock.fixed(now, ZoneOffset.UTC), AccrualMode.CLUSTER, 1000, 4, INTERVAL, UNIT_SIZE, "node-1", false);
+    }
+}
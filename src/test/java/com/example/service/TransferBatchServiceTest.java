@@ -0,0 +1,80 @@
+package com.example.service;
+
+import com.example.dto.TransferMoneyDto;
+import com.example.dto.TransferResultDto;
+import com.example.http.exception.ClientAccountException;
+import com.example.money.Money;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+
+/**
+ * Класс для Unit тестирования TransferBatchService
+ */
+@ExtendWith(MockitoExtension.class)
+class TransferBatchServiceTest {
+    private static final Integer SENDER_CLIENT_ID = 1;
+    @Mock
+    private ClientAccountService clientAccountService;
+    @Mock
+    private IdempotencyService idempotencyService;
+    private TransferBatchService transferBatchService;
+
+    @BeforeEach
+    void initData() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        transferBatchService = new TransferBatchService(clientAccountService, idempotencyService,
+                new OptimisticLockRetry(meterRegistry, 2, 0, 0),
+                new AccountLockManager(meterRegistry, true, 4, 0), 1);
+    }
+
+    /**
+     * метод, тестирующий, что переводы незафиксированных групп получают статус FAILED с известной
+     * причиной отказа, а текст внутренних ошибок (например, ошибок БД) клиенту не возвращается
+     */
+    @Test
+    void failedGroupsGetStableMessages() {
+        List<TransferMoneyDto> transfers = List.of(
+                new TransferMoneyDto(2, Money.of("1")),
+                new TransferMoneyDto(3, Money.of("2")),
+                new TransferMoneyDto(4, Money.of("3")),
+                new TransferMoneyDto(5, Money.of("4")),
+                new TransferMoneyDto(6, Money.of("5")));
+        doReturn(List.of(TransferResultDto.completed(transfers.get(0))))
+                .when(clientAccountService).transferMoneyGroup(eq(SENDER_CLIENT_ID), eq(transfers.subList(0, 1)), any());
+        doThrow(new ClientAccountException(ClientAccountService.ACCOUNT_IS_NOT_FOUND))
+                .when(clientAccountService).transferMoneyGroup(eq(SENDER_CLIENT_ID), eq(transfers.subList(1, 2)), any());
+        doThrow(new OptimisticLockingFailureException("Row was updated by another transaction: client_account#3"))
+                .when(clientAccountService).transferMoneyGroup(eq(SENDER_CLIENT_ID), eq(transfers.subList(2, 3)), any());
+        doThrow(new DataAccessResourceFailureException("Connection to db.internal:5432 refused"))
+                .when(clientAccountService).transferMoneyGroup(eq(SENDER_CLIENT_ID), eq(transfers.subList(3, 4)), any());
+        doThrow(new CannotAcquireLockException(AccountLockManager.ACCOUNT_IS_BUSY))
+                .when(clientAccountService).transferMoneyGroup(eq(SENDER_CLIENT_ID), eq(transfers.subList(4, 5)), any());
+
+        List<TransferResultDto> results = transferBatchService.transferMoney(SENDER_CLIENT_ID, transfers, null);
+
+        assertThat(results)
+                .extracting(TransferResultDto::getRecipientId, TransferResultDto::getStatus, TransferResultDto::getMessage)
+                .containsExactly(
+                        tuple(2, TransferResultDto.Status.COMPLETED, null),
+                        tuple(3, TransferResultDto.Status.FAILED, ClientAccountService.ACCOUNT_IS_NOT_FOUND),
+                        tuple(4, TransferResultDto.Status.FAILED, TransferBatchService.GROUP_CONFLICT),
+                        tuple(5, TransferResultDto.Status.FAILED, TransferBatchService.GROUP_FAILED),
+                        tuple(6, TransferResultDto.Status.FAILED, TransferBatchService.GROUP_LOCK_TIMEOUT));
+    }
+}
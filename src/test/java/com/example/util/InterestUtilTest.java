@@ -0,0 +1,39 @@
+package com.example.util;
+
+import com.example.money.Money;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Класс для Unit тестирования InterestUtil
+ */
+class InterestUtilTest {
+    private static final Money LIMIT_BALANCE = Money.of("207");
+
+    /**
+     * метод, тестирующий, что баланс меньше 0.10 не меняется после округления до копеек
+     * и начисление за любое количество интервалов завершается сразу, не перебирая интервалы
+     */
+    @Test
+    @Timeout(1)
+    void smallBalanceStopsAccruing() {
+        assertThat(InterestUtil.accrue(Money.of("0.09"), LIMIT_BALANCE, Long.MAX_VALUE)).isEqualTo(Money.of("0.09"));
+        assertThat(InterestUtil.accrue(Money.of("0.10"), LIMIT_BALANCE, 1)).isEqualTo(Money.of("0.11"));
+        assertThat(InterestUtil.isCapped(Money.of("0.09"), LIMIT_BALANCE)).isFalse();
+    }
+
+    /**
+     * метод, тестирующий, что начисление за любое количество интервалов останавливается на балансе,
+     * следующее начисление для которого превысило бы максимальный
+     */
+    @Test
+    @Timeout(1)
+    void accrualStopsAtLimitBalance() {
+        Money balance = InterestUtil.accrue(Money.of("100"), LIMIT_BALANCE, Long.MAX_VALUE);
+
+        assertThat(balance).isEqualTo(Money.of("198.01"));
+        assertThat(InterestUtil.isCapped(balance, LIMIT_BALANCE)).isTrue();
+    }
+}
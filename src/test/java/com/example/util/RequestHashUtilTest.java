@@ -0,0 +1,44 @@
+package com.example.util;
+
+import com.example.dto.TransferMoneyDto;
+import com.example.money.Money;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Класс для Unit тестирования RequestHashUtil
+ */
+class RequestHashUtilTest {
+
+    /**
+     * метод, тестирующий, что запросы с одинаковым hashCode() получают разные отпечатки
+     */
+    @Test
+    void collidingHashCodesGetDifferentHashes() {
+        TransferMoneyDto transfer = new TransferMoneyDto(2, Money.of("1.59"));
+        TransferMoneyDto collidingTransfer = new TransferMoneyDto(3, Money.of("1.00"));
+
+        assertThat(transfer.hashCode()).isEqualTo(collidingTransfer.hashCode());
+        assertThat(RequestHashUtil.getRequestHash(transfer))
+                .isNotEqualTo(RequestHashUtil.getRequestHash(collidingTransfer));
+    }
+
+    /**
+     * метод, тестирующий, что отпечаток зависит только от содержимого запроса и порядка переводов
+     */
+    @Test
+    void hashDependsOnContent() {
+        TransferMoneyDto transfer = new TransferMoneyDto(2, Money.of("20"));
+        TransferMoneyDto sameTransfer = new TransferMoneyDto(2, Money.of("20.00"));
+        TransferMoneyDto otherTransfer = new TransferMoneyDto(3, Money.of("20"));
+
+        assertThat(RequestHashUtil.getRequestHash(transfer))
+                .hasSize(64)
+                .isEqualTo(RequestHashUtil.getRequestHash(sameTransfer));
+        assertThat(RequestHashUtil.getRequestHash(List.of(transfer, otherTransfer)))
+                .isNotEqualTo(RequestHashUtil.getRequestHash(List.of(otherTransfer, transfer)));
+    }
+}
@@ -0,0 +1,3 @@
+DELETE FROM client_service.accrual_tick;
+
+DELETE FROM client_service.client;